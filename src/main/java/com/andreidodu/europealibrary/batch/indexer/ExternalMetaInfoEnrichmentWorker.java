@@ -0,0 +1,69 @@
+package com.andreidodu.europealibrary.batch.indexer;
+
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.dataretriever.MetaInfoRetrieverStrategy;
+import com.andreidodu.europealibrary.service.ApplicationSettingsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Background worker of the external enrichment: it runs the enrichment job, which takes the books still waiting
+ * for their meta-info (the queue is the set of books without a successful web retrievement, read after the cursor)
+ * and writes meta-info, ratings and categories chunk by chunk.
+ * <p>
+ * It never runs together with the indexer: a run is not started while the application is locked,
+ * and a running one stops as soon as the indexer locks it (the next run resumes from the cursor).
+ * No run is started while no source is available (no api key, no imported dump).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExternalMetaInfoEnrichmentWorker {
+    private final JobLauncher jobLauncher;
+    private final ApplicationSettingsService applicationSettingsService;
+    private final List<MetaInfoRetrieverStrategy> metaInfoRetrieverStrategyList;
+    @Autowired
+    @Qualifier("enrichmentJob")
+    private Job enrichmentJob;
+    @Value("${com.andreidodu.europea-library.task.enrichment.enabled}")
+    private boolean enabled;
+
+    // asynchronous, so that the long runs do not hold the scheduler thread shared with the indexer schedules
+    @Async
+    @Scheduled(initialDelayString = "${com.andreidodu.europea-library.task.enrichment.delay-milliseconds}",
+            fixedDelayString = "${com.andreidodu.europea-library.task.enrichment.delay-milliseconds}")
+    public void runEnrichment() throws JobInstanceAlreadyCompleteException, JobParametersInvalidException, JobRestartException {
+        if (!this.enabled) {
+            return;
+        }
+        if (this.applicationSettingsService.isApplicationLocked()) {
+            log.debug("the indexer is running, the enrichment is postponed");
+            return;
+        }
+        if (this.metaInfoRetrieverStrategyList.stream().noneMatch(MetaInfoRetrieverStrategy::isAvailable)) {
+            log.debug("no meta-info source is available, the enrichment is not started");
+            return;
+        }
+        try {
+            this.jobLauncher.run(this.enrichmentJob, new JobParameters());
+        } catch (JobExecutionAlreadyRunningException e) {
+            log.debug("enrichment already running: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error starting enrichment job: {}", e.getMessage());
+        }
+    }
+}
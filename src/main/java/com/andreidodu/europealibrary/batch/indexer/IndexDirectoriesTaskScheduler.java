@@ -10,6 +10,8 @@ import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
 import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -21,7 +23,9 @@ import java.util.Date;
 public class IndexDirectoriesTaskScheduler {
     public static final String JOB_PARAMETER_DATE_KEY = "date";
     private final JobLauncher jobLauncher;
-    private final Job job;
+    @Autowired
+    @Qualifier("indexerJob")
+    private Job job;
 
     private static JobParameters generateJobParameters() {
         return new JobParametersBuilder().addDate(JOB_PARAMETER_DATE_KEY, new Date(System.currentTimeMillis())).toJobParameters();
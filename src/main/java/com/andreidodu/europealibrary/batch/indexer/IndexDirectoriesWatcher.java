@@ -0,0 +1,187 @@
+package com.andreidodu.europealibrary.batch.indexer;
+
+import com.andreidodu.europealibrary.batch.indexer.constants.JobConst;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional watch mode: listens for create, modify and delete events in the e-books directory tree and,
+ * once a directory has been quiet for the debounce period, runs the indexer job only for the affected directories.
+ * When events are lost (overflow) a full indexing is requested instead; the cron-based full run stays as reconciliation scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexDirectoriesWatcher {
+    private final JobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    @Autowired
+    @Qualifier("indexerJob")
+    private Job job;
+    @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
+    private String ebookDirectory;
+    @Value("${com.andreidodu.europea-library.task.indexer.watcher.enabled}")
+    private boolean enabled;
+    @Value("${com.andreidodu.europea-library.task.indexer.watcher.debounce-milliseconds}")
+    private long debounceMilliseconds;
+    @Value("${com.andreidodu.europea-library.task.indexer.watcher.max-directories-per-run}")
+    private int maxDirectoriesPerRun;
+
+    private final Map<WatchKey, Path> watchKeyDirectoryMap = new ConcurrentHashMap<>();
+    private final Map<Path, Long> pendingDirectoryMap = new ConcurrentHashMap<>();
+    private final AtomicBoolean fullIndexingRequested = new AtomicBoolean(false);
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    @PostConstruct
+    private void startWatching() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerRecursively(Path.of(ebookDirectory));
+        this.watcherThread = new Thread(this::processEvents, "e-books-directory-watcher");
+        this.watcherThread.setDaemon(true);
+        this.watcherThread.start();
+        log.info("watching {} directories for changes", this.watchKeyDirectoryMap.size());
+    }
+
+    @PreDestroy
+    private void stopWatching() throws IOException {
+        if (this.watchService == null) {
+            return;
+        }
+        this.watcherThread.interrupt();
+        this.watchService.close();
+    }
+
+    private void registerRecursively(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attrs) throws IOException {
+                WatchKey watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchKeyDirectoryMap.put(watchKey, directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.warn("unable to watch {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void processEvents() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+            try {
+                watchKey = this.watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = this.watchKeyDirectoryMap.get(watchKey);
+            if (directory != null) {
+                watchKey.pollEvents().forEach(event -> processEvent(directory, event));
+            }
+            if (!watchKey.reset()) {
+                this.watchKeyDirectoryMap.remove(watchKey);
+            }
+        }
+    }
+
+    private void processEvent(Path directory, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            log.warn("file system events lost, a full indexing will be performed");
+            this.fullIndexingRequested.set(true);
+            return;
+        }
+        Path child = directory.resolve((Path) event.context());
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                registerRecursively(child);
+            } catch (IOException e) {
+                log.warn("unable to watch the new directory {}: {}", child, e.getMessage());
+            }
+        }
+        log.debug("{} {}", event.kind().name(), child);
+        this.pendingDirectoryMap.put(directory, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${com.andreidodu.europea-library.task.indexer.watcher.debounce-milliseconds}")
+    public void runIndexOfChangedDirectories() throws JobInstanceAlreadyCompleteException, JobParametersInvalidException, JobRestartException {
+        if (!enabled || isJobRunning()) {
+            return;
+        }
+        if (this.fullIndexingRequested.getAndSet(false)) {
+            this.pendingDirectoryMap.clear();
+            runJob(new JobParametersBuilder().addDate(IndexDirectoriesTaskScheduler.JOB_PARAMETER_DATE_KEY, new Date()));
+            return;
+        }
+        List<Path> directoryList = takeQuietDirectories();
+        if (directoryList.isEmpty()) {
+            return;
+        }
+        JobParametersBuilder jobParametersBuilder = new JobParametersBuilder().addDate(IndexDirectoriesTaskScheduler.JOB_PARAMETER_DATE_KEY, new Date());
+        if (directoryList.size() <= maxDirectoriesPerRun) {
+            jobParametersBuilder.addString(JobConst.JOB_PARAMETER_DIRECTORIES, String.join(JobConst.JOB_PARAMETER_DIRECTORIES_SEPARATOR, directoryList.stream().map(Path::toString).toList()));
+        }
+        runJob(jobParametersBuilder);
+    }
+
+    private List<Path> takeQuietDirectories() {
+        long quietSince = System.currentTimeMillis() - debounceMilliseconds;
+        List<Path> directoryList = new ArrayList<>();
+        this.pendingDirectoryMap.forEach((directory, lastEventTime) -> {
+            if (lastEventTime <= quietSince && this.pendingDirectoryMap.remove(directory, lastEventTime) && Files.isDirectory(directory)) {
+                directoryList.add(directory);
+            }
+        });
+        // nested directories are already walked by their ancestors
+        directoryList.sort(Comparator.comparingInt(Path::getNameCount));
+        List<Path> result = new ArrayList<>();
+        directoryList.stream()
+                .filter(directory -> result.stream().noneMatch(directory::startsWith))
+                .forEach(result::add);
+        return result;
+    }
+
+    private boolean isJobRunning() {
+        return !this.jobExplorer.findRunningJobExecutions(JobConst.JOB_INDEXER_NAME).isEmpty();
+    }
+
+    private void runJob(JobParametersBuilder jobParametersBuilder) throws JobInstanceAlreadyCompleteException, JobParametersInvalidException, JobRestartException {
+        try {
+            jobLauncher.run(job, jobParametersBuilder.toJobParameters());
+        } catch (JobExecutionAlreadyRunningException e) {
+            log.warn("Job is already running: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error starting job: {}", e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.andreidodu.europealibrary.batch.indexer.config;
 
 import com.andreidodu.europealibrary.batch.indexer.constants.JobConst;
+import com.andreidodu.europealibrary.batch.indexer.enums.PipelineModeEnum;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.FlowJobBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.builder.SimpleJobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -20,37 +25,32 @@ public class JobFlowConfig {
     private final JobRepository jobRepository;
     private final Step dbTagObsoleteDeleterStep;
     private final Step dbCategoryObsoleteDeleterStep;
+    private final Step filePartialHashStep;
     private final Step fileSystemItemHashStep;
     private final Step metaInfoBuilderStep;
+    private final Step bibliographicDumpImporterStep;
     private final Step externalMetaInfoBuilderStep;
     private final Step fileIndexerAndCataloguerStep;
+    private final Step fusedIndexerStep;
     private final Step dbFSIObsoleteDeleterStep;
     private final Step dbFMIObsoleteDeleterStep;
     private final Step dbJobStepUpdaterStep;
     private final Step finalizationStep;
     private final Step initializationStep;
     private final Step parentAssociatorStep;
-    private final Step tagWriterStep;
     private final Step metaInfoTagAssociatorStep;
-    private final Step categoryWriterStep;
-    private final Step bookInfoCategoryAssociatorStep;
     private final JobExecutionListener indexerJobExecutionListener;
+    private final JobExecutionListener enrichmentJobExecutionListener;
+    @Value("${com.andreidodu.europea-library.job.indexer.pipeline-mode}")
+    private PipelineModeEnum pipelineMode;
 
     @Bean("indexerJob")
     public Job indexerJob() {
-        return new JobBuilder(JobConst.JOB_INDEXER_NAME, jobRepository)
+        SimpleJobBuilder jobBuilder = new JobBuilder(JobConst.JOB_INDEXER_NAME, jobRepository)
                 .listener(indexerJobExecutionListener)
-                .start(initializationStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(fileIndexerAndCataloguerStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(fileSystemItemHashStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(parentAssociatorStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(metaInfoBuilderStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(tagWriterStep)
+                .start(initializationStep);
+        return buildPerFileFlow(jobBuilder)
                 .on(ExitStatus.COMPLETED.getExitCode()).to(metaInfoTagAssociatorStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(externalMetaInfoBuilderStep)
-                .from(externalMetaInfoBuilderStep).on(ExitStatus.FAILED.getExitCode()).to(categoryWriterStep)
-                .from(externalMetaInfoBuilderStep).on(ExitStatus.COMPLETED.getExitCode()).to(categoryWriterStep)
-                .on(ExitStatus.COMPLETED.getExitCode()).to(bookInfoCategoryAssociatorStep)
                 .on(ExitStatus.COMPLETED.getExitCode()).to(dbFSIObsoleteDeleterStep)
                 .on(ExitStatus.COMPLETED.getExitCode()).to(dbFMIObsoleteDeleterStep)
                 .on(ExitStatus.COMPLETED.getExitCode()).to(dbTagObsoleteDeleterStep)
@@ -61,4 +61,32 @@ public class JobFlowConfig {
                 .build();
     }
 
+    /**
+     * The external enrichment (bibliographic dump, Google Books), launched by the enrichment worker while the indexer is not running:
+     * the indexer does not wait for the rate-limited requests, and the application is not locked by them.
+     * Each run goes on from where the previous one stopped, see {@link com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalMetaInfoCursor}.
+     */
+    @Bean("enrichmentJob")
+    public Job enrichmentJob() {
+        return new JobBuilder(JobConst.JOB_ENRICHMENT_NAME, jobRepository)
+                .listener(enrichmentJobExecutionListener)
+                .start(bibliographicDumpImporterStep)
+                .next(externalMetaInfoBuilderStep)
+                .build();
+    }
+
+    private FlowBuilder<FlowJobBuilder> buildPerFileFlow(SimpleJobBuilder jobBuilder) {
+        if (PipelineModeEnum.FUSED == pipelineMode) {
+            log.info("the per-file work will be performed in a single pass");
+            return jobBuilder
+                    .on(ExitStatus.COMPLETED.getExitCode()).to(fusedIndexerStep);
+        }
+        return jobBuilder
+                .on(ExitStatus.COMPLETED.getExitCode()).to(fileIndexerAndCataloguerStep)
+                .on(ExitStatus.COMPLETED.getExitCode()).to(filePartialHashStep)
+                .on(ExitStatus.COMPLETED.getExitCode()).to(fileSystemItemHashStep)
+                .on(ExitStatus.COMPLETED.getExitCode()).to(parentAssociatorStep)
+                .on(ExitStatus.COMPLETED.getExitCode()).to(metaInfoBuilderStep);
+    }
+
 }
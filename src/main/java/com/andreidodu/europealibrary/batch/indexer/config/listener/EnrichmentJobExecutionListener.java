@@ -0,0 +1,36 @@
+package com.andreidodu.europealibrary.batch.indexer.config.listener;
+
+import com.andreidodu.europealibrary.service.CacheLoaderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.stereotype.Component;
+
+/**
+ * The enrichment changes categories, languages, publishers and published dates: their caches are reloaded
+ * when something has been written.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrichmentJobExecutionListener implements JobExecutionListener {
+    private final CacheLoaderService cacheLoaderService;
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        long written = jobExecution.getStepExecutions()
+                .stream()
+                .mapToLong(StepExecution::getWriteCount)
+                .sum();
+        if (written == 0) {
+            return;
+        }
+        log.info("enrichment completed, {} items written", written);
+        this.cacheLoaderService.reloadCategoriesInCache(null);
+        this.cacheLoaderService.reloadLanguagesInCache(null);
+        this.cacheLoaderService.reloadPublishersInCache(null);
+        this.cacheLoaderService.reloadPublishedDatesInCache(null);
+    }
+}
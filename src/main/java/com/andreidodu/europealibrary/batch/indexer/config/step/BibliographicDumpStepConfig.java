@@ -0,0 +1,40 @@
+package com.andreidodu.europealibrary.batch.indexer.config.step;
+
+import com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump.BibliographicDumpBulkWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump.BibliographicDumpProcessor;
+import com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump.BibliographicDumpReader;
+import com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump.BibliographicDumpStepListener;
+import com.andreidodu.europealibrary.dto.BibliographicRecordDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+
+@Configuration
+@RequiredArgsConstructor
+public class BibliographicDumpStepConfig {
+    private final JobRepository jobRepository;
+    private final BibliographicDumpReader bibliographicDumpReader;
+    private final BibliographicDumpProcessor bibliographicDumpProcessor;
+    private final BibliographicDumpBulkWriter bibliographicDumpBulkWriter;
+    private final BibliographicDumpStepListener bibliographicDumpStepListener;
+    private final HibernateTransactionManager transactionManager;
+    @Value("${com.andreidodu.europea-library.job.indexer.bibliographic-dump.batch-size}")
+    private Integer batchSize;
+
+    @Bean("bibliographicDumpImporterStep")
+    public Step bibliographicDumpImporterStep() {
+        return new StepBuilder("bibliographicDumpImporterStep", jobRepository)
+                .<String, BibliographicRecordDTO>chunk(batchSize, transactionManager)
+                .allowStartIfComplete(true)
+                .reader(bibliographicDumpReader)
+                .processor(bibliographicDumpProcessor)
+                .writer(bibliographicDumpBulkWriter)
+                .listener(bibliographicDumpStepListener)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.andreidodu.europealibrary.batch.indexer.config.step;
 
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.TokenBucketRateLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -15,6 +16,16 @@ public class CommonStepConfig {
     private Integer corePoolSize;
     @Value("${com.andreidodu.europea-library.max-pool-size}")
     private Integer maxPoolSize;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-file-hash-updater.io-threads}")
+    private Integer fileHashIoThreads;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.extraction-threads}")
+    private Integer extractionThreads;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-ext-meta-info-writer.concurrent-requests}")
+    private Integer externalConcurrentRequests;
+    @Value("${com.andreidodu.europea-library.google.books.requests-per-second}")
+    private Double googleBooksRequestsPerSecond;
+    @Value("${com.andreidodu.europea-library.google.books.burst}")
+    private Integer googleBooksBurst;
 
     @Primary
     @Bean(name = "threadPoolTaskExecutor")
@@ -39,6 +50,64 @@ public class CommonStepConfig {
         return taskExecutor;
     }
 
+    /**
+     * Dedicated to file reads of the hash step: sized for the storage device rather than for the CPU.
+     */
+    @Bean(name = "fileHashTaskExecutor")
+    public ThreadPoolTaskExecutor fileHashTaskExecutor() {
+        int poolSize = isPoolSizeValidValue(this.fileHashIoThreads) ? this.fileHashIoThreads : 2;
+        log.debug("I will use {} threads for reading the files to be hashed", poolSize);
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(poolSize);
+        taskExecutor.setMaxPoolSize(poolSize);
+        taskExecutor.setThreadNamePrefix("file-hash-io-");
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.afterPropertiesSet();
+        return taskExecutor;
+    }
+
+    /**
+     * Isolates the meta-info extraction from the chunk threads: a file hanging in a parser keeps busy one of these threads only.
+     * It is sized with some slack, because a timed out extraction holds its thread until the parser gives up.
+     */
+    @Bean(name = "metaInfoExtractionTaskExecutor")
+    public ThreadPoolTaskExecutor metaInfoExtractionTaskExecutor() {
+        int poolSize = isPoolSizeValidValue(this.extractionThreads) ? this.extractionThreads : Runtime.getRuntime().availableProcessors() * 2;
+        log.debug("I will use {} threads for extracting meta-info", poolSize);
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(poolSize);
+        taskExecutor.setMaxPoolSize(poolSize);
+        taskExecutor.setQueueCapacity(poolSize);
+        taskExecutor.setThreadNamePrefix("meta-info-extraction-");
+        taskExecutor.setDaemon(true);
+        taskExecutor.afterPropertiesSet();
+        return taskExecutor;
+    }
+
+    /**
+     * Runs the chunks of the external meta-info step: the threads spend most of their time waiting for the API, so they do not count against the CPU.
+     */
+    @Bean(name = "externalMetaInfoTaskExecutor")
+    public ThreadPoolTaskExecutor externalMetaInfoTaskExecutor() {
+        int poolSize = isPoolSizeValidValue(this.externalConcurrentRequests) ? this.externalConcurrentRequests : 1;
+        log.debug("I will use {} threads for retrieving external meta-info", poolSize);
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(poolSize);
+        taskExecutor.setMaxPoolSize(poolSize);
+        taskExecutor.setThreadNamePrefix("external-meta-info-");
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.afterPropertiesSet();
+        return taskExecutor;
+    }
+
+    /**
+     * Shared by all the requests sent to Google Books, whatever thread sends them.
+     */
+    @Bean(name = "googleBooksRateLimiter")
+    public TokenBucketRateLimiter googleBooksRateLimiter() {
+        return new TokenBucketRateLimiter(this.googleBooksRequestsPerSecond, this.googleBooksBurst);
+    }
+
     private boolean isPoolSizeValidValue(Integer poolSize) {
         return poolSize != null && poolSize > 0;
     }
@@ -63,7 +63,7 @@ public class DbStepUpdaterStepConfig {
         PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
         queryProvider.setSelectClause("SELECT id");
         queryProvider.setFromClause("FROM el_file_system_item");
-        queryProvider.setWhereClause("WHERE record_status = 1");
+        queryProvider.setWhereClause("WHERE record_status in (1, 3)");
         Map<String, Order> orderByKeys = new HashMap<>();
         orderByKeys.put("id", Order.ASCENDING);
         queryProvider.setSortKeys(orderByKeys);
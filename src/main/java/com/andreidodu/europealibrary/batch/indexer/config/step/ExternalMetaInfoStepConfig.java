@@ -1,19 +1,25 @@
 package com.andreidodu.europealibrary.batch.indexer.config.step;
 
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalMetaInfoCursor;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalMetaInfoCursorReader;
 import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalMetaInfoProcessor;
-import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoBulkWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalMetaInfoWriter;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import lombok.RequiredArgsConstructor;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.support.PostgresPagingQueryProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import javax.sql.DataSource;
 import java.util.HashMap;
@@ -22,47 +28,62 @@ import java.util.Map;
 @Configuration
 @RequiredArgsConstructor
 public class ExternalMetaInfoStepConfig {
+    private static final String CURSOR_PARAMETER = "cursorId";
     private final JobRepository jobRepository;
-    private final JdbcPagingItemReader<Long> metaInfoBuilderReader;
     private final ExternalMetaInfoProcessor processor;
-    private final MetaInfoBulkWriter metaInfoWriter;
+    private final ExternalMetaInfoWriter externalMetaInfoWriter;
+    private final ExternalMetaInfoCursor externalMetaInfoCursor;
     private final HibernateTransactionManager transactionManager;
     private final ExternalMetaInfoStepListener externalMetaInfoStepListener;
     private final DataSource dataSource;
     @Value("${com.andreidodu.europea-library.job.indexer.step-ext-meta-info-writer.batch-size}")
     private Integer batchSize;
+    @Autowired
+    @Qualifier("externalMetaInfoTaskExecutor")
+    private ThreadPoolTaskExecutor externalMetaInfoTaskExecutor;
 
     @Bean("externalMetaInfoBuilderStep")
-    public Step externalMetaInfoBuilderStep(JdbcPagingItemReader<Long> externalMetaInfoBuilderReader) {
+    public Step externalMetaInfoBuilderStep(ExternalMetaInfoCursorReader externalMetaInfoBuilderReader) {
         return new StepBuilder("externalMetaInfoBuilderStep", jobRepository)
                 .<Long, FileSystemItem>chunk(batchSize, transactionManager)
                 .allowStartIfComplete(true)
                 .reader(externalMetaInfoBuilderReader)
                 .processor(processor)
-                .writer(metaInfoWriter)
+                .writer(externalMetaInfoWriter)
                 .listener(externalMetaInfoStepListener)
+                // the requests are paced by the rate limiter of the client, the threads (concurrent-requests) only keep several of them in flight
+                .taskExecutor(externalMetaInfoTaskExecutor)
                 .build();
     }
 
 
+    /**
+     * reads the candidates after the cursor saved by the previous run, in id order
+     */
+    @StepScope
     @Bean("externalMetaInfoBuilderReader")
-    public JdbcPagingItemReader<Long> externalMetaInfoBuilderReader() {
+    public ExternalMetaInfoCursorReader externalMetaInfoBuilderReader() throws Exception {
         JdbcPagingItemReader<Long> jdbcPagingItemReader = (new JdbcPagingItemReader<>());
         jdbcPagingItemReader.setDataSource(dataSource);
         jdbcPagingItemReader.setFetchSize(batchSize);
         jdbcPagingItemReader.setRowMapper((rs, rowNum) -> rs.getObject(1, Long.class));
         jdbcPagingItemReader.setQueryProvider(getPostgresQueryProvider());
+        jdbcPagingItemReader.setParameterValues(Map.of(CURSOR_PARAMETER, externalMetaInfoCursor.load()));
         jdbcPagingItemReader.setSaveState(false);
-        return jdbcPagingItemReader;
+        jdbcPagingItemReader.afterPropertiesSet();
+        return new ExternalMetaInfoCursorReader(jdbcPagingItemReader, externalMetaInfoCursor);
     }
 
     public PostgresPagingQueryProvider getPostgresQueryProvider() {
         PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
-        queryProvider.setSelectClause("SELECT distinct fsi.id, base_path");
-        queryProvider.setFromClause("FROM el_file_system_item fsi, el_file_meta_info fmi, el_book_info bi");
-        queryProvider.setWhereClause("WHERE fsi.record_status = 1 and fsi.is_directory is false and fsi.file_meta_info_id = fmi.id and bi.file_meta_info_id=fmi.id and bi.web_retrievement_status is null and (bi.manual_lock is null or bi.manual_lock = 0) and (bi.isbn13 is not null or bi.authors is not null or bi.publisher is not null)");
+        queryProvider.setSelectClause("SELECT id");
+        // books failed by the previous runs (web_retrievement_status = 3) or not found by any source (2) are asked again after their retry date;
+        // no record_status filter: the job runs after the indexer, which has already set every item to ENABLED
+        queryProvider.setFromClause("FROM (SELECT distinct fsi.id FROM el_file_system_item fsi, el_file_meta_info fmi, el_book_info bi " +
+                "WHERE fsi.is_directory is false and fsi.file_meta_info_id = fmi.id and bi.file_meta_info_id=fmi.id and (bi.web_retrievement_status is null or (bi.web_retrievement_status = 3 and (bi.web_retrievement_retry_date is null or bi.web_retrievement_retry_date <= now())) or (bi.web_retrievement_status = 2 and bi.web_retrievement_retry_date <= now())) and (bi.manual_lock is null or bi.manual_lock = 0) and (bi.isbn13 is not null or bi.authors is not null or bi.publisher is not null)) candidates");
+        queryProvider.setWhereClause("WHERE id > :" + CURSOR_PARAMETER);
         Map<String, Order> orderByKeys = new HashMap<>();
-        orderByKeys.put("base_path", Order.ASCENDING);
+        orderByKeys.put("id", Order.ASCENDING);
         queryProvider.setSortKeys(orderByKeys);
         return queryProvider;
     }
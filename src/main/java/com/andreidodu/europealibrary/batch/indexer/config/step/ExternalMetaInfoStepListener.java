@@ -1,17 +1,45 @@
 package com.andreidodu.europealibrary.batch.indexer.config.step;
 
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalMetaInfoCursor;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalQueryCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class ExternalMetaInfoStepListener implements StepExecutionListener {
+    public static final String CONTEXT_KEY_CACHE_HIT_RATIO = "external.cache.hit-ratio";
+
+    public static final String CONTEXT_KEY_CURSOR = "external.cursor";
+
+    private final ExternalQueryCache externalQueryCache;
+    private final ExternalMetaInfoCursor externalMetaInfoCursor;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.externalQueryCache.resetStatistics();
+        this.externalQueryCache.deleteExpired();
+    }
+
     @Override
     public ExitStatus afterStep(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putDouble(CONTEXT_KEY_CACHE_HIT_RATIO, this.externalQueryCache.getHitRatio());
+        log.info("external meta-info retrieved, cache hit ratio: {}", String.format("%.2f", this.externalQueryCache.getHitRatio()));
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED && stepExecution.getFailureExceptions().isEmpty()) {
+            this.externalMetaInfoCursor.reset();
+        } else {
+            // stopped (api unavailable, job stopped): the next run goes on from here
+            long watermark = this.externalMetaInfoCursor.getWatermark();
+            this.externalMetaInfoCursor.save(watermark);
+            stepExecution.getExecutionContext().putLong(CONTEXT_KEY_CURSOR, watermark);
+            log.info("external meta-info retrieval interrupted, it will be resumed after id {}", watermark);
+        }
         stepExecution.setStatus(BatchStatus.COMPLETED);
         return ExitStatus.COMPLETED;
     }
@@ -1,10 +1,13 @@
 package com.andreidodu.europealibrary.batch.indexer.config.step;
 
+import com.andreidodu.europealibrary.batch.indexer.step.common.IdRangePartitioner;
+import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileHashStepListener;
 import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileSystemItemHashBulkWriter;
 import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileSystemItemHashProcessor;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import lombok.RequiredArgsConstructor;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
@@ -15,6 +18,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -25,13 +29,18 @@ import java.util.Map;
 @Configuration
 @RequiredArgsConstructor
 public class FileHashStepConfig {
+    private static final String FROM_CLAUSE = "FROM el_file_system_item";
     private final JobRepository jobRepository;
     private final FileSystemItemHashProcessor processor;
     private final FileSystemItemHashBulkWriter writer;
+    private final FileHashStepListener fileHashStepListener;
     private final HibernateTransactionManager transactionManager;
     private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
     @Value("${com.andreidodu.europea-library.job.indexer.step-file-hash-updater.batch-size}")
     private Integer batchSize;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-file-hash-updater.partitions}")
+    private Integer partitions;
     @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
     private String ebookDirectory;
     @Autowired
@@ -39,37 +48,59 @@ public class FileHashStepConfig {
     private ThreadPoolTaskExecutor threadPoolTaskExecutor;
 
     @Bean("fileSystemItemHashStep")
-    public Step fileSystemItemHashStep(JdbcPagingItemReader<Long> hashStorerReader) {
+    public Step fileSystemItemHashStep(Step fileSystemItemHashWorkerStep) {
         return new StepBuilder("fileSystemItemHashStep", jobRepository)
+                .partitioner("fileSystemItemHashWorkerStep", new IdRangePartitioner(jdbcTemplate, FROM_CLAUSE + " " + getWhereClause()))
+                .step(fileSystemItemHashWorkerStep)
+                .gridSize(partitions > 0 ? partitions : threadPoolTaskExecutor.getCorePoolSize())
+                .taskExecutor(threadPoolTaskExecutor)
+                .allowStartIfComplete(true)
+                .listener(fileHashStepListener)
+                .build();
+    }
+
+    @Bean("fileSystemItemHashWorkerStep")
+    public Step fileSystemItemHashWorkerStep(JdbcPagingItemReader<Long> hashStorerReader) {
+        return new StepBuilder("fileSystemItemHashWorkerStep", jobRepository)
                 .<Long, FileSystemItem>chunk(batchSize, transactionManager)
                 .allowStartIfComplete(true)
-                .taskExecutor(threadPoolTaskExecutor)
                 .reader(hashStorerReader)
                 .processor(processor)
                 .writer(writer)
                 .build();
     }
 
+    @StepScope
     @Bean("hashStorerReader")
-    public JdbcPagingItemReader<Long> hashStorerReader() {
+    public JdbcPagingItemReader<Long> hashStorerReader(@Value("#{stepExecutionContext['" + IdRangePartitioner.CONTEXT_KEY_MIN_ID + "']}") Long minId,
+                                                       @Value("#{stepExecutionContext['" + IdRangePartitioner.CONTEXT_KEY_MAX_ID + "']}") Long maxId) {
         JdbcPagingItemReader<Long> jdbcPagingItemReader = (new JdbcPagingItemReader<>());
         jdbcPagingItemReader.setDataSource(dataSource);
         jdbcPagingItemReader.setFetchSize(batchSize);
+        jdbcPagingItemReader.setPageSize(batchSize);
         jdbcPagingItemReader.setRowMapper((rs, rowNum) -> rs.getObject(1, Long.class));
         jdbcPagingItemReader.setQueryProvider(getPostgresHashQueryProvider());
-        jdbcPagingItemReader.setSaveState(false);
+        jdbcPagingItemReader.setParameterValues(Map.of(IdRangePartitioner.CONTEXT_KEY_MIN_ID, minId, IdRangePartitioner.CONTEXT_KEY_MAX_ID, maxId));
         return jdbcPagingItemReader;
     }
 
     public PostgresPagingQueryProvider getPostgresHashQueryProvider() {
         PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
         queryProvider.setSelectClause("SELECT id");
-        queryProvider.setFromClause("FROM el_file_system_item");
-        queryProvider.setWhereClause("WHERE record_status = 1 and base_path like '" + ebookDirectory + "%' and sha256 is null and (is_directory is null or is_directory = false)");
+        queryProvider.setFromClause(FROM_CLAUSE);
+        queryProvider.setWhereClause(getWhereClause() + " and id between :" + IdRangePartitioner.CONTEXT_KEY_MIN_ID + " and :" + IdRangePartitioner.CONTEXT_KEY_MAX_ID);
         Map<String, Order> orderByKeys = new HashMap<>();
         orderByKeys.put("id", Order.ASCENDING);
         queryProvider.setSortKeys(orderByKeys);
         return queryProvider;
     }
 
+    // the rows of the files vanished in this run (record_status = 2) count too: a moved or renamed file is hashed to find its meta-info again
+    private String getWhereClause() {
+        return "WHERE record_status in (1, 3) and base_path like '" + ebookDirectory + "%' and sha256 is null and (is_directory is null or is_directory = false)" +
+                " and ((size, partial_hash) in (select s.size, s.partial_hash from el_file_system_item s where s.partial_hash is not null group by s.size, s.partial_hash having count(*) > 1)" +
+                // a file hashed before the fingerprints were stored has no partial hash, only its sha256
+                " or size in (select s.size from el_file_system_item s where s.sha256 is not null and (s.is_directory is null or s.is_directory = false)))";
+    }
+
 }
@@ -3,6 +3,7 @@ package com.andreidodu.europealibrary.batch.indexer.config.step;
 import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerBulkWriter;
 import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerProcessor;
 import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerReader;
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerStepListener;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import lombok.RequiredArgsConstructor;
 import org.springframework.batch.core.Step;
@@ -22,6 +23,7 @@ public class FileIndexerStepConfig {
     private final FileIndexerProcessor processor;
     private final FileIndexerReader fileIndexerReader;
     private final FileIndexerBulkWriter writer;
+    private final FileIndexerStepListener fileIndexerStepListener;
     private final JobRepository jobRepository;
     private final HibernateTransactionManager transactionManager;
     private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
@@ -37,6 +39,7 @@ public class FileIndexerStepConfig {
                 .reader(fileIndexerReader)
                 .processor(processor)
                 .writer(writer)
+                .listener(fileIndexerStepListener)
                 .build();
     }
 }
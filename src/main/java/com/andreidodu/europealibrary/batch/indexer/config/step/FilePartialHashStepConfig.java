@@ -0,0 +1,87 @@
+package com.andreidodu.europealibrary.batch.indexer.config.step;
+
+import com.andreidodu.europealibrary.batch.indexer.step.filepartialhash.FilePartialHashBulkWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.filepartialhash.FilePartialHashProcessor;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.support.PostgresPagingQueryProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fingerprints (first and last 64 KB) only the files whose size is shared with at least another file:
+ * a file with a unique size can not have duplicates, so it is never read.
+ * The other file may be one that vanished in this run (record_status = 2): it may be the same file, moved or renamed.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class FilePartialHashStepConfig {
+    private final JobRepository jobRepository;
+    private final FilePartialHashProcessor processor;
+    private final FilePartialHashBulkWriter writer;
+    private final HibernateTransactionManager transactionManager;
+    private final DataSource dataSource;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-file-hash-updater.batch-size}")
+    private Integer batchSize;
+    @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
+    private String ebookDirectory;
+    @Autowired
+    @Qualifier("threadPoolTaskExecutor")
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    @Bean("filePartialHashStep")
+    public Step filePartialHashStep(JdbcPagingItemReader<FileSystemItem> partialHashReader) {
+        return new StepBuilder("filePartialHashStep", jobRepository)
+                .<FileSystemItem, FileSystemItem>chunk(batchSize, transactionManager)
+                .allowStartIfComplete(true)
+                .taskExecutor(threadPoolTaskExecutor)
+                .reader(partialHashReader)
+                .processor(processor)
+                .writer(writer)
+                .build();
+    }
+
+    @Bean("partialHashReader")
+    public JdbcPagingItemReader<FileSystemItem> partialHashReader() {
+        JdbcPagingItemReader<FileSystemItem> jdbcPagingItemReader = (new JdbcPagingItemReader<>());
+        jdbcPagingItemReader.setDataSource(dataSource);
+        jdbcPagingItemReader.setFetchSize(batchSize);
+        jdbcPagingItemReader.setRowMapper((rs, rowNum) -> {
+            FileSystemItem fileSystemItem = new FileSystemItem();
+            fileSystemItem.setId(rs.getLong(1));
+            fileSystemItem.setBasePath(rs.getString(2));
+            fileSystemItem.setName(rs.getString(3));
+            return fileSystemItem;
+        });
+        jdbcPagingItemReader.setQueryProvider(getPostgresPartialHashQueryProvider());
+        jdbcPagingItemReader.setSaveState(false);
+        return jdbcPagingItemReader;
+    }
+
+    public PostgresPagingQueryProvider getPostgresPartialHashQueryProvider() {
+        PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
+        queryProvider.setSelectClause("SELECT id, base_path, name");
+        queryProvider.setFromClause("FROM el_file_system_item");
+        queryProvider.setWhereClause("WHERE record_status in (1, 3) and base_path like '" + ebookDirectory + "%' and partial_hash is null and (is_directory is null or is_directory = false)" +
+                " and size in (select s.size from el_file_system_item s where (s.is_directory is null or s.is_directory = false) group by s.size having count(*) > 1)");
+        Map<String, Order> orderByKeys = new HashMap<>();
+        orderByKeys.put("id", Order.ASCENDING);
+        queryProvider.setSortKeys(orderByKeys);
+        return queryProvider;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.andreidodu.europealibrary.batch.indexer.config.step;
+
+import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileHashStepListener;
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerReader;
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerStepListener;
+import com.andreidodu.europealibrary.batch.indexer.step.fused.FusedIndexerItem;
+import com.andreidodu.europealibrary.batch.indexer.step.fused.FusedIndexerProcessor;
+import com.andreidodu.europealibrary.batch.indexer.step.fused.FusedIndexerStepListener;
+import com.andreidodu.europealibrary.batch.indexer.step.fused.FusedIndexerWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoStepListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.File;
+
+@Configuration
+@RequiredArgsConstructor
+public class FusedIndexerStepConfig {
+    private final FusedIndexerProcessor processor;
+    private final FileIndexerReader fileIndexerReader;
+    private final FusedIndexerWriter writer;
+    private final FileIndexerStepListener fileIndexerStepListener;
+    private final FileHashStepListener fileHashStepListener;
+    private final FusedIndexerStepListener fusedIndexerStepListener;
+    private final MetaInfoStepListener metaInfoStepListener;
+    private final JobRepository jobRepository;
+    private final HibernateTransactionManager transactionManager;
+    private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.batch-size}")
+    private Integer stepIndexerBatchSize;
+
+    @Bean("fusedIndexerStep")
+    public Step fusedIndexerStep() {
+        return new StepBuilder("fusedIndexerStep", jobRepository)
+                .<File, FusedIndexerItem>chunk(stepIndexerBatchSize, transactionManager)
+                .allowStartIfComplete(true)
+                .taskExecutor(threadPoolTaskExecutor)
+                .reader(fileIndexerReader)
+                .processor(processor)
+                .writer(writer)
+                .listener(fileIndexerStepListener)
+                .listener(fileHashStepListener)
+                .listener(fusedIndexerStepListener)
+                .listener(metaInfoStepListener)
+                .build();
+    }
+}
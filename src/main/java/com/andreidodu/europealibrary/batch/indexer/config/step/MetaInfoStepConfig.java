@@ -1,10 +1,13 @@
 package com.andreidodu.europealibrary.batch.indexer.config.step;
 
-import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoBulkWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.common.IdRangePartitioner;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoChunkWriter;
 import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoProcessor;
-import com.andreidodu.europealibrary.model.FileSystemItem;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoStepListener;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
@@ -15,6 +18,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -25,45 +29,67 @@ import java.util.Map;
 @Configuration
 @RequiredArgsConstructor
 public class MetaInfoStepConfig {
+    private static final String FROM_CLAUSE = "FROM el_file_system_item";
+    // new files, plus the files whose extraction has been deferred by a previous run
+    private static final String WHERE_CLAUSE = "WHERE (is_directory is null or is_directory = false) and " +
+            "((record_status = 1 and file_meta_info_id is null) or (record_status in (1, 3) and file_meta_info_id in (select bi.file_meta_info_id from el_book_info bi where bi.file_extraction_status = 4)))";
     private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
     private final MetaInfoProcessor processor;
-    private final MetaInfoBulkWriter writer;
+    private final MetaInfoChunkWriter writer;
+    private final MetaInfoStepListener metaInfoStepListener;
     private final HibernateTransactionManager transactionManager;
     private final JobRepository jobRepository;
     @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.batch-size}")
     private Integer batchSize;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.partitions}")
+    private Integer partitions;
     @Autowired
     @Qualifier("threadPoolTaskExecutor")
     private ThreadPoolTaskExecutor threadPoolTaskExecutor;
 
     @Bean("metaInfoBuilderStep")
-    public Step metaInfoBuilderStep(JdbcPagingItemReader<Long> metaInfoBuilderReader) {
+    public Step metaInfoBuilderStep(Step metaInfoBuilderWorkerStep) {
         return new StepBuilder("metaInfoBuilderStep", jobRepository)
-                .<Long, FileSystemItem>chunk(batchSize, transactionManager)
-                .allowStartIfComplete(true)
+                .partitioner("metaInfoBuilderWorkerStep", new IdRangePartitioner(jdbcTemplate, FROM_CLAUSE + " " + WHERE_CLAUSE))
+                .step(metaInfoBuilderWorkerStep)
+                .gridSize(partitions > 0 ? partitions : threadPoolTaskExecutor.getCorePoolSize())
                 .taskExecutor(threadPoolTaskExecutor)
+                .listener(metaInfoStepListener)
+                .allowStartIfComplete(true)
+                .build();
+    }
+
+    @Bean("metaInfoBuilderWorkerStep")
+    public Step metaInfoBuilderWorkerStep(JdbcPagingItemReader<Long> metaInfoBuilderReader) {
+        return new StepBuilder("metaInfoBuilderWorkerStep", jobRepository)
+                .<Long, ExtractedMetaInfoDTO>chunk(batchSize, transactionManager)
+                .allowStartIfComplete(true)
                 .reader(metaInfoBuilderReader)
                 .processor(processor)
                 .writer(writer)
                 .build();
     }
 
+    @StepScope
     @Bean("metaInfoBuilderReader")
-    public JdbcPagingItemReader<Long> metaInfoBuilderReader() {
+    public JdbcPagingItemReader<Long> metaInfoBuilderReader(@Value("#{stepExecutionContext['" + IdRangePartitioner.CONTEXT_KEY_MIN_ID + "']}") Long minId,
+                                                            @Value("#{stepExecutionContext['" + IdRangePartitioner.CONTEXT_KEY_MAX_ID + "']}") Long maxId) {
         JdbcPagingItemReader<Long> jdbcPagingItemReader = (new JdbcPagingItemReader<>());
         jdbcPagingItemReader.setDataSource(dataSource);
         jdbcPagingItemReader.setFetchSize(batchSize);
+        jdbcPagingItemReader.setPageSize(batchSize);
         jdbcPagingItemReader.setRowMapper((rs, rowNum) -> rs.getObject(1, Long.class));
         jdbcPagingItemReader.setQueryProvider(getPostgresQueryProvider());
-        jdbcPagingItemReader.setSaveState(false);
+        jdbcPagingItemReader.setParameterValues(Map.of(IdRangePartitioner.CONTEXT_KEY_MIN_ID, minId, IdRangePartitioner.CONTEXT_KEY_MAX_ID, maxId));
         return jdbcPagingItemReader;
     }
 
     public PostgresPagingQueryProvider getPostgresQueryProvider() {
         PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
-        queryProvider.setSelectClause("SELECT distinct id");
-        queryProvider.setFromClause("FROM el_file_system_item");
-        queryProvider.setWhereClause("WHERE record_status = 1 and (is_directory is null or is_directory = false) and file_meta_info_id is null");
+        queryProvider.setSelectClause("SELECT id");
+        queryProvider.setFromClause(FROM_CLAUSE);
+        queryProvider.setWhereClause(WHERE_CLAUSE + " and id between :" + IdRangePartitioner.CONTEXT_KEY_MIN_ID + " and :" + IdRangePartitioner.CONTEXT_KEY_MAX_ID);
         Map<String, Order> orderByKeys = new HashMap<>();
         orderByKeys.put("id", Order.ASCENDING);
         queryProvider.setSortKeys(orderByKeys);
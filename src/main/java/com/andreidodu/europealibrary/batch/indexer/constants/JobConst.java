@@ -2,6 +2,10 @@ package com.andreidodu.europealibrary.batch.indexer.constants;
 
 public interface JobConst {
     String JOB_INDEXER_NAME = "indexerJob";
+    String JOB_ENRICHMENT_NAME = "enrichmentJob";
 
     String JOB_VARIABLE_FEATURED_FMI_ID = "featuredFileMetaInfoId";
+
+    String JOB_PARAMETER_DIRECTORIES = "directories";
+    String JOB_PARAMETER_DIRECTORIES_SEPARATOR = "\n";
 }
@@ -4,7 +4,11 @@ import lombok.Getter;
 
 @Getter
 public enum ApiStatusEnum {
-    SUCCESS(1), SUCCESS_EMPTY_RESPONSE(2), FATAL_ERROR(3), ERROR(4);
+    SUCCESS(1), SUCCESS_EMPTY_RESPONSE(2), FATAL_ERROR(3), ERROR(4),
+    /**
+     * the source does not know the book: the next source is asked
+     */
+    NOT_FOUND(5);
     private final int code;
 
     ApiStatusEnum(int code) {
@@ -0,0 +1,12 @@
+package com.andreidodu.europealibrary.batch.indexer.enums;
+
+public enum PipelineModeEnum {
+    /**
+     * every per-file task (indexing, hashing, parent association, meta-info) is performed by its own step
+     */
+    STAGED,
+    /**
+     * indexing, hashing, parent association and local meta-info are performed in a single pass over the walked files
+     */
+    FUSED
+}
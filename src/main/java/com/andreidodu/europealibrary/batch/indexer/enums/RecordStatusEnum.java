@@ -4,7 +4,7 @@ import lombok.Getter;
 
 @Getter
 public enum RecordStatusEnum {
-    JUST_UPDATED(1), ENABLED(2);
+    JUST_UPDATED(1), ENABLED(2), UNCHANGED(3);
     private final int status;
 
     RecordStatusEnum(int status) {
@@ -1,14 +1,45 @@
 package com.andreidodu.europealibrary.batch.indexer.enums;
 
+import com.andreidodu.europealibrary.model.BookInfo;
 import lombok.Getter;
 
+import java.time.LocalDateTime;
+
 @Getter
 public enum WebRetrievementStatusEnum {
-    SUCCESS(1), SUCCESS_EMPTY(2), FAILED(3);
+    SUCCESS(1),
+    /**
+     * no source knows the book: it is asked again after its retry date, if it has one
+     */
+    SUCCESS_EMPTY(2),
+    /**
+     * the source failed: it is asked again by the next run, or after its retry date
+     */
+    FAILED(3);
     private final int status;
 
     WebRetrievementStatusEnum(int status) {
         this.status = status;
     }
 
+    /**
+     * same rule of the candidates query of the external meta-info step
+     *
+     * @return whether the sources have to be asked for the book
+     */
+    public static boolean isRetrievementDue(BookInfo bookInfo) {
+        Integer status = bookInfo.getWebRetrievementStatus();
+        if (status == null) {
+            return true;
+        }
+        LocalDateTime retryDate = bookInfo.getWebRetrievementRetryDate();
+        if (status == FAILED.getStatus()) {
+            return retryDate == null || !retryDate.isAfter(LocalDateTime.now());
+        }
+        if (status == SUCCESS_EMPTY.getStatus()) {
+            return retryDate != null && !retryDate.isAfter(LocalDateTime.now());
+        }
+        return false;
+    }
+
 }
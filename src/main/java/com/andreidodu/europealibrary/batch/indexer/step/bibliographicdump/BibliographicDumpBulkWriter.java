@@ -0,0 +1,64 @@
+package com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.JdbcBulkExecutor;
+import com.andreidodu.europealibrary.dto.BibliographicRecordDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upserts the editions and the authors of the chunk. The authors of an edition are resolved once the whole dump
+ * is imported, see {@link BibliographicDumpStepListener}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BibliographicDumpBulkWriter implements ItemWriter<BibliographicRecordDTO> {
+    private static final String INSERT_RECORDS_PREFIX = "insert into el_bibliographic_record (source_key, isbn13, isbn10, title_key, title, author_keys, authors, publisher, published_date, number_of_pages, language, description, subjects) values ";
+    private static final String INSERT_RECORDS_ROW = "(?, ?, ?, ?, ?, ?, null, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RECORDS_SUFFIX = " on conflict (source_key) do update set isbn13 = excluded.isbn13, isbn10 = excluded.isbn10, title_key = excluded.title_key, title = excluded.title, " +
+            "author_keys = excluded.author_keys, authors = null, publisher = excluded.publisher, published_date = excluded.published_date, number_of_pages = excluded.number_of_pages, " +
+            "language = excluded.language, description = excluded.description, subjects = excluded.subjects, update_date = now()";
+    private static final String INSERT_AUTHORS_PREFIX = "insert into el_bibliographic_author (source_key, name) values ";
+    private static final String INSERT_AUTHORS_ROW = "(?, ?)";
+    private static final String INSERT_AUTHORS_SUFFIX = " on conflict (source_key) do update set name = excluded.name";
+
+    private final JdbcBulkExecutor jdbcBulkExecutor;
+
+    @Override
+    public void write(Chunk<? extends BibliographicRecordDTO> chunk) throws Exception {
+        Map<String, BibliographicRecordDTO> recordMap = new LinkedHashMap<>();
+        Map<String, BibliographicRecordDTO> authorMap = new LinkedHashMap<>();
+        // a row cannot be upserted twice by the same statement
+        chunk.getItems().forEach(item -> (item.isAuthor() ? authorMap : recordMap).put(item.getSourceKey(), item));
+        this.jdbcBulkExecutor.execute("bibliographic-record-upsert", INSERT_RECORDS_PREFIX, INSERT_RECORDS_ROW, INSERT_RECORDS_SUFFIX, 12, new ArrayList<>(recordMap.values()),
+                (preparedStatement, index, record) -> {
+                    preparedStatement.setString(index, record.getSourceKey());
+                    preparedStatement.setString(index + 1, record.getIsbn13());
+                    preparedStatement.setString(index + 2, record.getIsbn10());
+                    preparedStatement.setString(index + 3, record.getTitleKey());
+                    preparedStatement.setString(index + 4, record.getTitle());
+                    preparedStatement.setString(index + 5, record.getAuthorKeys());
+                    preparedStatement.setString(index + 6, record.getPublisher());
+                    preparedStatement.setString(index + 7, record.getPublishedDate());
+                    preparedStatement.setObject(index + 8, record.getNumberOfPages(), Types.INTEGER);
+                    preparedStatement.setString(index + 9, record.getLanguage());
+                    preparedStatement.setString(index + 10, record.getDescription());
+                    preparedStatement.setString(index + 11, record.getSubjects());
+                });
+        this.jdbcBulkExecutor.execute("bibliographic-author-upsert", INSERT_AUTHORS_PREFIX, INSERT_AUTHORS_ROW, INSERT_AUTHORS_SUFFIX, 2, new ArrayList<>(authorMap.values()),
+                (preparedStatement, index, author) -> {
+                    preparedStatement.setString(index, author.getSourceKey());
+                    preparedStatement.setString(index + 1, author.getAuthors());
+                });
+        log.debug("bibliographic dump: {} editions and {} authors written", recordMap.size(), authorMap.size());
+    }
+}
@@ -0,0 +1,187 @@
+package com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump;
+
+import com.andreidodu.europealibrary.constants.DataPropertiesConst;
+import com.andreidodu.europealibrary.dto.BibliographicRecordDTO;
+import com.andreidodu.europealibrary.util.IsbnUtil;
+import com.andreidodu.europealibrary.util.StringUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses a line of an Open Library dump: either the tab separated form (type, key, revision, last modified, json)
+ * or the json record alone. Editions and authors are kept, the other records are filtered.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BibliographicDumpProcessor implements ItemProcessor<String, BibliographicRecordDTO> {
+    public static final int TITLE_KEY_MAX_LENGTH = 200;
+    private static final int SOURCE_KEY_MAX_LENGTH = 100;
+    private static final int AUTHOR_KEYS_MAX_LENGTH = 1000;
+    private static final int AUTHOR_NAME_MAX_LENGTH = 200;
+    private static final int SUBJECTS_MAX_LENGTH = 1000;
+    private static final String TYPE_EDITION = "/type/edition";
+    private static final String TYPE_AUTHOR = "/type/author";
+    private static final String LANGUAGES_PREFIX = "/languages/";
+    private static final String COLUMN_SEPARATOR = "\t";
+    private static final int JSON_COLUMN = 4;
+    // Open Library uses the three letters (MARC) codes, the books and Google Books the two letters ones
+    private static final Map<String, String> ISO3_TO_ISO2_LANGUAGE_MAP = buildLanguageMap();
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public BibliographicRecordDTO process(String line) {
+        Optional<JsonNode> json = parse(line);
+        if (json.isEmpty()) {
+            return null;
+        }
+        String type = json.get().path("type").path("key").asText(null);
+        if (TYPE_EDITION.equals(type)) {
+            return toEdition(json.get());
+        }
+        if (TYPE_AUTHOR.equals(type)) {
+            return toAuthor(json.get());
+        }
+        return null;
+    }
+
+    private Optional<JsonNode> parse(String line) {
+        if (StringUtil.isEmpty(line)) {
+            return Optional.empty();
+        }
+        String json = line;
+        if (!line.startsWith("{")) {
+            String[] columns = line.split(COLUMN_SEPARATOR, JSON_COLUMN + 1);
+            if (columns.length <= JSON_COLUMN) {
+                return Optional.empty();
+            }
+            json = columns[JSON_COLUMN];
+        }
+        try {
+            return Optional.of(this.objectMapper.readTree(json));
+        } catch (JsonProcessingException e) {
+            log.debug("invalid bibliographic dump line: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static BibliographicRecordDTO toEdition(JsonNode json) {
+        String title = StringUtil.cleanAndTrimToNullSubstring(json.path("title").asText(null), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH);
+        String isbn13 = first(json.path("isbn_13"), IsbnUtil::toIsbn13);
+        String isbn10 = first(json.path("isbn_10"), IsbnUtil::toIsbn10);
+        if (isbn13 == null && isbn10 != null) {
+            isbn13 = IsbnUtil.toIsbn13(isbn10);
+        }
+        if (isbn13 == null && title == null) {
+            return null;
+        }
+        BibliographicRecordDTO record = new BibliographicRecordDTO();
+        record.setSourceKey(StringUtil.substring(json.path("key").asText(null), SOURCE_KEY_MAX_LENGTH));
+        record.setIsbn13(isbn13);
+        record.setIsbn10(isbn10);
+        record.setTitle(title);
+        record.setTitleKey(StringUtil.toSearchKey(title, TITLE_KEY_MAX_LENGTH));
+        record.setAuthorKeys(StringUtil.substring(join(json.path("authors"), author -> author.path("key").asText(null)), AUTHOR_KEYS_MAX_LENGTH));
+        record.setPublisher(StringUtil.cleanAndTrimToNullSubstring(first(json.path("publishers"), Function.identity()), DataPropertiesConst.BOOK_INFO_PUBLISHER_MAX_LENGTH));
+        record.setPublishedDate(StringUtil.cleanAndTrimToNullSubstring(json.path("publish_date").asText(null), DataPropertiesConst.BOOK_INFO_PUBLISHED_DATE_MAX_LENGTH));
+        record.setNumberOfPages(json.path("number_of_pages").canConvertToInt() ? json.path("number_of_pages").asInt() : null);
+        record.setLanguage(toLanguage(json.path("languages")));
+        record.setDescription(StringUtil.cleanAndTrimToNullSubstring(toText(json.path("description")), DataPropertiesConst.FILE_META_INFO_DESCRIPTION_MAX_LENGTH));
+        record.setSubjects(StringUtil.cleanAndTrimToNullSubstring(join(json.path("subjects"), JsonNode::asText), SUBJECTS_MAX_LENGTH));
+        return record.getSourceKey() == null ? null : record;
+    }
+
+    private static BibliographicRecordDTO toAuthor(JsonNode json) {
+        String name = StringUtil.cleanAndTrimToNullSubstring(json.path("name").asText(null), AUTHOR_NAME_MAX_LENGTH);
+        String key = StringUtil.substring(json.path("key").asText(null), SOURCE_KEY_MAX_LENGTH);
+        if (name == null || key == null) {
+            return null;
+        }
+        BibliographicRecordDTO author = new BibliographicRecordDTO();
+        author.setAuthor(true);
+        author.setSourceKey(key);
+        author.setAuthors(name);
+        return author;
+    }
+
+    private static String first(JsonNode array, Function<String, String> mapper) {
+        return StreamSupport.stream(array.spliterator(), false)
+                .map(JsonNode::asText)
+                .map(mapper)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String join(JsonNode array, Function<JsonNode, String> mapper) {
+        String joined = StreamSupport.stream(array.spliterator(), false)
+                .map(mapper)
+                .map(StringUtil::cleanAndTrimToNull)
+                .filter(Objects::nonNull)
+                // the separator of the lists stored in the index
+                .map(item -> item.replace(",", " "))
+                .collect(Collectors.joining(","));
+        return joined.isEmpty() ? null : joined;
+    }
+
+    /**
+     * the description is either a string or a typed text ({"type": "/type/text", "value": "..."})
+     */
+    private static String toText(JsonNode node) {
+        if (node.isTextual()) {
+            return node.asText();
+        }
+        return node.path("value").asText(null);
+    }
+
+    private static String toLanguage(JsonNode languages) {
+        String key = StreamSupport.stream(languages.spliterator(), false)
+                .map(language -> language.path("key").asText(""))
+                .filter(language -> language.startsWith(LANGUAGES_PREFIX))
+                .map(language -> language.substring(LANGUAGES_PREFIX.length()))
+                .findFirst()
+                .orElse(null);
+        if (key == null) {
+            return null;
+        }
+        return StringUtil.substring(ISO3_TO_ISO2_LANGUAGE_MAP.getOrDefault(key, key), DataPropertiesConst.BOOK_INFO_LANGUAGE_MAX_LENGTH);
+    }
+
+    private static Map<String, String> buildLanguageMap() {
+        Map<String, String> languageMap = Arrays.stream(Locale.getISOLanguages())
+                .map(Locale::new)
+                .collect(Collectors.toMap(BibliographicDumpProcessor::toIso3Language, Locale::getLanguage, (first, second) -> first, HashMap::new));
+        // the bibliographic codes differing from the terminology ones returned by Locale
+        languageMap.putAll(Map.ofEntries(Map.entry("alb", "sq"), Map.entry("arm", "hy"), Map.entry("baq", "eu"), Map.entry("bur", "my"),
+                Map.entry("chi", "zh"), Map.entry("cze", "cs"), Map.entry("dut", "nl"), Map.entry("fre", "fr"), Map.entry("geo", "ka"),
+                Map.entry("ger", "de"), Map.entry("gre", "el"), Map.entry("ice", "is"), Map.entry("mac", "mk"), Map.entry("mao", "mi"),
+                Map.entry("may", "ms"), Map.entry("per", "fa"), Map.entry("rum", "ro"), Map.entry("slo", "sk"), Map.entry("tib", "bo"),
+                Map.entry("wel", "cy")));
+        return languageMap;
+    }
+
+    private static String toIso3Language(Locale locale) {
+        try {
+            return locale.getISO3Language();
+        } catch (MissingResourceException e) {
+            return locale.getLanguage();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.JobCursorStore;
+import com.andreidodu.europealibrary.util.StringUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the lines of the bibliographic dump, plain or gzipped.
+ * The dump is read only when it changed since its last complete import (its modification time is kept in el_job_cursor).
+ */
+@Slf4j
+@Component
+@StepScope
+@RequiredArgsConstructor
+public class BibliographicDumpReader implements ItemStreamReader<String> {
+    public static final String CURSOR_NAME = "bibliographic-dump";
+    public static final String CONTEXT_KEY_DUMP_LAST_MODIFIED = "bibliographic-dump.last-modified";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final JobCursorStore jobCursorStore;
+    @Value("${com.andreidodu.europea-library.job.indexer.bibliographic-dump.file}")
+    private String dumpFile;
+
+    private BufferedReader bufferedReader;
+
+    @Override
+    public String read() throws IOException {
+        if (this.bufferedReader == null) {
+            return null;
+        }
+        return this.bufferedReader.readLine();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (StringUtil.isEmpty(this.dumpFile)) {
+            log.debug("no bibliographic dump configured");
+            return;
+        }
+        Path path = Path.of(this.dumpFile);
+        if (!Files.isRegularFile(path)) {
+            log.warn("bibliographic dump not found: {}", path);
+            return;
+        }
+        try {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            if (this.jobCursorStore.find(CURSOR_NAME).filter(imported -> imported == lastModified).isPresent()) {
+                log.info("bibliographic dump already imported: {}", path);
+                return;
+            }
+            executionContext.putLong(CONTEXT_KEY_DUMP_LAST_MODIFIED, lastModified);
+            InputStream inputStream = Files.newInputStream(path);
+            if (path.getFileName().toString().endsWith(GZIP_EXTENSION)) {
+                inputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+            }
+            this.bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            log.info("importing the bibliographic dump: {}", path);
+        } catch (IOException e) {
+            throw new ItemStreamException("unable to open the bibliographic dump " + path, e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (this.bufferedReader == null) {
+            return;
+        }
+        try {
+            this.bufferedReader.close();
+        } catch (IOException e) {
+            log.debug("unable to close the bibliographic dump: {}", e.getMessage());
+        }
+        this.bufferedReader = null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.JobCursorStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Once the dump is imported the author keys of the editions are resolved to the author names (the dump lists
+ * editions and authors in any order), and the dump is recorded as imported.
+ * A failed import does not stop the job: the books are then enriched by the other sources.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BibliographicDumpStepListener implements StepExecutionListener {
+    private static final String RESOLVE_AUTHORS_QUERY = "update el_bibliographic_record r set authors = left(resolved.names, 500) " +
+            "from (select record.source_key, string_agg(author.name, ',' order by author_key.position) as names " +
+            "from el_bibliographic_record record " +
+            "cross join lateral unnest(string_to_array(record.author_keys, ',')) with ordinality as author_key(source_key, position) " +
+            "join el_bibliographic_author author on author.source_key = author_key.source_key " +
+            "where record.authors is null and record.author_keys is not null " +
+            "group by record.source_key) resolved " +
+            "where r.source_key = resolved.source_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCursorStore jobCursorStore;
+    private final BibliographicIndex bibliographicIndex;
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        boolean isImported = stepExecution.getExecutionContext().containsKey(BibliographicDumpReader.CONTEXT_KEY_DUMP_LAST_MODIFIED);
+        if (isImported && stepExecution.getStatus() == BatchStatus.COMPLETED && stepExecution.getFailureExceptions().isEmpty()) {
+            int resolved = this.jdbcTemplate.update(RESOLVE_AUTHORS_QUERY);
+            this.jobCursorStore.save(BibliographicDumpReader.CURSOR_NAME, stepExecution.getExecutionContext().getLong(BibliographicDumpReader.CONTEXT_KEY_DUMP_LAST_MODIFIED));
+            log.info("bibliographic dump imported: {} entries written, authors resolved for {} editions", stepExecution.getWriteCount(), resolved);
+        } else if (isImported) {
+            log.warn("bibliographic dump partially imported, it will be imported again by the next run");
+        }
+        this.bibliographicIndex.invalidate();
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        return ExitStatus.COMPLETED;
+    }
+}
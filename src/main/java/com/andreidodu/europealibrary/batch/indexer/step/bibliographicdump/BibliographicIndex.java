@@ -0,0 +1,72 @@
+package com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump;
+
+import com.andreidodu.europealibrary.dto.BibliographicRecordDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lookups in the imported bibliographic dump, by ISBN-13 and by normalized title (both indexed).
+ */
+@Component
+@RequiredArgsConstructor
+public class BibliographicIndex {
+    private static final String COLUMNS = "source_key, isbn13, isbn10, title_key, title, author_keys, authors, publisher, published_date, number_of_pages, language, description, subjects";
+    private static final String SELECT_BY_ISBN13_QUERY = "select " + COLUMNS + " from el_bibliographic_record where isbn13 = ? limit 1";
+    private static final String SELECT_BY_TITLE_KEY_QUERY = "select " + COLUMNS + " from el_bibliographic_record where title_key = ? limit ?";
+    private static final String EXISTS_QUERY = "select exists (select 1 from el_bibliographic_record)";
+    private static final int MAX_TITLE_MATCHES = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean available;
+
+    private static final RowMapper<BibliographicRecordDTO> ROW_MAPPER = (rs, rowNum) -> {
+        BibliographicRecordDTO record = new BibliographicRecordDTO();
+        record.setSourceKey(rs.getString(1));
+        record.setIsbn13(rs.getString(2));
+        record.setIsbn10(rs.getString(3));
+        record.setTitleKey(rs.getString(4));
+        record.setTitle(rs.getString(5));
+        record.setAuthorKeys(rs.getString(6));
+        record.setAuthors(rs.getString(7));
+        record.setPublisher(rs.getString(8));
+        record.setPublishedDate(rs.getString(9));
+        record.setNumberOfPages(rs.getObject(10, Integer.class));
+        record.setLanguage(rs.getString(11));
+        record.setDescription(rs.getString(12));
+        record.setSubjects(rs.getString(13));
+        return record;
+    };
+
+    /**
+     * @return whether a dump has been imported
+     */
+    public boolean isAvailable() {
+        Boolean isAvailable = this.available;
+        if (isAvailable == null) {
+            isAvailable = Boolean.TRUE.equals(this.jdbcTemplate.queryForObject(EXISTS_QUERY, Boolean.class));
+            this.available = isAvailable;
+        }
+        return isAvailable;
+    }
+
+    /**
+     * to be called when the content of the index changes
+     */
+    public void invalidate() {
+        this.available = null;
+    }
+
+    public Optional<BibliographicRecordDTO> findByIsbn13(String isbn13) {
+        return this.jdbcTemplate.query(SELECT_BY_ISBN13_QUERY, ROW_MAPPER, isbn13).stream().findFirst();
+    }
+
+    public List<BibliographicRecordDTO> findByTitleKey(String titleKey) {
+        return this.jdbcTemplate.query(SELECT_BY_TITLE_KEY_QUERY, ROW_MAPPER, titleKey, MAX_TITLE_MATCHES);
+    }
+}
@@ -0,0 +1,22 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out el_file_system_item ids before the rows are written, so that a record can be referenced
+ * (for example as parent) in the same chunk in which it is inserted.
+ *
+ * @see SequenceIdAllocator
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileSystemItemIdAllocator {
+    private final SequenceIdAllocator sequenceIdAllocator;
+
+    public long next() {
+        return this.sequenceIdAllocator.next(SequenceIdAllocator.FILE_SYSTEM_ITEM_SEQUENCE);
+    }
+}
@@ -0,0 +1,48 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the rows selected by a from/where clause in contiguous id ranges holding (about) the same number of rows,
+ * so that every worker of a partitioned step reads only its own range with its own reader and restartable state.
+ */
+@Slf4j
+public class IdRangePartitioner implements Partitioner {
+    public static final String CONTEXT_KEY_MIN_ID = "minId";
+    public static final String CONTEXT_KEY_MAX_ID = "maxId";
+    private static final String PARTITION_NAME_PREFIX = "partition";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String fromAndWhereClause;
+
+    /**
+     * @param fromAndWhereClause the from and where clauses of the worker reader, for example {@code FROM el_file_system_item WHERE record_status = 1}
+     */
+    public IdRangePartitioner(JdbcTemplate jdbcTemplate, String fromAndWhereClause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fromAndWhereClause = fromAndWhereClause;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        // ntile balances the ranges on the rows to be processed, not on the (sparse) id space
+        String sql = "SELECT min(t.id), max(t.id) FROM (SELECT id, ntile(?) over (order by id) as bucket " + this.fromAndWhereClause + ") t GROUP BY t.bucket ORDER BY 1";
+        List<long[]> rangeList = this.jdbcTemplate.query(sql, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, Math.max(1, gridSize));
+        Map<String, ExecutionContext> partitionMap = new HashMap<>();
+        for (int i = 0; i < rangeList.size(); i++) {
+            ExecutionContext executionContext = new ExecutionContext();
+            executionContext.putLong(CONTEXT_KEY_MIN_ID, rangeList.get(i)[0]);
+            executionContext.putLong(CONTEXT_KEY_MAX_ID, rangeList.get(i)[1]);
+            partitionMap.put(PARTITION_NAME_PREFIX + i, executionContext);
+        }
+        log.debug("{} id ranges created for: {}", partitionMap.size(), this.fromAndWhereClause);
+        return partitionMap;
+    }
+}
@@ -0,0 +1,131 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared engine of the bulk writers.
+ * <ul>
+ *     <li>the connection is borrowed from the pool through {@link DataSourceUtils}, so it is the one bound to the chunk transaction
+ *     and it is never committed or closed here;</li>
+ *     <li>items are written with multi-row statements ({@code prefix + row, row, ... + suffix});</li>
+ *     <li>the number of rows per statement adapts, per statement name, to keep each statement close to the target latency;</li>
+ *     <li>rows and latency of every statement are published through Micrometer.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JdbcBulkExecutor {
+    // PostgreSQL accepts at most 65535 bind parameters per statement
+    private static final int MAX_PARAMETERS_PER_STATEMENT = 65535;
+    private static final String METRIC_STATEMENT = "europea.indexer.jdbc.statement";
+    private static final String METRIC_ROWS = "europea.indexer.jdbc.rows";
+    private static final String TAG_STATEMENT = "statement";
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    @Value("${com.andreidodu.europea-library.job.indexer.jdbc-bulk.min-rows-per-statement}")
+    private Integer minRowsPerStatement;
+    @Value("${com.andreidodu.europea-library.job.indexer.jdbc-bulk.max-rows-per-statement}")
+    private Integer maxRowsPerStatement;
+    @Value("${com.andreidodu.europea-library.job.indexer.jdbc-bulk.target-statement-milliseconds}")
+    private Long targetStatementMilliseconds;
+
+    private final Map<String, AtomicInteger> rowsPerStatementMap = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface RowBinder<T> {
+        /**
+         * binds the parameters of one row, starting from {@code firstParameterIndex}
+         */
+        void bind(PreparedStatement preparedStatement, int firstParameterIndex, T item) throws SQLException;
+    }
+
+    /**
+     * @param name          the name of the statement, used for metrics and for the adaptive batch size
+     * @param prefix        the part of the statement before the rows, for example {@code insert into el_tag (name, version) values }
+     * @param rowTemplate   the placeholders of one row, for example {@code (?, 1)}
+     * @param suffix        the part of the statement after the rows (may be empty)
+     * @param parametersPerRow the number of placeholders in {@code rowTemplate}
+     * @return the number of affected rows
+     */
+    public <T> int execute(String name, String prefix, String rowTemplate, String suffix, int parametersPerRow, List<? extends T> items, RowBinder<T> rowBinder) throws SQLException {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        AtomicInteger rowsPerStatement = this.rowsPerStatementMap.computeIfAbsent(name, key -> new AtomicInteger(this.minRowsPerStatement));
+        int maxRows = Math.max(1, Math.min(this.maxRowsPerStatement, MAX_PARAMETERS_PER_STATEMENT / parametersPerRow));
+        int affectedRows = 0;
+        Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        try {
+            int from = 0;
+            while (from < items.size()) {
+                int rows = Math.min(Math.min(rowsPerStatement.get(), maxRows), items.size() - from);
+                long start = System.nanoTime();
+                try (PreparedStatement preparedStatement = connection.prepareStatement(buildStatement(prefix, rowTemplate, suffix, rows))) {
+                    for (int i = 0; i < rows; i++) {
+                        rowBinder.bind(preparedStatement, i * parametersPerRow + 1, items.get(from + i));
+                    }
+                    affectedRows += preparedStatement.executeUpdate();
+                }
+                long elapsedNanos = System.nanoTime() - start;
+                record(name, rows, elapsedNanos);
+                adapt(rowsPerStatement, rows, elapsedNanos, maxRows);
+                from += rows;
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+        }
+        return affectedRows;
+    }
+
+    private static String buildStatement(String prefix, String rowTemplate, String suffix, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + (rowTemplate.length() + 1) * rows);
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(rowTemplate);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    private void adapt(AtomicInteger rowsPerStatement, int rows, long elapsedNanos, int maxRows) {
+        if (rows < rowsPerStatement.get()) {
+            // a partial statement (end of the chunk) says nothing about the right size
+            return;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMillis > this.targetStatementMilliseconds) {
+            rowsPerStatement.set(Math.max(this.minRowsPerStatement, rows / 2));
+        } else if (elapsedMillis < this.targetStatementMilliseconds / 2) {
+            rowsPerStatement.set(Math.min(maxRows, rows * 2));
+        }
+    }
+
+    private void record(String name, int rows, long elapsedNanos) {
+        Timer.builder(METRIC_STATEMENT)
+                .tag(TAG_STATEMENT, name)
+                .register(this.meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        this.meterRegistry.counter(METRIC_ROWS, TAG_STATEMENT, name).increment(rows);
+        log.debug("{}: {} rows in {} ms", name, rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+}
@@ -0,0 +1,29 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Values kept by the steps from one run to the next (el_job_cursor), by name.
+ */
+@Component
+@RequiredArgsConstructor
+public class JobCursorStore {
+    private static final String SELECT_QUERY = "select last_id from el_job_cursor where name = ?";
+    private static final String UPSERT_QUERY = "insert into el_job_cursor (name, last_id) values (?, ?) on conflict (name) do update set last_id = excluded.last_id, update_date = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Long> find(String name) {
+        List<Long> values = this.jdbcTemplate.queryForList(SELECT_QUERY, Long.class, name);
+        return values.stream().findFirst();
+    }
+
+    public void save(String name, long value) {
+        this.jdbcTemplate.update(UPSERT_QUERY, name, value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out ids of the sequences used by the entities before the rows are written, so that the bulk writers
+ * can insert rows that reference each other in the same chunk.
+ * The ids are reserved in blocks with the same pooled semantic used by hibernate for the entities,
+ * so they never collide with the ids generated by JPA.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+    public static final String FILE_SYSTEM_ITEM_SEQUENCE = "el_file_system_item_seq";
+    public static final String FILE_META_INFO_SEQUENCE = "el_file_meta_info_seq";
+    public static final String BOOK_INFO_SEQUENCE = "el_book_info_seq";
+    // must match the incrementBy of the sequences and the allocationSize of the entities
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Block> blockMap = new HashMap<>();
+
+    public synchronized long next(String sequenceName) {
+        Block block = this.blockMap.computeIfAbsent(sequenceName, name -> new Block());
+        if (block.nextId > block.highId) {
+            long value = nextValue(sequenceName);
+            if (value < ALLOCATION_SIZE) {
+                // the first value of the sequence is not the upper bound of a block
+                value = nextValue(sequenceName);
+            }
+            block.highId = value;
+            block.nextId = value - ALLOCATION_SIZE + 1;
+        }
+        return block.nextId++;
+    }
+
+    private long nextValue(String sequenceName) {
+        return this.jdbcTemplate.queryForObject("select nextval('" + sequenceName + "')", Long.class);
+    }
+
+    private static class Block {
+        private long nextId;
+        private long highId = -1;
+    }
+}
@@ -0,0 +1,176 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import com.andreidodu.europealibrary.dto.PairDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Collects the (target id, value) pairs of el_tmp_association during a step and writes them once, with a single COPY, when the step ends.
+ * <ul>
+ *     <li>the pairs of a chunk are taken only when its transaction commits, so a rolled back chunk leaves nothing behind;</li>
+ *     <li>the pairs are kept in memory as COPY text rows; above max-in-memory-pairs they are moved to a temporary file,
+ *     so the heap used does not grow with the library;</li>
+ *     <li>{@link #flush()} streams the temporary file and the rows in memory to the database and, once written, starts over.</li>
+ * </ul>
+ * The pairs not flushed yet are lost if the application stops: those files keep their meta-info without the tags.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TmpAssociationAccumulator {
+    private static final String COPY_STATEMENT = "copy el_tmp_association (target_id, value) from stdin";
+    private static final String SPILL_FILE_PREFIX = "europea-tmp-association";
+    private static final String SPILL_FILE_SUFFIX = ".copy";
+    private static final String METRIC_PAIRS = "europea.indexer.tmp-association.pairs";
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    @Value("${com.andreidodu.europea-library.job.indexer.tmp-association.max-in-memory-pairs}")
+    private Integer maxInMemoryPairs;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int bufferedPairs;
+    private long spilledPairs;
+    private Path spillFile;
+    private BufferedWriter spillWriter;
+
+    /**
+     * queues the pairs, when the current transaction (if any) commits
+     */
+    public void add(List<PairDTO<Long, String>> pairs) {
+        if (pairs.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(pairs);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(pairs);
+            }
+        });
+    }
+
+    /**
+     * writes all the pairs collected so far to el_tmp_association
+     *
+     * @return the number of rows written
+     */
+    public synchronized long flush() throws SQLException, IOException {
+        long pairs = this.spilledPairs + this.bufferedPairs;
+        if (pairs == 0) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        try (InputStream rows = openRows()) {
+            long copiedRows = connection.unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyIn(COPY_STATEMENT, rows);
+            this.meterRegistry.counter(METRIC_PAIRS).increment(copiedRows);
+            log.info("tmp associations copied: {} ({} from the temporary file) in {} ms", copiedRows, this.spilledPairs, System.currentTimeMillis() - start);
+            clear();
+            return copiedRows;
+        } finally {
+            // on failure the pairs are kept, until the next meta-info step clears them
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+        }
+    }
+
+    /**
+     * drops the pairs collected so far without writing them
+     */
+    public synchronized void clear() throws IOException {
+        this.buffer.setLength(0);
+        this.bufferedPairs = 0;
+        this.spilledPairs = 0;
+        if (this.spillWriter != null) {
+            this.spillWriter.close();
+            this.spillWriter = null;
+        }
+        if (this.spillFile != null) {
+            Files.deleteIfExists(this.spillFile);
+            this.spillFile = null;
+        }
+    }
+
+    private synchronized void append(List<PairDTO<Long, String>> pairs) {
+        for (PairDTO<Long, String> pair : pairs) {
+            this.buffer.append(pair.getVal1()).append('\t');
+            appendEscaped(this.buffer, pair.getVal2());
+            this.buffer.append('\n');
+        }
+        this.bufferedPairs += pairs.size();
+        if (this.bufferedPairs >= this.maxInMemoryPairs) {
+            spill();
+        }
+    }
+
+    private void spill() {
+        try {
+            if (this.spillWriter == null) {
+                this.spillFile = Files.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX);
+                this.spillWriter = Files.newBufferedWriter(this.spillFile, StandardCharsets.UTF_8);
+                log.debug("tmp associations moved to {}", this.spillFile);
+            }
+            this.spillWriter.append(this.buffer);
+            this.spilledPairs += this.bufferedPairs;
+            this.buffer.setLength(0);
+            this.bufferedPairs = 0;
+        } catch (IOException e) {
+            // the pairs stay in memory: the next spill (or the flush) tries again
+            log.warn("unable to move the tmp associations to a temporary file: {}", e.getMessage());
+        }
+    }
+
+    private InputStream openRows() throws IOException {
+        InputStream memoryRows = new ByteArrayInputStream(this.buffer.toString().getBytes(StandardCharsets.UTF_8));
+        if (this.spillWriter == null) {
+            return memoryRows;
+        }
+        this.spillWriter.flush();
+        return new SequenceInputStream(Files.newInputStream(this.spillFile), memoryRows);
+    }
+
+    /**
+     * COPY text format: backslash, tab and line breaks are escaped
+     */
+    private static void appendEscaped(StringBuilder stringBuilder, String value) {
+        if (value == null) {
+            stringBuilder.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case '\\' -> stringBuilder.append("\\\\");
+                case '\t' -> stringBuilder.append("\\t");
+                case '\n' -> stringBuilder.append("\\n");
+                case '\r' -> stringBuilder.append("\\r");
+                default -> stringBuilder.append(character);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.StepUtil;
+import com.andreidodu.europealibrary.constants.DataPropertiesConst;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the categories of a book as soon as they are retrieved, in the transaction of the chunk:
+ * the enrichment runs on its own, so it cannot rely on el_tmp_association and on the category steps of the indexer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookInfoCategoryWriter {
+    private static final String INSERT_CATEGORIES_QUERY = "insert into el_category (name, version) select unnest(?), 1 on conflict (name) do nothing";
+    private static final String INSERT_ASSOCIATIONS_QUERY = "insert into el_book_info_category (book_info_id, category_id) select ?, c.id from el_category c where c.name = any(?) " +
+            "on conflict (book_info_id, category_id) do nothing";
+    private static final String SQL_ARRAY_TYPE = "varchar";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StepUtil stepUtil;
+
+    public void write(Long bookInfoId, List<String> categories) {
+        if (bookInfoId == null || categories == null || categories.isEmpty()) {
+            return;
+        }
+        Set<String> names = this.stepUtil.explodeInUniqueItemsCleanedAndTrimmedToNullDistinctLowerCase(categories, DataPropertiesConst.CATEGORY_NAME_MAX_LENGTH);
+        if (names.isEmpty()) {
+            return;
+        }
+        Object[] nameArray = names.toArray();
+        this.jdbcTemplate.update(INSERT_CATEGORIES_QUERY, preparedStatement ->
+                preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf(SQL_ARRAY_TYPE, nameArray)));
+        this.jdbcTemplate.update(INSERT_ASSOCIATIONS_QUERY, preparedStatement -> {
+            preparedStatement.setLong(1, bookInfoId);
+            preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf(SQL_ARRAY_TYPE, nameArray));
+        });
+        log.debug("categories of book info {} written: {}", bookInfoId, names);
+    }
+}
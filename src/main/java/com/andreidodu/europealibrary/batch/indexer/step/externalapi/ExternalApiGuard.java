@@ -0,0 +1,189 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import com.andreidodu.europealibrary.exception.ApplicationException;
+import com.andreidodu.europealibrary.exception.ExternalApiUnavailableException;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Protects the external API from the indexer and the indexer from the external API.
+ * <ul>
+ *     <li>throttled (429) and failed (5xx, network) requests are retried after a backoff, honouring Retry-After;
+ *     the backoff grows with the failures of all the threads and it is reset by a success;</li>
+ *     <li>after circuit-failure-threshold consecutive failures the circuit opens: no request is sent until it expires,
+ *     then a single trial request decides whether it closes or opens again (for twice the time);</li>
+ *     <li>a caller finding the circuit open waits for it when it expires soon (circuit-max-wait-seconds),
+ *     otherwise it gets an {@link ExternalApiUnavailableException}.</li>
+ * </ul>
+ * Other errors (4xx) are not retried.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExternalApiGuard {
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final String RETRY_AFTER_HEADER = "retry-after";
+    private static final String METRIC_RETRIES = "europea.indexer.external-api.retries";
+    private static final String METRIC_CIRCUIT_OPENED = "europea.indexer.external-api.circuit-opened";
+
+    private final MeterRegistry meterRegistry;
+    @Value("${com.andreidodu.europea-library.google.books.max-attempts}")
+    private Integer maxAttempts;
+    @Value("${com.andreidodu.europea-library.google.books.backoff-initial-milliseconds}")
+    private Long backoffInitialMilliseconds;
+    @Value("${com.andreidodu.europea-library.google.books.backoff-max-milliseconds}")
+    private Long backoffMaxMilliseconds;
+    @Value("${com.andreidodu.europea-library.google.books.circuit-failure-threshold}")
+    private Integer circuitFailureThreshold;
+    @Value("${com.andreidodu.europea-library.google.books.circuit-open-seconds}")
+    private Long circuitOpenSeconds;
+    @Value("${com.andreidodu.europea-library.google.books.circuit-max-wait-seconds}")
+    private Long circuitMaxWaitSeconds;
+
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private long openDurationNanos;
+    private boolean trialInProgress;
+
+    public <T> T call(Supplier<T> request) {
+        for (int attempt = 1; ; attempt++) {
+            acquireCircuit();
+            try {
+                T response = request.get();
+                onSuccess();
+                return response;
+            } catch (FeignException e) {
+                if (!isRetryable(e)) {
+                    onSuccess();
+                    throw e;
+                }
+                long backoffMillis = onFailure(e);
+                if (attempt >= this.maxAttempts) {
+                    throw e;
+                }
+                log.debug("external api answered {}, attempt {} retried in {} ms", e.status(), attempt, backoffMillis);
+                this.meterRegistry.counter(METRIC_RETRIES).increment();
+                sleep(backoffMillis);
+            } catch (RuntimeException e) {
+                // not an answer of the api (for example a decoding error): the next request will be the trial
+                releaseTrial();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * waits while the circuit is open and a trial request is running
+     */
+    private void acquireCircuit() {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                if (this.openUntilNanos == 0) {
+                    return;
+                }
+                waitNanos = this.openUntilNanos - System.nanoTime();
+                if (waitNanos <= 0 && !this.trialInProgress) {
+                    // half open: this request decides
+                    this.trialInProgress = true;
+                    return;
+                }
+            }
+            if (waitNanos > TimeUnit.SECONDS.toNanos(this.circuitMaxWaitSeconds)) {
+                throw new ExternalApiUnavailableException("external api unavailable for the next " + TimeUnit.NANOSECONDS.toSeconds(waitNanos) + " seconds");
+            }
+            sleep(Math.max(this.backoffInitialMilliseconds, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (this.openUntilNanos != 0) {
+            log.info("external api available again, circuit closed");
+        }
+        this.consecutiveFailures = 0;
+        this.openUntilNanos = 0;
+        this.openDurationNanos = 0;
+        this.trialInProgress = false;
+    }
+
+    private synchronized void releaseTrial() {
+        this.trialInProgress = false;
+    }
+
+    /**
+     * @return the milliseconds to wait before the next attempt
+     */
+    private synchronized long onFailure(FeignException e) {
+        this.consecutiveFailures++;
+        boolean isTrialFailed = this.trialInProgress;
+        this.trialInProgress = false;
+        if (isTrialFailed || this.consecutiveFailures >= this.circuitFailureThreshold) {
+            this.openDurationNanos = this.openDurationNanos == 0
+                    ? TimeUnit.SECONDS.toNanos(this.circuitOpenSeconds)
+                    : Math.min(this.openDurationNanos * 2, TimeUnit.HOURS.toNanos(24));
+            long retryAfterNanos = TimeUnit.MILLISECONDS.toNanos(retryAfterMillis(e).orElse(0L));
+            this.openUntilNanos = System.nanoTime() + Math.max(this.openDurationNanos, retryAfterNanos);
+            this.meterRegistry.counter(METRIC_CIRCUIT_OPENED).increment();
+            log.warn("external api answered {} {} times in a row, circuit open for {} seconds", e.status(), this.consecutiveFailures,
+                    TimeUnit.NANOSECONDS.toSeconds(this.openUntilNanos - System.nanoTime()));
+        }
+        long exponentialBackoff = this.backoffInitialMilliseconds << Math.min(this.consecutiveFailures - 1, 20);
+        long backoff = Math.min(this.backoffMaxMilliseconds, exponentialBackoff);
+        // jitter, so that the threads do not retry all together
+        backoff = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return retryAfterMillis(e).map(retryAfter -> Math.min(this.backoffMaxMilliseconds, retryAfter)).orElse(backoff);
+    }
+
+    private static boolean isRetryable(FeignException e) {
+        return e instanceof RetryableException || e.status() == HTTP_TOO_MANY_REQUESTS || e.status() >= HTTP_SERVER_ERROR;
+    }
+
+    private static Optional<Long> retryAfterMillis(FeignException e) {
+        Map<String, Collection<String>> headers = e.responseHeaders();
+        if ((headers == null || headers.isEmpty()) && e.getCause() instanceof FeignException cause) {
+            // the RetryableException built by the default decoder for a Retry-After response keeps the headers in its cause
+            headers = cause.responseHeaders();
+        }
+        if (headers == null) {
+            return Optional.empty();
+        }
+        return headers.entrySet()
+                .stream()
+                .filter(header -> RETRY_AFTER_HEADER.equalsIgnoreCase(header.getKey()))
+                .flatMap(header -> header.getValue().stream())
+                .findFirst()
+                .flatMap(ExternalApiGuard::parseSeconds)
+                .map(TimeUnit.SECONDS::toMillis);
+    }
+
+    private static Optional<Long> parseSeconds(String value) {
+        try {
+            return Optional.of(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            // the http-date form is not used by the apis we call
+            return Optional.empty();
+        }
+    }
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationException("interrupted while waiting for the external api", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.JobCursorStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the external meta-info step, stored in el_job_cursor: a run that stops (quota exhausted, circuit open, crash)
+ * is resumed by the next one from the last book done instead of from the first candidate.
+ * <p>
+ * The candidates are read in id order by several threads, so the cursor is the low watermark:
+ * the greatest id below which every book has been committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExternalMetaInfoCursor {
+    private static final String CURSOR_NAME = "external-meta-info";
+
+    private final JobCursorStore jobCursorStore;
+
+    private final ConcurrentSkipListSet<Long> inFlightIds = new ConcurrentSkipListSet<>();
+    private final AtomicLong lastReadId = new AtomicLong();
+
+    /**
+     * @return the id after which the candidates are read
+     */
+    public long load() {
+        long lastId = this.jobCursorStore.find(CURSOR_NAME).orElse(0L);
+        this.inFlightIds.clear();
+        this.lastReadId.set(lastId);
+        log.info("external meta-info retrieval resumed after id {}", lastId);
+        return lastId;
+    }
+
+    /**
+     * must be called in reading order
+     */
+    public void read(long id) {
+        this.inFlightIds.add(id);
+        this.lastReadId.accumulateAndGet(id, Math::max);
+    }
+
+    public void done(Collection<Long> ids) {
+        this.inFlightIds.removeAll(ids);
+    }
+
+    public void done(long id) {
+        this.inFlightIds.remove(id);
+    }
+
+    public long getWatermark() {
+        // the candidates are read in id order: the read ids below the first one in flight are all done
+        Long firstInFlight = this.inFlightIds.isEmpty() ? null : this.inFlightIds.first();
+        return firstInFlight == null ? this.lastReadId.get() : firstInFlight - 1;
+    }
+
+    public void save(long lastId) {
+        this.jobCursorStore.save(CURSOR_NAME, lastId);
+    }
+
+    /**
+     * all the candidates have been read: the next run starts again from the first one (books failed in this run included)
+     */
+    public void reset() {
+        save(0);
+        this.inFlightIds.clear();
+        this.lastReadId.set(0);
+    }
+}
@@ -0,0 +1,39 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+/**
+ * Records in the cursor every candidate read, while holding the lock of the read, so that the ids are recorded in reading order.
+ */
+@RequiredArgsConstructor
+public class ExternalMetaInfoCursorReader implements ItemStreamReader<Long> {
+    private final ItemStreamReader<Long> delegate;
+    private final ExternalMetaInfoCursor externalMetaInfoCursor;
+
+    @Override
+    public synchronized Long read() throws Exception {
+        Long id = this.delegate.read();
+        if (id != null) {
+            this.externalMetaInfoCursor.read(id);
+        }
+        return id;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        this.delegate.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        this.delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        this.delegate.close();
+    }
+}
@@ -1,62 +1,127 @@
 package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
 
 import com.andreidodu.europealibrary.batch.indexer.enums.ApiStatusEnum;
+import com.andreidodu.europealibrary.batch.indexer.enums.WebRetrievementStatusEnum;
 import com.andreidodu.europealibrary.batch.indexer.step.externalapi.dataretriever.MetaInfoRetrieverStrategy;
 import com.andreidodu.europealibrary.dto.ApiResponseDTO;
 import com.andreidodu.europealibrary.exception.SkipStepException;
+import com.andreidodu.europealibrary.model.BookInfo;
 import com.andreidodu.europealibrary.model.FileMetaInfo;
 import com.andreidodu.europealibrary.model.FileSystemItem;
+import com.andreidodu.europealibrary.repository.BookInfoRepository;
 import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
 import com.andreidodu.europealibrary.repository.FileSystemItemRepository;
+import com.andreidodu.europealibrary.service.ApplicationSettingsService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ExternalMetaInfoProcessor implements ItemProcessor<Long, FileSystemItem> {
-    public static final int SLEEP_TIME_BETWEEN_API_REQUESTS = 1000;
-
     final private List<MetaInfoRetrieverStrategy> metaInfoRetrieverStrategyList;
     final private FileSystemItemRepository fileSystemItemRepository;
     final private FileMetaInfoRepository fileMetaInfoRepository;
+    final private BookInfoRepository bookInfoRepository;
+    final private ExternalMetaInfoCursor externalMetaInfoCursor;
+    final private ApplicationSettingsService applicationSettingsService;
+    // meta-info being retrieved by the other threads: files sharing a meta-info must not update it concurrently
+    private final Set<Long> inFlightFileMetaInfoIds = ConcurrentHashMap.newKeySet();
     @PersistenceContext
     private EntityManager entityManager;
+    @Value("${com.andreidodu.europea-library.task.enrichment.not-found-retry-delay-hours}")
+    private long notFoundRetryDelayHours;
+    @Value("${com.andreidodu.europea-library.task.enrichment.failed-retry-delay-hours}")
+    private long failedRetryDelayHours;
 
-    private static void putThreadOnSleep() {
+    @Override
+    public FileSystemItem process(Long fileSystemItemId) {
+        if (this.applicationSettingsService.isApplicationLocked()) {
+            // the indexer has started: the enrichment goes on from the cursor once it is done
+            throw new SkipStepException("enrichment interrupted because the indexer is running");
+        }
+        FileSystemItem fileSystemItem = this.fileSystemItemRepository.findById(fileSystemItemId).get();
+        Long fileMetaInfoId = fileSystemItem.getFileMetaInfoId();
+        if (fileMetaInfoId != null && !this.inFlightFileMetaInfoIds.add(fileMetaInfoId)) {
+            log.debug("meta-info already being retrieved for another file: {}", fileSystemItem.getName());
+            // filtered items never reach the writer
+            this.externalMetaInfoCursor.done(fileSystemItemId);
+            return null;
+        }
         try {
-            Thread.sleep(SLEEP_TIME_BETWEEN_API_REQUESTS);
-        } catch (InterruptedException e) {
-            log.error("failed to put thread in sleep mode");
+            FileMetaInfo fileMetaInfo = buildMetaInfoFromWebIfNecessary(fileSystemItem)
+                    .orElseGet(() -> markNotFound(fileSystemItem));
+            scheduleRetry(fileMetaInfo.getBookInfo());
+            this.fileMetaInfoRepository.save(fileMetaInfo);
+            this.entityManager.detach(fileSystemItem);
+            fileSystemItem.setFileMetaInfoId(fileMetaInfo.getId());
+            log.debug("external meta-info retrieved: {}", fileSystemItem.getName());
+            return fileSystemItem;
+        } finally {
+            if (fileMetaInfoId != null) {
+                this.inFlightFileMetaInfoIds.remove(fileMetaInfoId);
+            }
         }
     }
 
-    @Override
-    public FileSystemItem process(Long fileSystemItemId) {
-        FileSystemItem fileSystemItem = this.fileSystemItemRepository.findById(fileSystemItemId).get();
-        FileMetaInfo fileMetaInfo = buildMetaInfoFromWebIfNecessary(fileSystemItem);
-        this.fileMetaInfoRepository.save(fileMetaInfo);
-        this.entityManager.detach(fileSystemItem);
-        fileSystemItem.setFileMetaInfoId(fileMetaInfo.getId());
-        log.debug("external meta-info retrieved: {}", fileSystemItem.getName());
-        putThreadOnSleep();
-        return fileSystemItem;
+    /**
+     * the strategies are asked in order (local sources first) until one of them knows the book
+     *
+     * @return empty when the accepting strategies do not know the book
+     */
+    private Optional<FileMetaInfo> buildMetaInfoFromWebIfNecessary(FileSystemItem fileSystemItem) {
+        boolean isAccepted = false;
+        for (MetaInfoRetrieverStrategy metaInfoRetrieverStrategy : metaInfoRetrieverStrategyList) {
+            if (!metaInfoRetrieverStrategy.accept(fileSystemItem)) {
+                continue;
+            }
+            isAccepted = true;
+            ApiResponseDTO<FileMetaInfo> result = metaInfoRetrieverStrategy.process(fileSystemItem);
+            if (result.getStatus() == ApiStatusEnum.NOT_FOUND) {
+                continue;
+            }
+            // ERROR: the book is marked as failed and retried by the next run; FATAL_ERROR: the api is unavailable, the step stops
+            if (!List.of(ApiStatusEnum.SUCCESS, ApiStatusEnum.SUCCESS_EMPTY_RESPONSE, ApiStatusEnum.ERROR).contains(result.getStatus())) {
+                throw new SkipStepException("step was partially executed or skipped because google books api is unavailable");
+            }
+            return Optional.of(result.getEntity());
+        }
+        if (isAccepted || this.metaInfoRetrieverStrategyList.stream().anyMatch(MetaInfoRetrieverStrategy::isAvailable)) {
+            return Optional.empty();
+        }
+        // the worker does not start the job without a source: the dump has been removed meanwhile
+        throw new SkipStepException("step skipped because no meta-info source is available");
     }
 
-    private FileMetaInfo buildMetaInfoFromWebIfNecessary(FileSystemItem fileSystemItem) {
-        return metaInfoRetrieverStrategyList.stream()
-                .filter(strategy -> strategy.accept(fileSystemItem))
-                .findFirst()
-                .map(metaInfoRetrieverStrategy -> metaInfoRetrieverStrategy.process(fileSystemItem))
-                .filter(result -> List.of(ApiStatusEnum.SUCCESS, ApiStatusEnum.SUCCESS_EMPTY_RESPONSE).contains(result.getStatus()))
-                .map(ApiResponseDTO::getEntity)
-                .orElseThrow(() -> new SkipStepException("step was partially executed or skipped because google books api returned an error"));
+    private FileMetaInfo markNotFound(FileSystemItem fileSystemItem) {
+        log.debug("book not found by any source, it will be asked again in {} hours: {}", this.notFoundRetryDelayHours, fileSystemItem.getName());
+        fileSystemItem.getFileMetaInfo().getBookInfo().setWebRetrievementStatus(WebRetrievementStatusEnum.SUCCESS_EMPTY.getStatus());
+        return fileSystemItem.getFileMetaInfo();
+    }
 
+    /**
+     * a book not found or failed is left out of the candidates until its retry date
+     */
+    private void scheduleRetry(BookInfo bookInfo) {
+        Integer status = bookInfo.getWebRetrievementStatus();
+        LocalDateTime retryDate = null;
+        if (Integer.valueOf(WebRetrievementStatusEnum.SUCCESS_EMPTY.getStatus()).equals(status)) {
+            retryDate = LocalDateTime.now().plusHours(this.notFoundRetryDelayHours);
+        } else if (Integer.valueOf(WebRetrievementStatusEnum.FAILED.getStatus()).equals(status)) {
+            retryDate = LocalDateTime.now().plusHours(this.failedRetryDelayHours);
+        }
+        bookInfo.setWebRetrievementRetryDate(retryDate);
+        this.bookInfoRepository.save(bookInfo);
     }
 }
@@ -0,0 +1,40 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoBulkWriter;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Links the files to their meta-info and moves the cursor forward: the watermark of the chunks committed so far
+ * is written with this chunk, and the books of this chunk count as done once it is committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExternalMetaInfoWriter implements ItemWriter<FileSystemItem> {
+    private final MetaInfoBulkWriter metaInfoBulkWriter;
+    private final ExternalMetaInfoCursor externalMetaInfoCursor;
+
+    @Override
+    public void write(Chunk<? extends FileSystemItem> chunk) throws Exception {
+        this.metaInfoBulkWriter.write(chunk);
+        this.externalMetaInfoCursor.save(this.externalMetaInfoCursor.getWatermark());
+        List<Long> ids = chunk.getItems().stream()
+                .map(FileSystemItem::getId)
+                .toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                externalMetaInfoCursor.done(ids);
+            }
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import com.andreidodu.europealibrary.exception.ApplicationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Responses of the external APIs, stored in el_external_query_cache and keyed by source and normalized query.
+ * <ul>
+ *     <li>a response is reused until it expires (ttl-hours);</li>
+ *     <li>an empty response is cached too, with its own (shorter) expiration (negative-ttl-hours);</li>
+ *     <li>errors are never cached;</li>
+ *     <li>the same query asked by several threads at once is sent once: the other threads wait for its response.</li>
+ * </ul>
+ * Hits, misses and coalesced requests are published through Micrometer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExternalQueryCache {
+    private static final String SELECT_QUERY = "select response, is_empty from el_external_query_cache where cache_key = ? and expiration_date > ?";
+    private static final String UPSERT_QUERY = "insert into el_external_query_cache (cache_key, source, query, response, is_empty, expiration_date) values (?, ?, ?, ?, ?, ?) " +
+            "on conflict (cache_key) do update set response = excluded.response, is_empty = excluded.is_empty, expiration_date = excluded.expiration_date, update_date = now()";
+    private static final String DELETE_EXPIRED_QUERY = "delete from el_external_query_cache where expiration_date <= ?";
+    private static final int QUERY_MAX_LENGTH = 2000;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String METRIC_REQUESTS = "europea.indexer.external-query-cache.requests";
+    private static final String METRIC_HIT_RATIO = "europea.indexer.external-query-cache.hit-ratio";
+    private static final String TAG_SOURCE = "source";
+    private static final String TAG_RESULT = "result";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    @Value("${com.andreidodu.europea-library.job.indexer.external-query-cache.enabled}")
+    private boolean enabled;
+    @Value("${com.andreidodu.europea-library.job.indexer.external-query-cache.ttl-hours}")
+    private Long ttlHours;
+    @Value("${com.andreidodu.europea-library.job.indexer.external-query-cache.negative-ttl-hours}")
+    private Long negativeTtlHours;
+
+    private final Map<String, CompletableFuture<Object>> inFlightMap = new ConcurrentHashMap<>();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * @param source  the API answering the query, part of the key
+     * @param query   the query, normalized before being used as key
+     * @param type    the type of the response, stored as json
+     * @param loader  sends the query to the API
+     * @param isEmpty tells whether a response is a miss (cached with the negative expiration)
+     */
+    public <T> T get(String source, String query, Class<T> type, Supplier<T> loader, Predicate<T> isEmpty) {
+        if (!this.enabled) {
+            return loader.get();
+        }
+        String normalizedQuery = normalize(query);
+        String cacheKey = calculateCacheKey(source, normalizedQuery);
+        this.requestCount.increment();
+        Optional<T> cachedResponse = find(source, cacheKey, type);
+        if (cachedResponse.isPresent()) {
+            this.hitCount.increment();
+            return cachedResponse.get();
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = this.inFlightMap.putIfAbsent(cacheKey, future);
+        if (inFlight != null) {
+            record(source, "coalesced");
+            this.hitCount.increment();
+            return type.cast(join(inFlight));
+        }
+        try {
+            record(source, "miss");
+            T response = loader.get();
+            store(source, cacheKey, normalizedQuery, response, isEmpty.test(response));
+            future.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlightMap.remove(cacheKey, future);
+        }
+    }
+
+    public int deleteExpired() {
+        int deleted = this.jdbcTemplate.update(DELETE_EXPIRED_QUERY, Timestamp.valueOf(LocalDateTime.now()));
+        log.debug("expired external query responses deleted: {}", deleted);
+        return deleted;
+    }
+
+    public double getHitRatio() {
+        long requests = this.requestCount.sum();
+        return requests == 0 ? 0 : (double) this.hitCount.sum() / requests;
+    }
+
+    public void resetStatistics() {
+        this.requestCount.reset();
+        this.hitCount.reset();
+        this.meterRegistry.gauge(METRIC_HIT_RATIO, this, ExternalQueryCache::getHitRatio);
+    }
+
+    private <T> Optional<T> find(String source, String cacheKey, Class<T> type) {
+        List<Optional<T>> rows = this.jdbcTemplate.query(SELECT_QUERY, (rs, rowNum) -> {
+            if (rs.getBoolean(2)) {
+                return Optional.<T>empty();
+            }
+            return Optional.of(fromJson(rs.getString(1), type));
+        }, cacheKey, Timestamp.valueOf(LocalDateTime.now()));
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<T> response = rows.get(0);
+        record(source, response.isPresent() ? "hit" : "negative-hit");
+        // a cached miss answers as an empty response
+        return Optional.of(response.orElseGet(() -> newInstance(type)));
+    }
+
+    private <T> void store(String source, String cacheKey, String normalizedQuery, T response, boolean isEmpty) {
+        Duration ttl = Duration.ofHours(isEmpty ? this.negativeTtlHours : this.ttlHours);
+        this.jdbcTemplate.update(UPSERT_QUERY,
+                cacheKey,
+                source,
+                normalizedQuery.substring(0, Math.min(normalizedQuery.length(), QUERY_MAX_LENGTH)),
+                isEmpty ? null : toJson(response),
+                isEmpty,
+                Timestamp.valueOf(LocalDateTime.now().plus(ttl)));
+    }
+
+    private void record(String source, String result) {
+        this.meterRegistry.counter(METRIC_REQUESTS, TAG_SOURCE, source, TAG_RESULT, result).increment();
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * lower case, compatibility-normalized, with single spaces: queries differing only in case or spacing share the response
+     */
+    static String normalize(String query) {
+        return Normalizer.normalize(query == null ? "" : query, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    private static String calculateCacheKey(String source, String normalizedQuery) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+            return HexFormat.of().formatHex(messageDigest.digest((source + "\n" + normalizedQuery).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " not available", e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return this.objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new ApplicationException("unable to serialize the external api response", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return this.objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new ApplicationException("unable to deserialize the cached external api response", e);
+        }
+    }
+
+    private static <T> T newInstance(Class<T> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("unable to build an empty " + type.getSimpleName(), e);
+        }
+    }
+}
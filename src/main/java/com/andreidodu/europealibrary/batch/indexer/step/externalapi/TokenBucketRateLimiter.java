@@ -0,0 +1,46 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by the threads calling a rate limited API.
+ * The bucket holds up to {@code burst} tokens and it is refilled with {@code permitsPerSecond} tokens per second:
+ * a call takes a token, waiting for it when the bucket is empty. A waiting call books its token before sleeping,
+ * so the waiting threads are released one by one at the configured rate.
+ */
+public class TokenBucketRateLimiter {
+    private final double nanosPerPermit;
+    private final double burst;
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permits per second and burst must be positive");
+        }
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burst = burst;
+        this.availablePermits = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * takes a token, possibly in advance
+     *
+     * @return the time to wait before the token can be used
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        this.availablePermits = Math.min(this.burst, this.availablePermits + (now - this.lastRefillNanos) / this.nanosPerPermit);
+        this.lastRefillNanos = now;
+        this.availablePermits -= 1;
+        return this.availablePermits >= 0 ? 0 : (long) (-this.availablePermits * this.nanosPerPermit);
+    }
+}
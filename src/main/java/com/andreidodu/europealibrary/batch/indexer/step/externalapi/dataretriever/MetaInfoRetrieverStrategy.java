@@ -7,6 +7,11 @@ import com.andreidodu.europealibrary.model.FileSystemItem;
 public interface MetaInfoRetrieverStrategy {
     String getStrategyName();
 
+    /**
+     * @return whether the source can be asked at all (configured api key, imported dump)
+     */
+    boolean isAvailable();
+
     boolean accept(FileSystemItem fileSystemItem);
 
     ApiResponseDTO<FileMetaInfo> process(FileSystemItem fileSystemItem);
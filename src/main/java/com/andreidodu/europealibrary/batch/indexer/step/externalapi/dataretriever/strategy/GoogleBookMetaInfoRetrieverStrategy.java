@@ -3,29 +3,38 @@ package com.andreidodu.europealibrary.batch.indexer.step.externalapi.dataretriev
 import com.andreidodu.europealibrary.batch.indexer.enums.ApiStatusEnum;
 import com.andreidodu.europealibrary.batch.indexer.enums.WebRetrievementStatusEnum;
 import com.andreidodu.europealibrary.batch.indexer.step.common.StepUtil;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.BookInfoCategoryWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalApiGuard;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.ExternalQueryCache;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.TokenBucketRateLimiter;
 import com.andreidodu.europealibrary.batch.indexer.step.externalapi.dataretriever.MetaInfoRetrieverStrategy;
 import com.andreidodu.europealibrary.client.GoogleBooksClient;
 import com.andreidodu.europealibrary.constants.DataPropertiesConst;
 import com.andreidodu.europealibrary.dto.ApiResponseDTO;
 import com.andreidodu.europealibrary.dto.GoogleBookResponseDTO;
 import com.andreidodu.europealibrary.exception.ApplicationException;
+import com.andreidodu.europealibrary.exception.ExternalApiUnavailableException;
 import com.andreidodu.europealibrary.model.*;
 import com.andreidodu.europealibrary.repository.BookInfoRepository;
 import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
-import com.andreidodu.europealibrary.service.TmpAssociationService;
+import com.andreidodu.europealibrary.util.IsbnUtil;
 import com.andreidodu.europealibrary.util.StringUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
+@Order(2)
 @Component
 @Transactional
 @RequiredArgsConstructor
@@ -38,11 +47,19 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
     public static final String GOOGLE_QUERY_INPUBLISHER = "inpublisher:";
     public static final String GOOGLE_QUERY_ISBN = "isbn:";
     private static final String STRATEGY_NAME = "google-book-meta-info-retriever-strategy";
+    // the number of results is part of the query
+    private static final String CACHE_SOURCE = "google-books-";
     private final GoogleBooksClient googleBooksClient;
     private final FileMetaInfoRepository fileMetaInfoRepository;
     private final StepUtil stepUtil;
     private final BookInfoRepository bookInfoRepository;
-    private final TmpAssociationService tmpAssociationService;
+    private final BookInfoCategoryWriter bookInfoCategoryWriter;
+    private final ExternalQueryCache externalQueryCache;
+    private final ExternalApiGuard externalApiGuard;
+
+    @Autowired
+    @Qualifier("googleBooksRateLimiter")
+    private TokenBucketRateLimiter googleBooksRateLimiter;
 
     @Value("${com.andreidodu.europea-library.google.books.api_key}")
     private String googleBooksApiKey;
@@ -68,7 +85,15 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
     }
 
     private static boolean hasISBN13(FileSystemItem fileSystemItem) {
-        return StringUtil.isNotEmpty(fileSystemItem.getFileMetaInfo().getBookInfo().getIsbn13());
+        return calculateISBN13(fileSystemItem.getFileMetaInfo().getBookInfo()) != null;
+    }
+
+    /**
+     * @return the canonical ISBN-13 of the book, converted from the ISBN-10 if necessary, null if the book has no valid ISBN
+     */
+    private static String calculateISBN13(BookInfo bookInfo) {
+        String isbn13 = IsbnUtil.toIsbn13(bookInfo.getIsbn13());
+        return isbn13 != null ? isbn13 : IsbnUtil.toIsbn13(bookInfo.getIsbn10());
     }
 
     private static boolean isEmptyResponse(GoogleBookResponseDTO googleBookResponse) {
@@ -76,7 +101,7 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
     }
 
     private static String calculateQueryISBN13(FileSystemItem fileSystemItem) {
-        return GOOGLE_QUERY_ISBN + fileSystemItem.getFileMetaInfo().getBookInfo().getIsbn13();
+        return GOOGLE_QUERY_ISBN + calculateISBN13(fileSystemItem.getFileMetaInfo().getBookInfo());
     }
 
     @Override
@@ -84,19 +109,21 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
         return STRATEGY_NAME;
     }
 
+    @Override
+    public boolean isAvailable() {
+        return StringUtil.isNotEmpty(googleBooksApiKey);
+    }
+
     @Override
     public boolean accept(FileSystemItem fileSystemItem) {
-        return forceLoadMetaInfoFromWeb || (StringUtil.isNotEmpty(googleBooksApiKey) && wasNotAlreadyRetrievedFromWeb(fileSystemItem)) && hasISBNOrTitleAuthorsOrPublisher(fileSystemItem);
+        return forceLoadMetaInfoFromWeb || (isAvailable() && wasNotAlreadyRetrievedFromWeb(fileSystemItem)) && hasISBNOrTitleAuthorsOrPublisher(fileSystemItem);
     }
 
     private boolean wasNotAlreadyRetrievedFromWeb(FileSystemItem fileSystemItem) {
         if (fileSystemItem == null || fileSystemItem.getFileMetaInfo() == null || fileSystemItem.getFileMetaInfo().getBookInfo() == null) {
             return false;
         }
-        BookInfo bookInfo = fileSystemItem.getFileMetaInfo().getBookInfo();
-        List<Integer> successStatuses = List.of(WebRetrievementStatusEnum.SUCCESS.getStatus(), WebRetrievementStatusEnum.SUCCESS_EMPTY.getStatus());
-        Integer webRetrieveStatus = bookInfo.getWebRetrievementStatus();
-        return webRetrieveStatus == null || !successStatuses.contains(webRetrieveStatus);
+        return WebRetrievementStatusEnum.isRetrievementDue(fileSystemItem.getFileMetaInfo().getBookInfo());
     }
 
     @Override
@@ -106,11 +133,14 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
         GoogleBookResponseDTO googleBookResponse;
         try {
             googleBookResponse = retrieveGoogleBook(fileSystemItem);
-        } catch (Exception e) {
-            log.debug("google books api throw an error: {}", e.getMessage());
+        } catch (ExternalApiUnavailableException e) {
+            log.warn("google books api unavailable: {}", e.getMessage());
             ApiResponseDTO<FileMetaInfo> apiResponseDTO = new ApiResponseDTO<FileMetaInfo>();
             apiResponseDTO.setStatus(ApiStatusEnum.FATAL_ERROR);
             return apiResponseDTO;
+        } catch (Exception e) {
+            log.debug("google books api throw an error: {}", e.getMessage());
+            return buildErrorResponse(fileSystemItem);
         }
         if (isEmptyResponse(googleBookResponse)) {
             log.debug("google book response: {}", googleBookResponse);
@@ -150,6 +180,17 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
         return apiResponseDTO;
     }
 
+    /**
+     * the book is asked again after the failed retry delay
+     */
+    private static ApiResponseDTO<FileMetaInfo> buildErrorResponse(FileSystemItem fileSystemItem) {
+        fileSystemItem.getFileMetaInfo().getBookInfo().setWebRetrievementStatus(WebRetrievementStatusEnum.FAILED.getStatus());
+        ApiResponseDTO<FileMetaInfo> apiResponseDTO = new ApiResponseDTO<FileMetaInfo>();
+        apiResponseDTO.setEntity(fileSystemItem.getFileMetaInfo());
+        apiResponseDTO.setStatus(ApiStatusEnum.ERROR);
+        return apiResponseDTO;
+    }
+
     private void updateModel(FileSystemItem fileSystemItem, GoogleBookResponseDTO.GoogleBookItemDTO.VolumeInfoDTO volumeInfo) {
         final String fullPath = fileSystemItem.getBasePath() + "/" + fileSystemItem.getName();
         FileMetaInfo fileMetaInfoOld = fileSystemItem.getFileMetaInfo();
@@ -171,24 +212,27 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
                 .ifPresent(bookInfo::setPublisher);
         bookInfo.setAverageRating(volumeInfo.getAverageRating());
         bookInfo.setRatingsCount(volumeInfo.getRatingsCount());
-        bookInfo.setIsbn10(extractValue(volumeInfo.getIndustryIdentifiers(), IDENTIFIER_TYPE_ISBN_10));
-        bookInfo.setIsbn13(extractValue(volumeInfo.getIndustryIdentifiers(), IDENTIFIER_TYPE_ISBN_13));
+        bookInfo.setIsbn10(IsbnUtil.normalize(extractValue(volumeInfo.getIndustryIdentifiers(), IDENTIFIER_TYPE_ISBN_10)));
+        bookInfo.setIsbn13(IsbnUtil.normalize(extractValue(volumeInfo.getIndustryIdentifiers(), IDENTIFIER_TYPE_ISBN_13)));
 
         Optional.ofNullable(volumeInfo.getPublishedDate()).ifPresent(bookInfo::setPublishedDate);
-        Optional.ofNullable(volumeInfo.getImageLinks())
-                .flatMap(imageLinks -> Optional.ofNullable(imageLinks.getThumbnail()))
-                .ifPresent(bookInfo::setImageUrl);
+        if (bookInfo.getImageUrl() == null) {
+            // the cover extracted from the file, served locally, is preferred
+            Optional.ofNullable(volumeInfo.getImageLinks())
+                    .flatMap(imageLinks -> Optional.ofNullable(imageLinks.getThumbnail()))
+                    .ifPresent(bookInfo::setImageUrl);
+        }
         BookInfo savedBookInfo = this.bookInfoRepository.save(bookInfo);
         this.fileMetaInfoRepository.save(fileMetaInfo);
 
-        saveCategoriesInTmpTable(fullPath, savedBookInfo.getId(), volumeInfo);
+        saveCategories(fullPath, savedBookInfo.getId(), volumeInfo);
     }
 
 
-    private void saveCategoriesInTmpTable(String fullPath, Long bookInfoId, GoogleBookResponseDTO.GoogleBookItemDTO.VolumeInfoDTO volumeInfoDTO) {
+    private void saveCategories(String fullPath, Long bookInfoId, GoogleBookResponseDTO.GoogleBookItemDTO.VolumeInfoDTO volumeInfoDTO) {
         try {
             List<String> categories = volumeInfoDTO.getCategories();
-            this.tmpAssociationService.addItemsToTmpAssociationTable(bookInfoId, categories, DataPropertiesConst.CATEGORY_NAME_MAX_LENGTH);
+            this.bookInfoCategoryWriter.write(bookInfoId, categories);
         } catch (Exception e) {
             log.debug("invalid google book categories: '{}'", fullPath);
         }
@@ -208,15 +252,15 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
         FileMetaInfo fileMetaInfo = fileSystemItem.getFileMetaInfo();
         BookInfo bookInfo = fileMetaInfo.getBookInfo();
 
+        // ISBNs are compared in their canonical ISBN-13 form, so an ISBN-10 matches its ISBN-13 as well
+        String isbn13 = calculateISBN13(bookInfo);
         return googleBookResponse.getItems().stream().filter(item -> {
-                    Set<String> googleIsbnList = Optional.ofNullable(item.getVolumeInfo()
-                                    .getIndustryIdentifiers())
-                            .map(identifiers -> identifiers.stream().map(GoogleBookResponseDTO.GoogleBookItemDTO.VolumeInfoDTO.IndustryIdentifierDTO::getIdentifier)
-                                    .map(String::toLowerCase)
-                                    .collect(Collectors.toSet()))
-                            .orElse(new HashSet<>());
-                    if (Optional.ofNullable(bookInfo.getIsbn13()).map(isbn -> googleIsbnList.contains(isbn.toLowerCase())).orElse(false) ||
-                            Optional.ofNullable(bookInfo.getIsbn10()).map(isbn -> googleIsbnList.contains(isbn.toLowerCase())).orElse(false)) {
+                    if (isbn13 != null && Optional.ofNullable(item.getVolumeInfo().getIndustryIdentifiers())
+                            .map(identifiers -> identifiers.stream()
+                                    .map(GoogleBookResponseDTO.GoogleBookItemDTO.VolumeInfoDTO.IndustryIdentifierDTO::getIdentifier)
+                                    .map(IsbnUtil::toIsbn13)
+                                    .anyMatch(isbn13::equals))
+                            .orElse(false)) {
                         return true;
                     }
                     return Optional.ofNullable(item.getVolumeInfo().getTitle()).map(String::toLowerCase).map(googleTitle -> googleTitle.contains(fileMetaInfo.getTitle().toLowerCase())).orElse(false)
@@ -258,6 +302,8 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
         GoogleBookResponseDTO googleBookResponse;
         try {
             googleBookResponse = retrieveBookInfoFromGoogleBooks(fileSystemItem);
+        } catch (ExternalApiUnavailableException e) {
+            throw e;
         } catch (RuntimeException e) {
             throw new ApplicationException("Google Books API throw an error: " + e.getMessage(), e);
         }
@@ -265,10 +311,21 @@ public class GoogleBookMetaInfoRetrieverStrategy implements MetaInfoRetrieverStr
     }
 
     private GoogleBookResponseDTO retrieveBookInfoFromGoogleBooks(FileSystemItem fileSystemItem) {
-        if (hasISBN13(fileSystemItem)) {
-            return this.googleBooksClient.retrieveMetaInfo(calculateQueryISBN13(fileSystemItem), MAX_RESULTS, googleBooksApiKey);
+        String query = hasISBN13(fileSystemItem) ? calculateQueryISBN13(fileSystemItem) : calculateQueryTitleAuthorPublisher(fileSystemItem);
+        // each attempt takes its own permit: the retries count against the quota too
+        return this.externalQueryCache.get(CACHE_SOURCE + MAX_RESULTS, query, GoogleBookResponseDTO.class, () -> this.externalApiGuard.call(() -> {
+            acquirePermit();
+            return this.googleBooksClient.retrieveMetaInfo(query, MAX_RESULTS, googleBooksApiKey);
+        }), GoogleBookMetaInfoRetrieverStrategy::isEmptyResponse);
+    }
+
+    private void acquirePermit() {
+        try {
+            this.googleBooksRateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationException("interrupted while waiting for the Google Books rate limiter", e);
         }
-        return this.googleBooksClient.retrieveMetaInfo(calculateQueryTitleAuthorPublisher(fileSystemItem), MAX_RESULTS, googleBooksApiKey);
     }
 
     private String calculateQueryTitleAuthorPublisher(FileSystemItem fileSystemItem) {
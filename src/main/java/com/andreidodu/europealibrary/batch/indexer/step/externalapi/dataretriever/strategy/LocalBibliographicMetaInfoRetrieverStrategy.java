@@ -0,0 +1,147 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi.dataretriever.strategy;
+
+import com.andreidodu.europealibrary.batch.indexer.enums.ApiStatusEnum;
+import com.andreidodu.europealibrary.batch.indexer.enums.WebRetrievementStatusEnum;
+import com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump.BibliographicDumpProcessor;
+import com.andreidodu.europealibrary.batch.indexer.step.bibliographicdump.BibliographicIndex;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.BookInfoCategoryWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.externalapi.dataretriever.MetaInfoRetrieverStrategy;
+import com.andreidodu.europealibrary.constants.DataPropertiesConst;
+import com.andreidodu.europealibrary.dto.ApiResponseDTO;
+import com.andreidodu.europealibrary.dto.BibliographicRecordDTO;
+import com.andreidodu.europealibrary.model.BookInfo;
+import com.andreidodu.europealibrary.model.FileMetaInfo;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import com.andreidodu.europealibrary.repository.BookInfoRepository;
+import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
+import com.andreidodu.europealibrary.util.IsbnUtil;
+import com.andreidodu.europealibrary.util.StringUtil;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Looks the book up in the imported bibliographic dump (by ISBN, then by title and author or publisher):
+ * no request leaves the server. A book not found is asked to the next strategy.
+ */
+@Slf4j
+@Order(1)
+@Component
+@Transactional
+@RequiredArgsConstructor
+public class LocalBibliographicMetaInfoRetrieverStrategy implements MetaInfoRetrieverStrategy {
+    private static final String STRATEGY_NAME = "local-bibliographic-meta-info-retriever-strategy";
+    private static final String LIST_SEPARATOR = ",";
+
+    private final BibliographicIndex bibliographicIndex;
+    private final BookInfoRepository bookInfoRepository;
+    private final FileMetaInfoRepository fileMetaInfoRepository;
+    private final BookInfoCategoryWriter bookInfoCategoryWriter;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-ext-meta-info-writer.high-matching-level}")
+    private boolean highMatchingLevel;
+
+    @Override
+    public String getStrategyName() {
+        return STRATEGY_NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return this.bibliographicIndex.isAvailable();
+    }
+
+    @Override
+    public boolean accept(FileSystemItem fileSystemItem) {
+        if (fileSystemItem == null || fileSystemItem.getFileMetaInfo() == null || fileSystemItem.getFileMetaInfo().getBookInfo() == null) {
+            return false;
+        }
+        return WebRetrievementStatusEnum.isRetrievementDue(fileSystemItem.getFileMetaInfo().getBookInfo()) && isAvailable();
+    }
+
+    @Override
+    public ApiResponseDTO<FileMetaInfo> process(FileSystemItem fileSystemItem) {
+        log.debug("applying strategy: {}", getStrategyName());
+        FileMetaInfo fileMetaInfo = fileSystemItem.getFileMetaInfo();
+        ApiResponseDTO<FileMetaInfo> apiResponseDTO = new ApiResponseDTO<>();
+        apiResponseDTO.setEntity(fileMetaInfo);
+        Optional<BibliographicRecordDTO> record = findByIsbn(fileMetaInfo.getBookInfo()).or(() -> findByTitle(fileMetaInfo));
+        if (record.isEmpty()) {
+            log.debug("book not found in the bibliographic dump: {}", fileSystemItem.getName());
+            apiResponseDTO.setStatus(ApiStatusEnum.NOT_FOUND);
+            return apiResponseDTO;
+        }
+        log.debug("book found in the bibliographic dump: {}", record.get());
+        updateModel(fileMetaInfo, record.get());
+        apiResponseDTO.setStatus(ApiStatusEnum.SUCCESS);
+        return apiResponseDTO;
+    }
+
+    private Optional<BibliographicRecordDTO> findByIsbn(BookInfo bookInfo) {
+        String isbn13 = Optional.ofNullable(IsbnUtil.toIsbn13(bookInfo.getIsbn13())).orElseGet(() -> IsbnUtil.toIsbn13(bookInfo.getIsbn10()));
+        if (isbn13 == null) {
+            return Optional.empty();
+        }
+        return this.bibliographicIndex.findByIsbn13(isbn13);
+    }
+
+    private Optional<BibliographicRecordDTO> findByTitle(FileMetaInfo fileMetaInfo) {
+        String titleKey = StringUtil.toSearchKey(fileMetaInfo.getTitle(), BibliographicDumpProcessor.TITLE_KEY_MAX_LENGTH);
+        if (titleKey == null) {
+            return Optional.empty();
+        }
+        BookInfo bookInfo = fileMetaInfo.getBookInfo();
+        return this.bibliographicIndex.findByTitleKey(titleKey)
+                .stream()
+                .filter(record -> !this.highMatchingLevel || containsSameAuthors(bookInfo, record) || isSamePublisher(bookInfo, record))
+                .findFirst();
+    }
+
+    /**
+     * every word of one of the authors of the book appears in the authors of the record
+     */
+    private static boolean containsSameAuthors(BookInfo bookInfo, BibliographicRecordDTO record) {
+        String recordAuthorsKey = StringUtil.toSearchKey(record.getAuthors(), Integer.MAX_VALUE);
+        if (StringUtil.isEmpty(bookInfo.getAuthors()) || recordAuthorsKey == null) {
+            return false;
+        }
+        List<String> recordAuthorWords = Arrays.asList(recordAuthorsKey.split(" "));
+        return Arrays.stream(bookInfo.getAuthors().split(LIST_SEPARATOR))
+                .map(author -> StringUtil.toSearchKey(author, Integer.MAX_VALUE))
+                .filter(Objects::nonNull)
+                .anyMatch(author -> recordAuthorWords.containsAll(Arrays.asList(author.split(" "))));
+    }
+
+    private static boolean isSamePublisher(BookInfo bookInfo, BibliographicRecordDTO record) {
+        return record.getPublisher() != null && record.getPublisher().equalsIgnoreCase(bookInfo.getPublisher());
+    }
+
+    /**
+     * the values missing from the dump do not override the ones extracted from the file
+     */
+    private void updateModel(FileMetaInfo fileMetaInfo, BibliographicRecordDTO record) {
+        BookInfo bookInfo = fileMetaInfo.getBookInfo();
+        Optional.ofNullable(record.getTitle()).ifPresent(fileMetaInfo::setTitle);
+        Optional.ofNullable(record.getDescription()).ifPresent(fileMetaInfo::setDescription);
+        Optional.ofNullable(StringUtil.substring(record.getAuthors(), DataPropertiesConst.BOOK_INFO_AUTHORS_MAX_LENGTH)).ifPresent(bookInfo::setAuthors);
+        Optional.ofNullable(record.getPublisher()).ifPresent(bookInfo::setPublisher);
+        Optional.ofNullable(record.getPublishedDate()).ifPresent(bookInfo::setPublishedDate);
+        Optional.ofNullable(record.getLanguage()).ifPresent(bookInfo::setLanguage);
+        Optional.ofNullable(record.getNumberOfPages()).ifPresent(bookInfo::setNumberOfPages);
+        Optional.ofNullable(record.getIsbn13()).ifPresent(bookInfo::setIsbn13);
+        Optional.ofNullable(record.getIsbn10()).ifPresent(bookInfo::setIsbn10);
+        bookInfo.setWebRetrievementStatus(WebRetrievementStatusEnum.SUCCESS.getStatus());
+        BookInfo savedBookInfo = this.bookInfoRepository.save(bookInfo);
+        this.fileMetaInfoRepository.save(fileMetaInfo);
+        if (record.getSubjects() != null) {
+            this.bookInfoCategoryWriter.write(savedBookInfo.getId(), List.of(record.getSubjects().split(LIST_SEPARATOR)));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.andreidodu.europealibrary.batch.indexer.step.filehash;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calculates SHA-256 hashes reading files through {@link FileChannel}s into large direct buffers.
+ * Reads are executed by the fileHashTaskExecutor, so the number of concurrent reads depends on the storage
+ * device and not on the number of chunk threads.
+ */
+@Slf4j
+@Component
+public class FileHashEngine {
+    private static final String ALGORITHM = "SHA-256";
+    private static final double BYTES_IN_MEGABYTE = 1024d * 1024d;
+    private static final int FINGERPRINT_BLOCK_SIZE = 64 * 1024;
+
+    @Autowired
+    @Qualifier("fileHashTaskExecutor")
+    private ThreadPoolTaskExecutor fileHashTaskExecutor;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-file-hash-updater.buffer-size-kb}")
+    private Integer bufferSizeKb;
+
+    private final ThreadLocal<ByteBuffer> bufferThreadLocal = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(Math.max(bufferSizeKb * 1024, FINGERPRINT_BLOCK_SIZE)));
+    private final ThreadLocal<MessageDigest> messageDigestThreadLocal = ThreadLocal.withInitial(FileHashEngine::newMessageDigest);
+    private final LongAdder hashedFiles = new LongAdder();
+    private final LongAdder hashedBytes = new LongAdder();
+
+    public Optional<String> sha256(Path path) {
+        return execute(path, () -> digest(path));
+    }
+
+    /**
+     * @return a cheap SHA-256 over the first and the last 64 KB of the file: files with different fingerprints
+     * are surely different, while files with the same size and fingerprint need a full hash to be told apart
+     */
+    public Optional<String> fingerprint(Path path) {
+        return execute(path, () -> digestHeadAndTail(path));
+    }
+
+    private Optional<String> execute(Path path, Callable<String> callable) {
+        Future<String> future = this.fileHashTaskExecutor.submit(callable);
+        try {
+            return Optional.of(future.get());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            log.error("unable to calculate the hash of {}: {}", path, e.getCause().getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private String digest(Path path) throws IOException {
+        MessageDigest messageDigest = this.messageDigestThreadLocal.get();
+        messageDigest.reset();
+        ByteBuffer buffer = this.bufferThreadLocal.get();
+        long bytes = 0;
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (fileChannel.read(buffer) != -1) {
+                buffer.flip();
+                bytes += buffer.remaining();
+                messageDigest.update(buffer);
+                buffer.clear();
+            }
+        }
+        this.hashedFiles.increment();
+        this.hashedBytes.add(bytes);
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private String digestHeadAndTail(Path path) throws IOException {
+        MessageDigest messageDigest = this.messageDigestThreadLocal.get();
+        messageDigest.reset();
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            digestRange(fileChannel, messageDigest, 0, Math.min(size, FINGERPRINT_BLOCK_SIZE));
+            if (size > FINGERPRINT_BLOCK_SIZE) {
+                long tailPosition = Math.max(FINGERPRINT_BLOCK_SIZE, size - FINGERPRINT_BLOCK_SIZE);
+                digestRange(fileChannel, messageDigest, tailPosition, size - tailPosition);
+            }
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private void digestRange(FileChannel fileChannel, MessageDigest messageDigest, long position, long length) throws IOException {
+        ByteBuffer buffer = this.bufferThreadLocal.get();
+        buffer.clear();
+        buffer.limit((int) Math.min(length, buffer.capacity()));
+        int read = 0;
+        while (buffer.hasRemaining() && read != -1) {
+            read = fileChannel.read(buffer, position + buffer.position());
+        }
+        buffer.flip();
+        messageDigest.update(buffer);
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void resetStatistics() {
+        this.hashedFiles.reset();
+        this.hashedBytes.reset();
+    }
+
+    public long getHashedFiles() {
+        return this.hashedFiles.sum();
+    }
+
+    public long getHashedBytes() {
+        return this.hashedBytes.sum();
+    }
+
+    public double getMegabytesPerSecond(long elapsedMillis) {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+        return getHashedBytes() / BYTES_IN_MEGABYTE / (elapsedMillis / 1000d);
+    }
+}
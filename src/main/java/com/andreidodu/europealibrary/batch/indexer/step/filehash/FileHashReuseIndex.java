@@ -0,0 +1,70 @@
+package com.andreidodu.europealibrary.batch.indexer.step.filehash;
+
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileSystemItemSnapshot;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashes already calculated for a file identity (device and inode) with its size and modification date.
+ * A file that was moved or renamed keeps its identity, so its hash can be reused instead of reading it again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileHashReuseIndex {
+    private static final String INDEX_QUERY = "select file_key, size, file_update_date, sha256 from el_file_system_item where file_key is not null and sha256 is not null";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Map<String, HashedFile> hashedFileMap = Collections.emptyMap();
+    private final LongAdder reusedCount = new LongAdder();
+
+    public void load() {
+        Map<String, HashedFile> map = new HashMap<>();
+        this.jdbcTemplate.query(INDEX_QUERY, (RowCallbackHandler) rs -> {
+            Timestamp fileUpdateDate = rs.getTimestamp(3);
+            map.put(rs.getString(1), new HashedFile(rs.getLong(2), FileSystemItemSnapshot.toSeconds(fileUpdateDate == null ? null : fileUpdateDate.toLocalDateTime()), rs.getString(4)));
+        });
+        this.hashedFileMap = map;
+        this.reusedCount.reset();
+        log.info("loaded {} reusable file hashes", map.size());
+    }
+
+    public void clear() {
+        this.hashedFileMap = Collections.emptyMap();
+    }
+
+    public Optional<String> find(FileSystemItem fileSystemItem) {
+        if (fileSystemItem.getFileKey() == null || fileSystemItem.getSize() == null) {
+            return Optional.empty();
+        }
+        HashedFile hashedFile = this.hashedFileMap.get(fileSystemItem.getFileKey());
+        long modificationDateSeconds = FileSystemItemSnapshot.toSeconds(fileSystemItem.getFileUpdateDate());
+        if (hashedFile == null
+                || modificationDateSeconds == FileSystemItemSnapshot.Fingerprint.UNKNOWN_MODIFICATION_DATE
+                || hashedFile.size() != fileSystemItem.getSize()
+                || hashedFile.modificationDateSeconds() != modificationDateSeconds) {
+            return Optional.empty();
+        }
+        this.reusedCount.increment();
+        return Optional.of(hashedFile.sha256());
+    }
+
+    public long getReusedCount() {
+        return this.reusedCount.sum();
+    }
+
+    private record HashedFile(long size, long modificationDateSeconds, String sha256) {
+    }
+}
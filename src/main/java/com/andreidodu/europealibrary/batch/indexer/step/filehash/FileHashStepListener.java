@@ -0,0 +1,55 @@
+package com.andreidodu.europealibrary.batch.indexer.step.filehash;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileHashStepListener implements StepExecutionListener {
+    public static final String CONTEXT_KEY_HASHED_FILES = "hash.files.count";
+    public static final String CONTEXT_KEY_HASHED_BYTES = "hash.bytes.count";
+    public static final String CONTEXT_KEY_REUSED_HASHES = "hash.reused.count";
+    public static final String CONTEXT_KEY_MEGABYTES_PER_SECOND = "hash.megabytes-per-second";
+    private static final String METRIC_HASHED_BYTES = "europea.indexer.hash.bytes";
+    private static final String METRIC_REUSED_HASHES = "europea.indexer.hash.reused";
+    private static final String METRIC_THROUGHPUT = "europea.indexer.hash.throughput";
+
+    private final FileHashEngine fileHashEngine;
+    private final FileHashReuseIndex fileHashReuseIndex;
+    private final MeterRegistry meterRegistry;
+    private long startTimeMillis;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.startTimeMillis = System.currentTimeMillis();
+        this.fileHashEngine.resetStatistics();
+        this.fileHashReuseIndex.load();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        long elapsedMillis = System.currentTimeMillis() - this.startTimeMillis;
+        double megabytesPerSecond = this.fileHashEngine.getMegabytesPerSecond(elapsedMillis);
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_HASHED_FILES, this.fileHashEngine.getHashedFiles());
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_HASHED_BYTES, this.fileHashEngine.getHashedBytes());
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_REUSED_HASHES, this.fileHashReuseIndex.getReusedCount());
+        stepExecution.getExecutionContext().putDouble(CONTEXT_KEY_MEGABYTES_PER_SECOND, megabytesPerSecond);
+        this.meterRegistry.counter(METRIC_HASHED_BYTES).increment(this.fileHashEngine.getHashedBytes());
+        this.meterRegistry.counter(METRIC_REUSED_HASHES).increment(this.fileHashReuseIndex.getReusedCount());
+        this.meterRegistry.summary(METRIC_THROUGHPUT).record(megabytesPerSecond);
+        log.info("hashed {} files ({} bytes) in {} ms: {} MB/s, {} hashes reused",
+                this.fileHashEngine.getHashedFiles(),
+                this.fileHashEngine.getHashedBytes(),
+                elapsedMillis,
+                String.format("%.1f", megabytesPerSecond),
+                this.fileHashReuseIndex.getReusedCount());
+        this.fileHashReuseIndex.clear();
+        return stepExecution.getExitStatus();
+    }
+}
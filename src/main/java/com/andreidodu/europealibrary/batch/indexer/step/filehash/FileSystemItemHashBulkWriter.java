@@ -1,5 +1,6 @@
 package com.andreidodu.europealibrary.batch.indexer.step.filehash;
 
+import com.andreidodu.europealibrary.batch.indexer.step.common.JdbcBulkExecutor;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,50 +8,25 @@ import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.stereotype.Component;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Types;
-import java.util.List;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class FileSystemItemHashBulkWriter implements ItemWriter<FileSystemItem> {
-    private static final String BULK_UPDATE_TEMPLATE = "update el_file_system_item set sha256=? where id=?;";
-    private final DataSource dataSource;
+    private static final String STATEMENT_NAME = "file-system-item-hash-update";
+    private static final String BULK_UPDATE_PREFIX = "update el_file_system_item f set sha256 = v.sha256 from ( values ";
+    private static final String BULK_UPDATE_ROW = "(?::bigint, ?::varchar)";
+    private static final String BULK_UPDATE_SUFFIX = " ) as v(id, sha256) where f.id = v.id";
+    private final JdbcBulkExecutor jdbcBulkExecutor;
 
     @Override
     public void write(Chunk<? extends FileSystemItem> chunk) throws SQLException {
-        if (chunk.getItems().isEmpty()) {
-            return;
-        }
-        updateItems((List<FileSystemItem>) chunk.getItems());
+        this.jdbcBulkExecutor.execute(STATEMENT_NAME, BULK_UPDATE_PREFIX, BULK_UPDATE_ROW, BULK_UPDATE_SUFFIX, 2, chunk.getItems(),
+                (preparedStatement, index, item) -> {
+                    preparedStatement.setLong(index, item.getId());
+                    preparedStatement.setString(index + 1, item.getSha256());
+                });
     }
 
-    private void updateItems(List<FileSystemItem> items) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        connection.setAutoCommit(false);
-        try (PreparedStatement preparedStatement = connection.prepareStatement(BULK_UPDATE_TEMPLATE)) {
-
-            for (FileSystemItem item : items) {
-                if (item.getSha256() != null) {
-                    preparedStatement.setString(1, item.getSha256());
-                } else {
-                    preparedStatement.setNull(1, Types.NULL);
-                }
-
-                preparedStatement.setLong(2, item.getId());
-
-                preparedStatement.addBatch();
-                preparedStatement.clearParameters();
-            }
-            preparedStatement.executeBatch();
-            connection.commit();
-            connection.close();
-        }
-    }
-
-
 }
@@ -2,7 +2,6 @@ package com.andreidodu.europealibrary.batch.indexer.step.filehash;
 
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import com.andreidodu.europealibrary.repository.FileSystemItemRepository;
-import com.andreidodu.europealibrary.util.FileUtil;
 import com.andreidodu.europealibrary.util.StringUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -11,11 +10,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class FileSystemItemHashProcessor implements ItemProcessor<Long, FileSystemItem> {
-    private final FileUtil fileUtil;
+    private final FileHashEngine fileHashEngine;
+    private final FileHashReuseIndex fileHashReuseIndex;
     private final FileSystemItemRepository fileSystemItemRepository;
     @PersistenceContext
     private EntityManager entityManager;
@@ -39,12 +41,21 @@ public class FileSystemItemHashProcessor implements ItemProcessor<Long, FileSyst
             return false;
         }
 
-        return isCalculateSha256(fileSystemItem);
+        return isReuseSha256(fileSystemItem) || isCalculateSha256(fileSystemItem);
+    }
+
+    private boolean isReuseSha256(FileSystemItem fileSystemItem) {
+        return this.fileHashReuseIndex.find(fileSystemItem)
+                .map(sha256 -> {
+                    fileSystemItem.setSha256(sha256);
+                    return true;
+                })
+                .orElse(false);
     }
 
     private boolean isCalculateSha256(FileSystemItem fileSystemItem) {
-        final String fileFullPath = fileSystemItem.getBasePath() + "/" + fileSystemItem.getName();
-        return this.fileUtil.fileToHash(fileFullPath)
+        final Path fileFullPath = Path.of(fileSystemItem.getBasePath(), fileSystemItem.getName());
+        return this.fileHashEngine.sha256(fileFullPath)
                 .map(sha256 -> {
                     fileSystemItem.setSha256(sha256);
                     return true;
@@ -7,6 +7,7 @@ import com.andreidodu.europealibrary.mapper.FileMapper;
 import com.andreidodu.europealibrary.mapper.FileSystemItemFullMapper;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import com.andreidodu.europealibrary.repository.FileSystemItemRepository;
+import com.andreidodu.europealibrary.util.DateUtil;
 import com.andreidodu.europealibrary.util.FileUtil;
 import com.andreidodu.europealibrary.util.StringUtil;
 import jakarta.persistence.EntityManager;
@@ -19,7 +20,11 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -30,6 +35,8 @@ public class FileIndexerProcessor implements ItemProcessor<File, FileSystemItem>
     final private FileUtil fileUtil;
     final private FileSystemItemFullMapper fileSystemItemFullMapper;
     final private FileSystemItemRepository fileSystemItemRepository;
+    final private FileSystemItemSnapshot fileSystemItemSnapshot;
+    final private DateUtil dateUtil;
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.force-load-meta-info-from-web}")
     private boolean forceLoadMetaInfoFromWeb;
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.override-meta-info}")
@@ -40,14 +47,81 @@ public class FileIndexerProcessor implements ItemProcessor<File, FileSystemItem>
     @Override
     public FileSystemItem process(final File file) {
         log.debug("Processing file: {}", file.getAbsoluteFile());
-        List<FileSystemItem> fileSystemItemInReadyOptional = getFileSystemItemByPathNameAndJobStep(file.getParentFile().getAbsolutePath(), file.getName(), List.of(JobStepEnum.INSERTED.getStepNumber(), JobStepEnum.READY.getStepNumber()));
-        return fileSystemItemInReadyOptional.stream().findFirst().map(/*case when file is in the same directory*/this::reprocessOldFileSystemItem)
-                .orElseGet(() -> /*case when file is new*/ buildFileSystemItemFromScratch(file));
+        String basePath = file.getParentFile().getAbsolutePath();
+        Optional<FileSystemItemSnapshot.Fingerprint> fingerprintOptional = this.fileSystemItemSnapshot.find(basePath, file.getName());
+        if (fingerprintOptional.isPresent()) {
+            /*case when file was indexed by a previous run*/
+            return processIndexedFile(file, basePath, fingerprintOptional.get());
+        }
+        /*case when file is new*/
+        return processNewFile(file);
+    }
+
+    private FileSystemItem processNewFile(File file) {
+        this.fileSystemItemSnapshot.getNewCount().increment();
+        return buildFileSystemItemFromScratch(file);
+    }
+
+    private FileSystemItem processIndexedFile(File file, String basePath, FileSystemItemSnapshot.Fingerprint fingerprint) {
+        if (file.isDirectory()) {
+            return rebuildFileSystemItem(file, fingerprint);
+        }
+        if (!fingerprint.isModificationDateKnown()) {
+            // the stored modification date can not be trusted: reprocess the record as before and let the writer fix the dates
+            this.fileSystemItemSnapshot.getModifiedCount().increment();
+            return getFileSystemItemByPathNameAndJobStep(basePath, file.getName(), List.of(JobStepEnum.INSERTED.getStepNumber(), JobStepEnum.READY.getStepNumber()))
+                    .stream()
+                    .findFirst()
+                    .map(fileSystemItem -> reprocessOldFileSystemItem(fileSystemItem, file))
+                    .orElseGet(() -> buildFileSystemItemFromScratch(file));
+        }
+        Optional<BasicFileAttributes> attributesOptional = readAttributes(file);
+        if (attributesOptional.isPresent() && isUnchanged(fingerprint, attributesOptional.get())) {
+            this.fileSystemItemSnapshot.getUnchangedCount().increment();
+            return buildUnchangedFileSystemItem(fingerprint, attributesOptional.get());
+        }
+        log.debug("file changed since last run: {}", file.getAbsoluteFile());
+        this.fileSystemItemSnapshot.getModifiedCount().increment();
+        return rebuildFileSystemItem(file, fingerprint);
+    }
+
+    private boolean isUnchanged(FileSystemItemSnapshot.Fingerprint fingerprint, BasicFileAttributes attributes) {
+        return fingerprint.isUnchanged(attributes.size(), FileSystemItemSnapshot.toSeconds(this.dateUtil.fileTimeToLocalDateTime(attributes.lastModifiedTime())));
+    }
 
+    private Optional<BasicFileAttributes> readAttributes(File file) {
+        try {
+            return Optional.of(Files.readAttributes(file.toPath(), BasicFileAttributes.class));
+        } catch (IOException e) {
+            log.error("Failed to read attributes of file: {}", file.getAbsoluteFile());
+            return Optional.empty();
+        }
+    }
+
+    private FileSystemItem buildUnchangedFileSystemItem(FileSystemItemSnapshot.Fingerprint fingerprint, BasicFileAttributes attributes) {
+        FileSystemItem fileSystemItem = new FileSystemItem();
+        fileSystemItem.setId(fingerprint.getId());
+        fileSystemItem.setFileKey(this.fileUtil.getFileKey(attributes));
+        fileSystemItem.setRecordStatus(RecordStatusEnum.UNCHANGED.getStatus());
+        return fileSystemItem;
+    }
+
+    /**
+     * the rebuilt item carries no meta-info and no hashes: the merge of {@link JdbcWriter} keeps the stored ones
+     * (the hashes only if the size did not change)
+     */
+    private FileSystemItem rebuildFileSystemItem(File file, FileSystemItemSnapshot.Fingerprint fingerprint) {
+        FileSystemItem fileSystemItem = buildFileSystemItemFromScratch(file);
+        if (fileSystemItem != null) {
+            fileSystemItem.setId(fingerprint.getId());
+        }
+        return fileSystemItem;
     }
 
-    private FileSystemItem reprocessOldFileSystemItem(FileSystemItem fileSystemItem) {
+    private FileSystemItem reprocessOldFileSystemItem(FileSystemItem fileSystemItem, File file) {
         this.entityManager.detach(fileSystemItem);
+        fileSystemItem.setFileUpdateDate(this.dateUtil.fileTimeToLocalDateTime(FileTime.fromMillis(file.lastModified())));
+        readAttributes(file).ifPresent(attributes -> fileSystemItem.setFileKey(this.fileUtil.getFileKey(attributes)));
         fileSystemItem.setJobStep(JobStepEnum.INSERTED.getStepNumber());
         fileSystemItem.setRecordStatus(RecordStatusEnum.JUST_UPDATED.getStatus());
         return fileSystemItem;
@@ -1,6 +1,9 @@
 package com.andreidodu.europealibrary.batch.indexer.step.fileindexer;
 
+import com.andreidodu.europealibrary.batch.indexer.constants.JobConst;
 import com.andreidodu.europealibrary.util.FileUtil;
+import com.andreidodu.europealibrary.util.StringUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.configuration.annotation.StepScope;
@@ -12,17 +15,23 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 @StepScope
 @RequiredArgsConstructor
 public class FileIndexerReader implements ItemStreamReader<File> {
+    public static final String CONTEXT_KEY_WALKED_FILES = "walker.files.count";
+    public static final String CONTEXT_KEY_WALKED_DIRECTORIES = "walker.directories.count";
+    public static final String CONTEXT_KEY_WALKED_ENTRIES_PER_SECOND = "walker.entries-per-second";
+    private static final String METRIC_WALKER_ENTRIES = "europea.indexer.walker.entries";
+    private static final String METRIC_WALKER_DURATION = "europea.indexer.walker.duration";
 
-    private final static ConcurrentLinkedQueue<File> directories = new ConcurrentLinkedQueue<>();
     private final FileUtil fileUtil;
+    private final MeterRegistry meterRegistry;
     @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
     private String ebookDirectory;
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.skip-file-extensions}")
@@ -31,64 +40,72 @@ public class FileIndexerReader implements ItemStreamReader<File> {
     private List<String> fileExtensionsToAllow;
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.ignore-empty-directories}")
     private boolean isIgnoreEmptyDirectoriesEnabled;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.walker-parallelism}")
+    private Integer walkerParallelism;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.walker-queue-capacity}")
+    private Integer walkerQueueCapacity;
+    @Value("#{jobParameters['" + JobConst.JOB_PARAMETER_DIRECTORIES + "']}")
+    private String directories;
 
-    private static Comparator<File> sortByIsDirectoryAndName() {
-        return (Comparator
-                .comparing(File::isDirectory)
-                .reversed()
-                .thenComparing(File::getName)
-                .reversed());
-    }
+    private FileSystemWalker fileSystemWalker;
 
     @Override
     public File read() {
-        return Optional.ofNullable(directories.poll())
-                .orElse(null);
+        try {
+            return this.fileSystemWalker.next();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ItemStreamException("interrupted while waiting for the file system walker", e);
+        }
     }
 
-    private boolean checkIsValid(File file) {
-        log.debug("processed: " + file.getAbsolutePath() + "/" + file.getName());
-        if (isIgnoreEmptyDirectoriesEnabled && file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (files == null || files.length == 0) {
-                log.debug("directory empty: ignoring it!");
-                return false;
-            }
+    private boolean isFileAccepted(Path path) {
+        String extension = fileUtil.getExtension(path.getFileName().toString()).toLowerCase();
+        if (!fileExtensionsToIgnore.isEmpty() && fileExtensionsToIgnore.contains(extension)) {
+            log.debug("ignoring file: {}", path);
+            return false;
+        }
+        if (!fileExtensionsToAllow.isEmpty() && !fileExtensionsToAllow.contains(extension)) {
+            return false;
         }
+        log.debug("the following file will be processed: {}", path);
         return true;
     }
 
-    private void loadDirectoryIfNecessary(File file) {
-        if (file.isDirectory()) {
-            log.debug("processing directory {}", file.getAbsolutePath());
-            List<File> files = Arrays.stream(Objects.requireNonNull(file.listFiles()))
-                    .peek(fileItem -> {
-                        if (!fileExtensionsToIgnore.isEmpty() && fileItem.isFile() && fileExtensionsToIgnore.contains(fileUtil.getExtension(fileItem.getName()).toLowerCase())) {
-                            log.debug("ignoring file: {}", fileItem.getAbsolutePath() + "/" + fileItem.getName());
-                        }
-                    })
-                    .peek(fileItem -> {
-                        if (!fileExtensionsToAllow.isEmpty() && fileItem.isFile() && fileExtensionsToAllow.contains(fileUtil.getExtension(file.getName()).toLowerCase())) {
-                            log.debug("the following file will be processed: {}", fileItem.getAbsolutePath() + "/" + fileItem.getName());
-                        }
-                    })
-                    .filter(fileItem -> fileExtensionsToIgnore.isEmpty() || fileItem.isDirectory() || !fileExtensionsToIgnore.contains(fileUtil.getExtension(fileItem.getName()).toLowerCase()))
-                    .filter(fileItem -> fileExtensionsToAllow.isEmpty() || fileItem.isDirectory() || fileExtensionsToAllow.contains(fileUtil.getExtension(fileItem.getName()).toLowerCase()))
-                    .filter(this::checkIsValid)
-                    .sorted(sortByIsDirectoryAndName())
-                    .toList();
-            directories.addAll(files);
-            files.forEach(this::loadDirectoryIfNecessary);
-            log.debug("added {} children", files.size());
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        log.debug("ebooks directory: " + ebookDirectory);
+        this.fileSystemWalker = new FileSystemWalker(walkerParallelism, walkerQueueCapacity, isIgnoreEmptyDirectoriesEnabled, this::isFileAccepted);
+        if (StringUtil.isNotEmpty(directories)) {
+            log.info("indexing only the directories: {}", directories);
+            this.fileSystemWalker.start(Path.of(ebookDirectory), Arrays.stream(directories.split(JobConst.JOB_PARAMETER_DIRECTORIES_SEPARATOR)).map(Path::of).toList());
+            return;
         }
+        this.fileSystemWalker.start(Path.of(ebookDirectory));
     }
 
     @Override
-    public void open(ExecutionContext executionContext) throws ItemStreamException {
-        log.debug("ebooks directory: " + ebookDirectory);
-        File file = Path.of(ebookDirectory).toFile();
-        loadDirectoryIfNecessary(Objects.requireNonNull(file));
-        directories.add(file);
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(CONTEXT_KEY_WALKED_FILES, this.fileSystemWalker.getFilesCount());
+        executionContext.putLong(CONTEXT_KEY_WALKED_DIRECTORIES, this.fileSystemWalker.getDirectoriesCount());
+        executionContext.putDouble(CONTEXT_KEY_WALKED_ENTRIES_PER_SECOND, this.fileSystemWalker.getEntriesPerSecond());
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (this.fileSystemWalker == null) {
+            return;
+        }
+        log.info("file system walker: {} directories and {} files walked in {} ms ({} entries/s)",
+                this.fileSystemWalker.getDirectoriesCount(),
+                this.fileSystemWalker.getFilesCount(),
+                this.fileSystemWalker.getElapsedMillis(),
+                String.format("%.1f", this.fileSystemWalker.getEntriesPerSecond()));
+        this.meterRegistry.counter(METRIC_WALKER_ENTRIES, "type", "file").increment(this.fileSystemWalker.getFilesCount());
+        this.meterRegistry.counter(METRIC_WALKER_ENTRIES, "type", "directory").increment(this.fileSystemWalker.getDirectoriesCount());
+        this.meterRegistry.timer(METRIC_WALKER_DURATION).record(this.fileSystemWalker.getElapsedMillis(), TimeUnit.MILLISECONDS);
+        this.fileSystemWalker.close();
+        this.fileSystemWalker = null;
     }
 
 }
@@ -0,0 +1,37 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fileindexer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileIndexerStepListener implements StepExecutionListener {
+    public static final String CONTEXT_KEY_NEW_FILES = "indexer.files.new";
+    public static final String CONTEXT_KEY_MODIFIED_FILES = "indexer.files.modified";
+    public static final String CONTEXT_KEY_UNCHANGED_FILES = "indexer.files.unchanged";
+
+    private final FileSystemItemSnapshot fileSystemItemSnapshot;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.fileSystemItemSnapshot.load();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        long newCount = this.fileSystemItemSnapshot.getNewCount().sum();
+        long modifiedCount = this.fileSystemItemSnapshot.getModifiedCount().sum();
+        long unchangedCount = this.fileSystemItemSnapshot.getUnchangedCount().sum();
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_NEW_FILES, newCount);
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_MODIFIED_FILES, modifiedCount);
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_UNCHANGED_FILES, unchangedCount);
+        log.info("indexed files: {} new, {} modified, {} unchanged", newCount, modifiedCount, unchangedCount);
+        this.fileSystemItemSnapshot.clear();
+        return stepExecution.getExitStatus();
+    }
+}
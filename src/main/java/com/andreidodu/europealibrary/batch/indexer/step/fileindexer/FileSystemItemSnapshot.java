@@ -0,0 +1,96 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fileindexer;
+
+import com.andreidodu.europealibrary.batch.indexer.enums.JobStepEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of the {@code (base_path, name) -> (id, size, mtime)} state left by the last indexer run.
+ * It is loaded once when the indexer step starts and then only read, so the processor can decide
+ * whether a file changed without querying the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileSystemItemSnapshot {
+    private static final String SNAPSHOT_QUERY = "select id, base_path, name, size, file_update_date from el_file_system_item where job_step in (?, ?)";
+    private static final char PATH_SEPARATOR = '/';
+    // rows written before the timestamp fix of the bulk writer were stored close to 1970-01-01
+    private static final LocalDateTime UNRELIABLE_MODIFICATION_DATE_LIMIT = LocalDateTime.of(1971, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Map<String, Fingerprint> fingerprintMap = Collections.emptyMap();
+    @Getter
+    private final LongAdder newCount = new LongAdder();
+    @Getter
+    private final LongAdder modifiedCount = new LongAdder();
+    @Getter
+    private final LongAdder unchangedCount = new LongAdder();
+
+    public void load() {
+        long start = System.currentTimeMillis();
+        Map<String, Fingerprint> map = new HashMap<>();
+        this.jdbcTemplate.query(SNAPSHOT_QUERY, (RowCallbackHandler) rs -> {
+            Timestamp fileUpdateDate = rs.getTimestamp(5);
+            map.putIfAbsent(buildKey(rs.getString(2), rs.getString(3)),
+                    new Fingerprint(rs.getLong(1), rs.getLong(4), toSeconds(fileUpdateDate == null ? null : fileUpdateDate.toLocalDateTime())));
+        }, JobStepEnum.INSERTED.getStepNumber(), JobStepEnum.READY.getStepNumber());
+        this.fingerprintMap = map;
+        this.newCount.reset();
+        this.modifiedCount.reset();
+        this.unchangedCount.reset();
+        log.info("loaded snapshot of {} file system items in {} ms", map.size(), System.currentTimeMillis() - start);
+    }
+
+    public void clear() {
+        this.fingerprintMap = Collections.emptyMap();
+    }
+
+    public Optional<Fingerprint> find(String basePath, String name) {
+        return Optional.ofNullable(this.fingerprintMap.get(buildKey(basePath, name)));
+    }
+
+    public static long toSeconds(LocalDateTime localDateTime) {
+        if (localDateTime == null || localDateTime.isBefore(UNRELIABLE_MODIFICATION_DATE_LIMIT)) {
+            return Fingerprint.UNKNOWN_MODIFICATION_DATE;
+        }
+        return localDateTime.truncatedTo(ChronoUnit.SECONDS).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static String buildKey(String basePath, String name) {
+        return basePath + PATH_SEPARATOR + name;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Fingerprint {
+        public static final long UNKNOWN_MODIFICATION_DATE = Long.MIN_VALUE;
+
+        private final long id;
+        private final long size;
+        private final long modificationDateSeconds;
+
+        public boolean isModificationDateKnown() {
+            return this.modificationDateSeconds != UNKNOWN_MODIFICATION_DATE;
+        }
+
+        public boolean isUnchanged(long size, long modificationDateSeconds) {
+            return this.size == size && this.modificationDateSeconds == modificationDateSeconds;
+        }
+    }
+}
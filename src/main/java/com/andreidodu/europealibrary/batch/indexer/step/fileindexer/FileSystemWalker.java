@@ -0,0 +1,205 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fileindexer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Walks a directory tree with NIO {@link DirectoryStream}s, listing directories in parallel
+ * and publishing every accepted entry to a bounded queue. Producers block when the queue is full,
+ * so the consumer never holds more than {@code queueCapacity} entries in memory.
+ */
+@Slf4j
+public class FileSystemWalker implements AutoCloseable {
+    private static final long POLL_TIMEOUT_MILLISECONDS = 200;
+
+    private final BlockingQueue<File> queue;
+    private final ExecutorService executorService;
+    private final Predicate<Path> entryFilter;
+    private final boolean ignoreEmptyDirectories;
+    private final AtomicInteger pendingDirectories = new AtomicInteger();
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final AtomicLong filesCount = new AtomicLong();
+    private final AtomicLong directoriesCount = new AtomicLong();
+    private long startTimeMillis;
+    private long endTimeMillis;
+
+    public FileSystemWalker(int parallelism, int queueCapacity, boolean ignoreEmptyDirectories, Predicate<Path> entryFilter) {
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.ignoreEmptyDirectories = ignoreEmptyDirectories;
+        this.entryFilter = entryFilter;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "fs-walker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(Path root) {
+        start(root, List.of(root));
+    }
+
+    /**
+     * Walks only the given directories of the tree starting at {@code root}. Their ancestors up to {@code root}
+     * are published too (without being listed), so that parent associations can still be resolved.
+     */
+    public void start(Path root, Collection<Path> directories) {
+        this.startTimeMillis = System.currentTimeMillis();
+        // guards against the walk being marked as finished while the directories are still being submitted
+        this.pendingDirectories.incrementAndGet();
+        Set<Path> publishedDirectories = new HashSet<>();
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory) || !directory.startsWith(root)) {
+                log.warn("the path {} is not a directory of {}, nothing to walk", directory, root);
+                continue;
+            }
+            for (Path ancestor = root; !ancestor.equals(directory); ancestor = ancestor.resolve(directory.getName(ancestor.getNameCount()))) {
+                publishDirectory(ancestor, publishedDirectories);
+            }
+            publishDirectory(directory, publishedDirectories);
+            submitDirectory(directory);
+        }
+        completeDirectory();
+    }
+
+    private void publishDirectory(Path directory, Set<Path> publishedDirectories) {
+        if (publishedDirectories.add(directory)) {
+            publish(directory.toFile());
+            this.directoriesCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the next walked entry, or null when the whole tree was walked and consumed
+     */
+    public File next() throws InterruptedException {
+        while (true) {
+            File file = this.queue.poll(POLL_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS);
+            if (file != null) {
+                return file;
+            }
+            if (this.cancelled.get() || (this.finished.get() && this.queue.isEmpty())) {
+                return null;
+            }
+        }
+    }
+
+    private void submitDirectory(Path directory) {
+        this.pendingDirectories.incrementAndGet();
+        try {
+            this.executorService.execute(() -> walkDirectory(directory));
+        } catch (RejectedExecutionException e) {
+            log.debug("walker stopped, directory {} will not be walked", directory);
+            completeDirectory();
+        }
+    }
+
+    private void walkDirectory(Path directory) {
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path entry : directoryStream) {
+                if (this.cancelled.get()) {
+                    return;
+                }
+                visitEntry(entry);
+            }
+        } catch (IOException e) {
+            log.error("failed to list directory {}: {}", directory, e.getMessage());
+        } finally {
+            completeDirectory();
+        }
+    }
+
+    private void visitEntry(Path entry) {
+        if (Files.isDirectory(entry)) {
+            if (this.ignoreEmptyDirectories && isEmptyDirectory(entry)) {
+                log.debug("directory empty: ignoring it! {}", entry);
+                return;
+            }
+            publish(entry.toFile());
+            this.directoriesCount.incrementAndGet();
+            submitDirectory(entry);
+            return;
+        }
+        if (this.entryFilter.test(entry)) {
+            publish(entry.toFile());
+            this.filesCount.incrementAndGet();
+        }
+    }
+
+    private void publish(File file) {
+        try {
+            this.queue.put(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.cancelled.set(true);
+        }
+    }
+
+    private boolean isEmptyDirectory(Path directory) {
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            return !directoryStream.iterator().hasNext();
+        } catch (IOException e) {
+            log.debug("unable to check if directory {} is empty: {}", directory, e.getMessage());
+            return true;
+        }
+    }
+
+    private void completeDirectory() {
+        if (this.pendingDirectories.decrementAndGet() == 0) {
+            markFinished();
+        }
+    }
+
+    private void markFinished() {
+        this.endTimeMillis = System.currentTimeMillis();
+        this.finished.set(true);
+        this.executorService.shutdown();
+    }
+
+    public boolean isFinished() {
+        return this.finished.get();
+    }
+
+    public long getFilesCount() {
+        return this.filesCount.get();
+    }
+
+    public long getDirectoriesCount() {
+        return this.directoriesCount.get();
+    }
+
+    public long getElapsedMillis() {
+        long end = this.finished.get() ? this.endTimeMillis : System.currentTimeMillis();
+        return Math.max(end - this.startTimeMillis, 0);
+    }
+
+    public double getEntriesPerSecond() {
+        long elapsedMillis = getElapsedMillis();
+        if (elapsedMillis == 0) {
+            return 0;
+        }
+        return (getFilesCount() + getDirectoriesCount()) * 1000d / elapsedMillis;
+    }
+
+    @Override
+    public void close() {
+        this.cancelled.set(true);
+        this.executorService.shutdownNow();
+        this.queue.clear();
+    }
+}
@@ -1,95 +1,134 @@
 package com.andreidodu.europealibrary.batch.indexer.step.fileindexer;
 
+import com.andreidodu.europealibrary.batch.indexer.enums.RecordStatusEnum;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.time.ZoneOffset;
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * Loads file system items through the PostgreSQL COPY protocol: the chunk is streamed into the unlogged
+ * staging table and then merged into el_file_system_item with set-based statements.
+ * The connection is the one bound to the chunk transaction, so the whole chunk is committed or rolled back together.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JdbcWriter {
+    private static final String COPY_TEMPLATE = "COPY el_file_system_item_stage (load_id, id, name, base_path, sha256, size, extension, file_create_date, file_update_date, is_directory, parent_id, job_step, file_meta_info_id, job_status, record_status, file_key, partial_hash, touch_only) FROM STDIN WITH (FORMAT csv)";
+    // a modified file keeps its meta-info (and its curated data); its hashes are dropped only when its size changed
+    private static final String MERGE_INSERT_TEMPLATE = "insert into el_file_system_item (id, name, base_path, sha256, size, extension, file_create_date, file_update_date, is_directory, parent_id, job_step, file_meta_info_id, job_status, record_status, version, file_key, partial_hash) " +
+            "select nextval('el_file_system_item_seq'), s.name, s.base_path, s.sha256, s.size, s.extension, s.file_create_date, s.file_update_date, s.is_directory, s.parent_id, s.job_step, s.file_meta_info_id, s.job_status, s.record_status, 0, s.file_key, s.partial_hash " +
+            "from el_file_system_item_stage s where s.load_id = ? and s.id is null " +
+            "on conflict (name, base_path, job_step) do update set sha256 = case when excluded.sha256 is null and excluded.size = el_file_system_item.size then el_file_system_item.sha256 else excluded.sha256 end, size = excluded.size, extension = excluded.extension, file_create_date = excluded.file_create_date, file_update_date = excluded.file_update_date, is_directory = excluded.is_directory, parent_id = excluded.parent_id, file_meta_info_id = coalesce(excluded.file_meta_info_id, el_file_system_item.file_meta_info_id), job_status = excluded.job_status, record_status = excluded.record_status, version = 0, file_key = excluded.file_key, partial_hash = case when excluded.partial_hash is null and excluded.size = el_file_system_item.size then el_file_system_item.partial_hash else excluded.partial_hash end";
+    // rows whose id has been preallocated (single pass mode) and which are not stored yet
+    private static final String MERGE_INSERT_PREALLOCATED_TEMPLATE = "insert into el_file_system_item (id, name, base_path, sha256, size, extension, file_create_date, file_update_date, is_directory, parent_id, job_step, file_meta_info_id, job_status, record_status, version, file_key, partial_hash) " +
+            "select s.id, s.name, s.base_path, s.sha256, s.size, s.extension, s.file_create_date, s.file_update_date, s.is_directory, s.parent_id, s.job_step, s.file_meta_info_id, s.job_status, s.record_status, 0, s.file_key, s.partial_hash " +
+            "from el_file_system_item_stage s where s.load_id = ? and s.id is not null and s.touch_only = false and not exists (select 1 from el_file_system_item f where f.id = s.id)";
+    private static final String MERGE_UPDATE_TEMPLATE = "update el_file_system_item f set name = s.name, base_path = s.base_path, sha256 = case when s.sha256 is null and s.size = f.size then f.sha256 else s.sha256 end, size = s.size, extension = s.extension, file_create_date = s.file_create_date, file_update_date = s.file_update_date, is_directory = s.is_directory, parent_id = s.parent_id, job_step = s.job_step, file_meta_info_id = coalesce(s.file_meta_info_id, f.file_meta_info_id), job_status = s.job_status, record_status = s.record_status, version = 0, file_key = s.file_key, partial_hash = case when s.partial_hash is null and s.size = f.size then f.partial_hash else s.partial_hash end " +
+            "from el_file_system_item_stage s where s.load_id = ? and s.id = f.id and s.touch_only = false";
+    private static final String MERGE_TOUCH_TEMPLATE = "update el_file_system_item f set record_status = s.record_status, file_key = s.file_key " +
+            "from el_file_system_item_stage s where s.load_id = ? and s.id = f.id and s.touch_only = true";
+    private static final String CLEAN_STAGE_TEMPLATE = "delete from el_file_system_item_stage where load_id = ?";
+    private static final char CSV_SEPARATOR = ',';
+    private static final char CSV_QUOTE = '"';
 
-    private static final String BULK_INSERT_TEMPLATE = "insert into el_file_system_item (name, base_path, sha256, size, extension, file_create_date, file_update_date, is_directory, parent_id, job_step, file_meta_info_id, job_status, record_status, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
-    private static final String BULK_UPDATE_TEMPLATE = "update el_file_system_item set name=?, base_path=?, sha256=?, size=?, extension=?, file_create_date=?, file_update_date=?, is_directory=?, parent_id=?, job_step=?, file_meta_info_id=?, job_status=?, record_status=?, version=? where id=?;";
     private final DataSource dataSource;
 
     public void bulkInsertOrUpdate(List<FileSystemItem> fileSystemItemList) throws SQLException {
         if (fileSystemItemList.isEmpty()) {
             return;
         }
-        List<FileSystemItem> inserts = fileSystemItemList.stream().filter(item -> item.getId() == null).toList();
-        bulkInsertOrUpdate(inserts, true);
-        List<FileSystemItem> updates = fileSystemItemList.stream().filter(item -> item.getId() != null).toList();
-        bulkInsertOrUpdate(updates, false);
+        String loadId = UUID.randomUUID().toString();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            long copied = copyToStage(connection, loadId, fileSystemItemList);
+            int inserted = executeUpdate(connection, MERGE_INSERT_TEMPLATE, loadId);
+            int updated = executeUpdate(connection, MERGE_UPDATE_TEMPLATE, loadId);
+            inserted += executeUpdate(connection, MERGE_INSERT_PREALLOCATED_TEMPLATE, loadId);
+            int touched = executeUpdate(connection, MERGE_TOUCH_TEMPLATE, loadId);
+            executeUpdate(connection, CLEAN_STAGE_TEMPLATE, loadId);
+            log.debug("copied {} file system items: {} inserted, {} updated, {} unchanged", copied, inserted, updated, touched);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
     }
 
-    private void bulkInsertOrUpdate(List<FileSystemItem> items, boolean isInsert) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        connection.setAutoCommit(false);
-        try (PreparedStatement preparedStatement = connection.prepareStatement(isInsert ? BULK_INSERT_TEMPLATE : BULK_UPDATE_TEMPLATE)) {
-
-            for (FileSystemItem item : items) {
-                preparedStatement.setString(1, item.getName());
-                preparedStatement.setString(2, item.getBasePath());
-                preparedStatement.setString(3, item.getSha256());
-                preparedStatement.setLong(4, item.getSize());
-                preparedStatement.setString(5, item.getExtension());
-
-                if (item.getFileCreateDate() != null) {
-                    preparedStatement.setTimestamp(6, new java.sql.Timestamp(item.getFileCreateDate().toEpochSecond(ZoneOffset.UTC)));
-                } else {
-                    preparedStatement.setNull(6, java.sql.Types.NULL);
-                }
-                if (item.getFileUpdateDate() != null) {
-                    preparedStatement.setTimestamp(7, new java.sql.Timestamp(item.getFileUpdateDate().toEpochSecond(ZoneOffset.UTC)));
-                } else {
-                    preparedStatement.setNull(7, java.sql.Types.NULL);
-                }
-                preparedStatement.setBoolean(8, item.getIsDirectory());
-
-                if (item.getParent() != null) {
-                    preparedStatement.setLong(9, item.getParentId());
-                } else {
-                    preparedStatement.setNull(9, java.sql.Types.NULL);
-                }
-                preparedStatement.setInt(10, item.getJobStep());
-
-                if (item.getFileMetaInfoId() != null) {
-                    preparedStatement.setLong(11, item.getFileMetaInfoId());
-                } else {
-                    preparedStatement.setNull(11, java.sql.Types.NULL);
-                }
-
-                if (item.getJobStatus() != null) {
-                    preparedStatement.setInt(12, item.getJobStatus());
-                } else {
-                    preparedStatement.setNull(12, java.sql.Types.NULL);
-                }
+    private long copyToStage(Connection connection, String loadId, List<FileSystemItem> items) throws SQLException {
+        StringBuilder csv = new StringBuilder(items.size() * 256);
+        for (FileSystemItem item : items) {
+            appendRow(csv, loadId, item);
+        }
+        try {
+            return connection.unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyIn(COPY_TEMPLATE, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("unable to copy the file system items to the staging table", e);
+        }
+    }
 
-                if (item.getRecordStatus() != null) {
-                    preparedStatement.setInt(13, item.getRecordStatus());
-                } else {
-                    preparedStatement.setNull(13, java.sql.Types.NULL);
-                }
-                preparedStatement.setInt(14, 0);
+    private void appendRow(StringBuilder csv, String loadId, FileSystemItem item) {
+        boolean isTouchOnly = item.getId() != null && isUnchanged(item);
+        appendValue(csv, loadId).append(CSV_SEPARATOR);
+        appendValue(csv, item.getId()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getName()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getBasePath()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getSha256()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getSize()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getExtension()).append(CSV_SEPARATOR);
+        // local date-times are written as they are, with their milliseconds, like hibernate does
+        appendValue(csv, item.getFileCreateDate()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getFileUpdateDate()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getIsDirectory()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getParentId()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getJobStep()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getFileMetaInfoId()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getJobStatus()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getRecordStatus()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getFileKey()).append(CSV_SEPARATOR);
+        appendValue(csv, item.getPartialHash()).append(CSV_SEPARATOR);
+        appendValue(csv, isTouchOnly).append('\n');
+    }
 
-                if (!isInsert) {
-                    preparedStatement.setLong(15, item.getId());
+    private static StringBuilder appendValue(StringBuilder csv, Object value) {
+        if (value == null) {
+            // an unquoted empty value is NULL for COPY in csv format
+            return csv;
+        }
+        if (value instanceof String string) {
+            csv.append(CSV_QUOTE);
+            for (int i = 0; i < string.length(); i++) {
+                char character = string.charAt(i);
+                if (character == CSV_QUOTE) {
+                    csv.append(CSV_QUOTE);
                 }
-                preparedStatement.addBatch();
-                preparedStatement.clearParameters();
+                csv.append(character);
             }
-            preparedStatement.executeBatch();
-            connection.commit();
-            connection.close();
+            return csv.append(CSV_QUOTE);
         }
+        return csv.append(value);
+    }
+
+    private static int executeUpdate(Connection connection, String sql, String loadId) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, loadId);
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    private static boolean isUnchanged(FileSystemItem item) {
+        return Integer.valueOf(RecordStatusEnum.UNCHANGED.getStatus()).equals(item.getRecordStatus());
     }
 }
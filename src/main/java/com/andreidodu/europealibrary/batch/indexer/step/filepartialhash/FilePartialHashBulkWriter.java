@@ -0,0 +1,32 @@
+package com.andreidodu.europealibrary.batch.indexer.step.filepartialhash;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.JdbcBulkExecutor;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilePartialHashBulkWriter implements ItemWriter<FileSystemItem> {
+    private static final String STATEMENT_NAME = "file-system-item-partial-hash-update";
+    private static final String BULK_UPDATE_PREFIX = "update el_file_system_item f set partial_hash = v.partial_hash from ( values ";
+    private static final String BULK_UPDATE_ROW = "(?::bigint, ?::varchar)";
+    private static final String BULK_UPDATE_SUFFIX = " ) as v(id, partial_hash) where f.id = v.id";
+    private final JdbcBulkExecutor jdbcBulkExecutor;
+
+    @Override
+    public void write(Chunk<? extends FileSystemItem> chunk) throws SQLException {
+        this.jdbcBulkExecutor.execute(STATEMENT_NAME, BULK_UPDATE_PREFIX, BULK_UPDATE_ROW, BULK_UPDATE_SUFFIX, 2, chunk.getItems(),
+                (preparedStatement, index, item) -> {
+                    preparedStatement.setLong(index, item.getId());
+                    preparedStatement.setString(index + 1, item.getPartialHash());
+                });
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.andreidodu.europealibrary.batch.indexer.step.filepartialhash;
+
+import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileHashEngine;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilePartialHashProcessor implements ItemProcessor<FileSystemItem, FileSystemItem> {
+    private final FileHashEngine fileHashEngine;
+
+    @Override
+    public FileSystemItem process(FileSystemItem fileSystemItem) {
+        return this.fileHashEngine.fingerprint(Path.of(fileSystemItem.getBasePath(), fileSystemItem.getName()))
+                .map(partialHash -> {
+                    fileSystemItem.setPartialHash(partialHash);
+                    return fileSystemItem;
+                })
+                .orElse(null);
+    }
+}
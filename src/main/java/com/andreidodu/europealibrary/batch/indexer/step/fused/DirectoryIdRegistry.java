@@ -0,0 +1,49 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fused;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.FileSystemItemIdAllocator;
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileSystemItemSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives the id of a directory whether or not it has already been written: indexed directories keep the id
+ * of the snapshot, new directories get a preallocated id the first time that they (or one of their children) are met.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DirectoryIdRegistry {
+    private final FileSystemItemSnapshot fileSystemItemSnapshot;
+    private final FileSystemItemIdAllocator fileSystemItemIdAllocator;
+    @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
+    private String ebookDirectory;
+
+    private final Map<String, Long> newDirectoryIdMap = new ConcurrentHashMap<>();
+
+    /**
+     * @return the id of the directory or null if the directory is outside of the e-books directory
+     */
+    public Long getOrAllocateId(File directory) {
+        if (directory == null || !directory.toPath().toAbsolutePath().startsWith(Path.of(this.ebookDirectory).toAbsolutePath())) {
+            return null;
+        }
+        return this.fileSystemItemSnapshot.find(directory.getParentFile().getAbsolutePath(), directory.getName())
+                .map(FileSystemItemSnapshot.Fingerprint::getId)
+                .orElseGet(() -> this.newDirectoryIdMap.computeIfAbsent(directory.getAbsolutePath(), path -> this.fileSystemItemIdAllocator.next()));
+    }
+
+    public int getNewDirectoriesCount() {
+        return this.newDirectoryIdMap.size();
+    }
+
+    public void clear() {
+        this.newDirectoryIdMap.clear();
+    }
+}
@@ -0,0 +1,16 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fused;
+
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A file of the single pass indexer with the meta-info extracted for it, if any: both are written by the {@link FusedIndexerWriter}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FusedIndexerItem {
+    private final FileSystemItem fileSystemItem;
+    private final ExtractedMetaInfoDTO extractedMetaInfo;
+}
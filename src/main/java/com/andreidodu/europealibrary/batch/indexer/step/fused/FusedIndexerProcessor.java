@@ -0,0 +1,83 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fused;
+
+import com.andreidodu.europealibrary.batch.indexer.enums.RecordStatusEnum;
+import com.andreidodu.europealibrary.batch.indexer.step.common.FileSystemItemIdAllocator;
+import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileHashEngine;
+import com.andreidodu.europealibrary.batch.indexer.step.filehash.FileHashReuseIndex;
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.FileIndexerProcessor;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoRetriever;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import com.andreidodu.europealibrary.util.StringUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Performs in a single pass the work of the indexer, hash, parent associator and meta-info steps:
+ * the file is hashed and its meta-info extracted while it is still in the page cache,
+ * and the resulting record is written once, with its meta-info, by the {@link FusedIndexerWriter}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FusedIndexerProcessor implements ItemProcessor<File, FusedIndexerItem> {
+    private final FileIndexerProcessor fileIndexerProcessor;
+    private final DirectoryIdRegistry directoryIdRegistry;
+    private final FileSystemItemIdAllocator fileSystemItemIdAllocator;
+    private final FileHashEngine fileHashEngine;
+    private final FileHashReuseIndex fileHashReuseIndex;
+    private final MetaInfoRetriever metaInfoRetriever;
+
+    @Override
+    public FusedIndexerItem process(final File file) {
+        FileSystemItem fileSystemItem = this.fileIndexerProcessor.process(file);
+        if (fileSystemItem == null) {
+            return null;
+        }
+        if (isUnchanged(fileSystemItem)) {
+            return new FusedIndexerItem(fileSystemItem, null);
+        }
+        assignId(file, fileSystemItem);
+        fileSystemItem.setParentId(this.directoryIdRegistry.getOrAllocateId(file.getParentFile()));
+        if (BooleanUtils.isTrue(fileSystemItem.getIsDirectory())) {
+            return new FusedIndexerItem(fileSystemItem, null);
+        }
+        if (StringUtil.isEmpty(fileSystemItem.getSha256())) {
+            calculateSha256(fileSystemItem);
+        }
+        ExtractedMetaInfoDTO extractedMetaInfo = null;
+        if (fileSystemItem.getFileMetaInfoId() == null) {
+            // persisted by the chunk writer, in the chunk transaction
+            extractedMetaInfo = this.metaInfoRetriever.extractMetaInfoIfNecessary(fileSystemItem).orElse(null);
+        }
+        return new FusedIndexerItem(fileSystemItem, extractedMetaInfo);
+    }
+
+    private void assignId(File file, FileSystemItem fileSystemItem) {
+        if (fileSystemItem.getId() != null) {
+            return;
+        }
+        if (BooleanUtils.isTrue(fileSystemItem.getIsDirectory())) {
+            // its children may have already been given its id
+            fileSystemItem.setId(this.directoryIdRegistry.getOrAllocateId(file));
+            return;
+        }
+        fileSystemItem.setId(this.fileSystemItemIdAllocator.next());
+    }
+
+    private void calculateSha256(FileSystemItem fileSystemItem) {
+        this.fileHashReuseIndex.find(fileSystemItem)
+                .or(() -> this.fileHashEngine.sha256(Path.of(fileSystemItem.getBasePath(), fileSystemItem.getName())))
+                .ifPresent(fileSystemItem::setSha256);
+    }
+
+    private static boolean isUnchanged(FileSystemItem fileSystemItem) {
+        return Integer.valueOf(RecordStatusEnum.UNCHANGED.getStatus()).equals(fileSystemItem.getRecordStatus());
+    }
+}
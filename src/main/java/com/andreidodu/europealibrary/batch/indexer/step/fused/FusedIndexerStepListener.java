@@ -0,0 +1,30 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fused;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FusedIndexerStepListener implements StepExecutionListener {
+    public static final String CONTEXT_KEY_NEW_DIRECTORIES = "fused.directories.new";
+
+    private final DirectoryIdRegistry directoryIdRegistry;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.directoryIdRegistry.clear();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putInt(CONTEXT_KEY_NEW_DIRECTORIES, this.directoryIdRegistry.getNewDirectoriesCount());
+        log.info("single pass indexing completed: {} new directories", this.directoryIdRegistry.getNewDirectoriesCount());
+        this.directoryIdRegistry.clear();
+        return stepExecution.getExitStatus();
+    }
+}
@@ -0,0 +1,50 @@
+package com.andreidodu.europealibrary.batch.indexer.step.fused;
+
+import com.andreidodu.europealibrary.batch.indexer.step.fileindexer.JdbcWriter;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoChunkPersister;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes a chunk of the single pass indexer in the chunk transaction: first the meta-info extracted for the chunk,
+ * which assigns the meta-info ids, and then the files, already linked to it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FusedIndexerWriter implements ItemWriter<FusedIndexerItem> {
+    private final MetaInfoChunkPersister metaInfoChunkPersister;
+    private final JdbcWriter jdbcWriter;
+
+    @Override
+    public void write(Chunk<? extends FusedIndexerItem> chunk) throws SQLException {
+        List<ExtractedMetaInfoDTO> extractedMetaInfoList = chunk.getItems()
+                .stream()
+                .map(FusedIndexerItem::getExtractedMetaInfo)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!extractedMetaInfoList.isEmpty()) {
+            this.metaInfoChunkPersister.persist(extractedMetaInfoList);
+        }
+        List<FileSystemItem> fileSystemItemList = new ArrayList<>(chunk.size());
+        for (FusedIndexerItem item : chunk.getItems()) {
+            FileSystemItem fileSystemItem = item.getFileSystemItem();
+            if (item.getExtractedMetaInfo() != null) {
+                fileSystemItem.setFileMetaInfoId(item.getExtractedMetaInfo().getFileMetaInfoId());
+            }
+            fileSystemItemList.add(fileSystemItem);
+        }
+        this.jdbcWriter.bulkInsertOrUpdate(fileSystemItemList);
+    }
+
+}
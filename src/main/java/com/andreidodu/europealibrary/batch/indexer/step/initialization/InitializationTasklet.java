@@ -2,7 +2,9 @@ package com.andreidodu.europealibrary.batch.indexer.step.initialization;
 
 import com.andreidodu.europealibrary.batch.indexer.util.TaskletUtil;
 import com.andreidodu.europealibrary.batch.indexer.constants.JobConst;
+import com.andreidodu.europealibrary.batch.indexer.enums.RecordStatusEnum;
 import com.andreidodu.europealibrary.service.ApplicationSettingsService;
+import com.andreidodu.europealibrary.util.StringUtil;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,8 +13,12 @@ import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 @Component
 @Transactional
@@ -20,6 +26,7 @@ import org.springframework.stereotype.Component;
 public class InitializationTasklet implements Tasklet {
     private final ApplicationSettingsService applicationSettingsService;
     private final TaskletUtil taskletUtil;
+    private final JdbcTemplate jdbcTemplate;
 
     @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
     private String ebooksDirectory;
@@ -33,9 +40,37 @@ public class InitializationTasklet implements Tasklet {
 
         backupFeaturedFileMetaInfoId(chunkContext);
 
+        excludeRecordsOutsideOfDirectories(chunkContext);
+
         return RepeatStatus.FINISHED;
     }
 
+    /**
+     * When the job is limited to some directories, the records outside of them are marked as unchanged,
+     * so that they will not be considered obsolete (and deleted) just because they were not walked.
+     */
+    private void excludeRecordsOutsideOfDirectories(ChunkContext chunkContext) {
+        Object directories = chunkContext.getStepContext().getJobParameters().get(JobConst.JOB_PARAMETER_DIRECTORIES);
+        if (directories == null || StringUtil.isEmpty(directories.toString())) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("update el_file_system_item set record_status = ? where record_status = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(RecordStatusEnum.UNCHANGED.getStatus());
+        parameters.add(RecordStatusEnum.ENABLED.getStatus());
+        for (String directory : directories.toString().split(JobConst.JOB_PARAMETER_DIRECTORIES_SEPARATOR)) {
+            sql.append(" and base_path <> ? and base_path not like ? escape '\\'");
+            parameters.add(directory);
+            parameters.add(escapeLikePattern(directory) + "/%");
+        }
+        int excluded = this.jdbcTemplate.update(sql.toString(), parameters.toArray());
+        log.info("{} records excluded from the indexing because outside of the directories [{}]", excluded, directories);
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     private void backupFeaturedFileMetaInfoId(ChunkContext chunkContext) {
         Long featuredFileMetaInfoId = this.applicationSettingsService.get().getFeaturedFileMetaInfoId();
         if (featuredFileMetaInfoId != null) {
@@ -0,0 +1,105 @@
+package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
+
+import com.andreidodu.europealibrary.util.IsbnUtil;
+import com.andreidodu.europealibrary.util.LongBloomFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The meta-info already stored for an ISBN, used to avoid duplicated meta-info without querying el_book_info for every book.
+ * <p>
+ * Every ISBN is kept as its ISBN-13, as a number: an ISBN-10 and the corresponding ISBN-13 are the same key.
+ * The index is loaded with a single query when the step starts and it is updated as the new meta-info are committed;
+ * a Bloom filter answers most of the lookups of new books without touching the map.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IsbnIndex {
+    private static final String INDEX_QUERY = "select isbn13, isbn10, file_meta_info_id from el_book_info where isbn13 is not null or isbn10 is not null order by id";
+    // room for the books indexed while the step runs
+    private static final int EXPECTED_KEYS_FACTOR = 2;
+    private static final int MIN_EXPECTED_KEYS = 10000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Map<Long, Long> fileMetaInfoIdMap = new ConcurrentHashMap<>();
+    private volatile LongBloomFilter bloomFilter = new LongBloomFilter(MIN_EXPECTED_KEYS, FALSE_POSITIVE_PROBABILITY);
+    private final LongAdder hitCount = new LongAdder();
+
+    public void load() {
+        Map<Long, Long> map = new ConcurrentHashMap<>();
+        this.jdbcTemplate.query(INDEX_QUERY, (RowCallbackHandler) rs -> {
+            long fileMetaInfoId = rs.getLong(3);
+            // the oldest meta-info wins
+            toKey(rs.getString(1)).ifPresent(key -> map.putIfAbsent(key, fileMetaInfoId));
+            toKey(rs.getString(2)).ifPresent(key -> map.putIfAbsent(key, fileMetaInfoId));
+        });
+        LongBloomFilter filter = new LongBloomFilter(Math.max(MIN_EXPECTED_KEYS, (long) map.size() * EXPECTED_KEYS_FACTOR), FALSE_POSITIVE_PROBABILITY);
+        map.keySet().forEach(filter::add);
+        this.bloomFilter = filter;
+        this.fileMetaInfoIdMap = map;
+        this.hitCount.reset();
+        log.info("loaded {} ISBNs", map.size());
+    }
+
+    public void clear() {
+        this.fileMetaInfoIdMap = new ConcurrentHashMap<>();
+        this.bloomFilter = new LongBloomFilter(MIN_EXPECTED_KEYS, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * @return the meta-info stored for the first ISBN of the list that is known
+     */
+    public Optional<Long> find(Collection<String> isbnList) {
+        for (String isbn : isbnList) {
+            Optional<Long> key = toKey(isbn);
+            if (key.isEmpty() || !this.bloomFilter.mightContain(key.get())) {
+                continue;
+            }
+            Long fileMetaInfoId = this.fileMetaInfoIdMap.get(key.get());
+            if (fileMetaInfoId != null) {
+                this.hitCount.increment();
+                return Optional.of(fileMetaInfoId);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * records the ISBNs of a committed meta-info; an ISBN already known keeps its meta-info
+     */
+    public void register(String isbn13, String isbn10, Long fileMetaInfoId) {
+        toKey(isbn13).ifPresent(key -> register(key, fileMetaInfoId));
+        toKey(isbn10).ifPresent(key -> register(key, fileMetaInfoId));
+    }
+
+    public int size() {
+        return this.fileMetaInfoIdMap.size();
+    }
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    private void register(long key, Long fileMetaInfoId) {
+        // the filter first: a reader that finds the key in the map must find it in the filter too
+        this.bloomFilter.add(key);
+        this.fileMetaInfoIdMap.putIfAbsent(key, fileMetaInfoId);
+    }
+
+    private static Optional<Long> toKey(String isbn) {
+        return Optional.ofNullable(IsbnUtil.toIsbn13(isbn))
+                .map(Long::parseLong);
+    }
+}
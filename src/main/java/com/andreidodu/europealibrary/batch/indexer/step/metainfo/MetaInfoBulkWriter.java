@@ -1,5 +1,6 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
 
+import com.andreidodu.europealibrary.batch.indexer.step.common.JdbcBulkExecutor;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,46 +8,43 @@ import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.stereotype.Component;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * Links the files to their meta-info; used by the external meta-info step, and by {@link MetaInfoChunkWriter} once the meta-info is persisted.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MetaInfoBulkWriter implements ItemWriter<FileSystemItem> {
-    private static final String BULK_UPDATE_TEMPLATE = "update el_file_system_item set file_meta_info_id=? where id=?;";
-    private final DataSource dataSource;
+    private static final String STATEMENT_NAME = "file-system-item-meta-info-update";
+    private static final String BULK_UPDATE_PREFIX = "update el_file_system_item f set file_meta_info_id = v.file_meta_info_id from ( values ";
+    private static final String BULK_UPDATE_ROW = "(?::bigint, ?::bigint)";
+    private static final String BULK_UPDATE_SUFFIX = " ) as v(id, file_meta_info_id) where f.id = v.id";
+    private final JdbcBulkExecutor jdbcBulkExecutor;
 
     @Override
     public void write(Chunk<? extends FileSystemItem> chunk) throws SQLException {
-        updateItems((List<FileSystemItem>) chunk.getItems());
+        link(chunk.getItems(), FileSystemItem::getId, FileSystemItem::getFileMetaInfoId);
     }
 
-    private void updateItems(List<FileSystemItem> items) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        connection.setAutoCommit(false);
-        try (PreparedStatement preparedStatement = connection.prepareStatement(BULK_UPDATE_TEMPLATE)) {
-
-            for (FileSystemItem item : items) {
-                if (item.getFileMetaInfoId() != null) {
-                    preparedStatement.setLong(1, item.getFileMetaInfoId());
-                } else {
-                    preparedStatement.setNull(1, Types.NULL);
-                }
-
-                preparedStatement.setLong(2, item.getId());
-
-                preparedStatement.addBatch();
-                preparedStatement.clearParameters();
-            }
-            preparedStatement.executeBatch();
-            connection.commit();
-            connection.close();
-        }
+    /**
+     * sets the file_meta_info_id of the files with a multi-row update
+     */
+    public <T> void link(List<? extends T> items, Function<T, Long> fileSystemItemIdGetter, Function<T, Long> fileMetaInfoIdGetter) throws SQLException {
+        this.jdbcBulkExecutor.execute(STATEMENT_NAME, BULK_UPDATE_PREFIX, BULK_UPDATE_ROW, BULK_UPDATE_SUFFIX, 2, items,
+                (preparedStatement, index, item) -> {
+                    preparedStatement.setLong(index, fileSystemItemIdGetter.apply(item));
+                    Long fileMetaInfoId = fileMetaInfoIdGetter.apply(item);
+                    if (fileMetaInfoId != null) {
+                        preparedStatement.setLong(index + 1, fileMetaInfoId);
+                    } else {
+                        preparedStatement.setNull(index + 1, Types.BIGINT);
+                    }
+                });
     }
 
 }
@@ -0,0 +1,167 @@
+package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.JdbcBulkExecutor;
+import com.andreidodu.europealibrary.batch.indexer.step.common.SequenceIdAllocator;
+import com.andreidodu.europealibrary.batch.indexer.step.common.StepUtil;
+import com.andreidodu.europealibrary.batch.indexer.step.common.TmpAssociationAccumulator;
+import com.andreidodu.europealibrary.constants.DataPropertiesConst;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import com.andreidodu.europealibrary.dto.PairDTO;
+import com.andreidodu.europealibrary.util.IsbnUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the meta-info extracted for a chunk of files with a few multi-row statements, in the chunk transaction:
+ * <ol>
+ *     <li>the missing el_file_meta_info and el_book_info ids are taken from the preallocated blocks of the sequences;</li>
+ *     <li>el_file_meta_info and el_book_info rows are upserted;</li>
+ *     <li>the tags are handed to the {@link TmpAssociationAccumulator}, written to el_tmp_association for the tag step when the step ends.</li>
+ * </ol>
+ * The items that only share an already stored meta-info write nothing here, and so do the new books
+ * with the ISBN of a book already written by the same chunk.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetaInfoChunkPersister {
+    private static final String NO_TITLE = "_NO_TITLE_";
+    private static final String FILE_META_INFO_STATEMENT_NAME = "file-meta-info-upsert";
+    private static final String FILE_META_INFO_UPSERT_PREFIX = "insert into el_file_meta_info (id, title, description, on_sale, hidden, version) values ";
+    private static final String FILE_META_INFO_UPSERT_ROW = "(?, ?, ?, false, false, 0)";
+    private static final String FILE_META_INFO_UPSERT_SUFFIX = " on conflict (id) do update set title = excluded.title, description = excluded.description, " +
+            "update_date = now(), version = coalesce(el_file_meta_info.version, 0) + 1";
+
+    private static final String BOOK_INFO_STATEMENT_NAME = "book-info-upsert";
+    private static final String BOOK_INFO_UPSERT_PREFIX = "insert into el_book_info (id, file_meta_info_id, image_url, authors, isbn10, isbn13, publisher, language, " +
+            "num_pages, published_date, file_extraction_status, is_corrupted, version) values ";
+    private static final String BOOK_INFO_UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String BOOK_INFO_UPSERT_SUFFIX = " on conflict (id) do update set image_url = excluded.image_url, authors = excluded.authors, " +
+            "isbn10 = excluded.isbn10, isbn13 = excluded.isbn13, publisher = excluded.publisher, language = excluded.language, num_pages = excluded.num_pages, " +
+            "published_date = excluded.published_date, file_extraction_status = excluded.file_extraction_status, is_corrupted = excluded.is_corrupted, " +
+            "update_date = now(), version = coalesce(el_book_info.version, 0) + 1";
+
+    private final SequenceIdAllocator sequenceIdAllocator;
+    private final JdbcBulkExecutor jdbcBulkExecutor;
+    private final StepUtil stepUtil;
+    private final IsbnIndex isbnIndex;
+    private final TmpAssociationAccumulator tmpAssociationAccumulator;
+    @Value("${com.andreidodu.europea-library.job.indexer.avoid-duplicate-meta-info}")
+    private boolean avoidDuplicateMetaInfo;
+
+    /**
+     * writes the items and assigns them the ids of the written rows
+     */
+    public void persist(List<? extends ExtractedMetaInfoDTO> items) throws SQLException {
+        List<ExtractedMetaInfoDTO> extractedItems = assignIdsAndLinkDuplicates(items);
+        if (extractedItems.isEmpty()) {
+            return;
+        }
+        this.jdbcBulkExecutor.execute(FILE_META_INFO_STATEMENT_NAME, FILE_META_INFO_UPSERT_PREFIX, FILE_META_INFO_UPSERT_ROW, FILE_META_INFO_UPSERT_SUFFIX, 3, extractedItems,
+                (preparedStatement, index, item) -> {
+                    preparedStatement.setLong(index, item.getFileMetaInfoId());
+                    // title is mandatory: a single file must not fail the whole chunk
+                    preparedStatement.setString(index + 1, item.getTitle() != null ? item.getTitle() : NO_TITLE);
+                    preparedStatement.setString(index + 2, item.getDescription());
+                });
+        this.jdbcBulkExecutor.execute(BOOK_INFO_STATEMENT_NAME, BOOK_INFO_UPSERT_PREFIX, BOOK_INFO_UPSERT_ROW, BOOK_INFO_UPSERT_SUFFIX, 12, extractedItems,
+                (preparedStatement, index, item) -> {
+                    preparedStatement.setLong(index, item.getBookInfoId());
+                    preparedStatement.setLong(index + 1, item.getFileMetaInfoId());
+                    preparedStatement.setString(index + 2, item.getImageUrl());
+                    preparedStatement.setString(index + 3, item.getAuthors());
+                    preparedStatement.setString(index + 4, item.getIsbn10());
+                    preparedStatement.setString(index + 5, item.getIsbn13());
+                    preparedStatement.setString(index + 6, item.getPublisher());
+                    preparedStatement.setString(index + 7, item.getLanguage());
+                    setInteger(preparedStatement, index + 8, item.getNumberOfPages());
+                    preparedStatement.setString(index + 9, item.getPublishedDate());
+                    setInteger(preparedStatement, index + 10, item.getFileExtractionStatus());
+                    if (item.getIsCorrupted() != null) {
+                        preparedStatement.setBoolean(index + 11, item.getIsCorrupted());
+                    } else {
+                        preparedStatement.setNull(index + 11, Types.BOOLEAN);
+                    }
+                });
+        List<PairDTO<Long, String>> tags = extractedItems.stream()
+                .flatMap(item -> this.stepUtil.explodeInUniqueItemsCleanedAndTrimmedToNullDistinctLowerCase(item.getTags(), DataPropertiesConst.TAG_NAME_MAX_LENGTH)
+                        .stream()
+                        .map(tag -> new PairDTO<>(item.getFileMetaInfoId(), tag)))
+                .toList();
+        this.tmpAssociationAccumulator.add(tags);
+        log.debug("meta-info written: {}, tags queued: {}", extractedItems.size(), tags.size());
+        registerIsbnsAfterCommit(extractedItems);
+    }
+
+    /**
+     * @return the items to write: a new book with the same ISBN of a previous one of the chunk only gets the link
+     */
+    private List<ExtractedMetaInfoDTO> assignIdsAndLinkDuplicates(List<? extends ExtractedMetaInfoDTO> items) {
+        List<ExtractedMetaInfoDTO> extractedItems = new ArrayList<>();
+        Map<String, Long> fileMetaInfoIdByIsbnMap = new HashMap<>();
+        for (ExtractedMetaInfoDTO item : items) {
+            if (item.isLinkOnly()) {
+                continue;
+            }
+            String isbn = IsbnUtil.toIsbn13(item.getIsbn13() != null ? item.getIsbn13() : item.getIsbn10());
+            Long firstFileMetaInfoId = isbn == null ? null : fileMetaInfoIdByIsbnMap.get(isbn);
+            if (this.avoidDuplicateMetaInfo && firstFileMetaInfoId != null && item.getFileMetaInfoId() == null) {
+                item.setLinkOnly(true);
+                item.setFileMetaInfoId(firstFileMetaInfoId);
+                continue;
+            }
+            assignIds(item);
+            if (isbn != null) {
+                fileMetaInfoIdByIsbnMap.putIfAbsent(isbn, item.getFileMetaInfoId());
+            }
+            extractedItems.add(item);
+        }
+        return extractedItems;
+    }
+
+    /**
+     * the rows of a rolled back chunk do not exist: the ISBN index learns only the committed ones
+     */
+    private void registerIsbnsAfterCommit(List<ExtractedMetaInfoDTO> extractedItems) {
+        Runnable registration = () -> extractedItems.forEach(item -> this.isbnIndex.register(item.getIsbn13(), item.getIsbn10(), item.getFileMetaInfoId()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            registration.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registration.run();
+            }
+        });
+    }
+
+    private void assignIds(ExtractedMetaInfoDTO item) {
+        if (item.getFileMetaInfoId() == null) {
+            item.setFileMetaInfoId(this.sequenceIdAllocator.next(SequenceIdAllocator.FILE_META_INFO_SEQUENCE));
+        }
+        if (item.getBookInfoId() == null) {
+            item.setBookInfoId(this.sequenceIdAllocator.next(SequenceIdAllocator.BOOK_INFO_SEQUENCE));
+        }
+    }
+
+    private static void setInteger(PreparedStatement preparedStatement, int index, Integer value) throws SQLException {
+        if (value != null) {
+            preparedStatement.setInt(index, value);
+        } else {
+            preparedStatement.setNull(index, Types.INTEGER);
+        }
+    }
+}
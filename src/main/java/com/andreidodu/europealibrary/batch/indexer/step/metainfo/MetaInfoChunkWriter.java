@@ -0,0 +1,28 @@
+package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
+
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * Persists the meta-info extracted for the whole chunk and then links the files to it, all in the chunk transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetaInfoChunkWriter implements ItemWriter<ExtractedMetaInfoDTO> {
+    private final MetaInfoChunkPersister metaInfoChunkPersister;
+    private final MetaInfoBulkWriter metaInfoBulkWriter;
+
+    @Override
+    public void write(Chunk<? extends ExtractedMetaInfoDTO> chunk) throws SQLException {
+        this.metaInfoChunkPersister.persist(chunk.getItems());
+        this.metaInfoBulkWriter.link(chunk.getItems(), ExtractedMetaInfoDTO::getFileSystemItemId, ExtractedMetaInfoDTO::getFileMetaInfoId);
+    }
+
+}
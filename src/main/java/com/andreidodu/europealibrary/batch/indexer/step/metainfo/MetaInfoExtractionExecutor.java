@@ -0,0 +1,110 @@
+package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
+
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.MetaInfoExtractorStrategy;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.strategy.OtherMetaInfoExtractorStrategyImpl;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import com.andreidodu.europealibrary.model.FileMetaInfo;
+import com.andreidodu.europealibrary.model.FileSystemItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the extraction of a strategy on the dedicated extraction pool, with a time budget per file.
+ * <ul>
+ *     <li>a file whose extraction runs over the budget is deferred: it gets a provisional meta-info and it is retried by the next run;</li>
+ *     <li>no extraction is started while the heap is above the configured usage: the file waits (within its budget) and then it is deferred;</li>
+ *     <li>a file rejected by the pool (all the threads held by hanging parsers) is deferred too.</li>
+ * </ul>
+ * The strategies only read the file and build an {@link ExtractedMetaInfoDTO}: an abandoned extraction that keeps running
+ * after the file is deferred has nothing to write, the meta-info is persisted by the chunk writer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetaInfoExtractionExecutor {
+    private static final long HEAP_CHECK_INTERVAL_MILLISECONDS = 50;
+
+    private final OtherMetaInfoExtractorStrategyImpl otherMetaInfoExtractorStrategy;
+    @Autowired
+    @Qualifier("metaInfoExtractionTaskExecutor")
+    private ThreadPoolTaskExecutor metaInfoExtractionTaskExecutor;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.extraction-timeout-seconds}")
+    private Long extractionTimeoutSeconds;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.extraction-max-heap-usage}")
+    private Double extractionMaxHeapUsage;
+
+    public Optional<ExtractedMetaInfoDTO> extract(MetaInfoExtractorStrategy strategy, String fullPath, FileSystemItem fileSystemItem) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.extractionTimeoutSeconds);
+        if (!waitForHeap(deadline)) {
+            log.warn("heap usage above {}, extraction deferred: {}", this.extractionMaxHeapUsage, fullPath);
+            return this.otherMetaInfoExtractorStrategy.defer(fullPath, fileSystemItem);
+        }
+        // the lazy associations are loaded here, by the thread that owns the session
+        initializeFileMetaInfo(fileSystemItem);
+        Future<Optional<ExtractedMetaInfoDTO>> future;
+        try {
+            future = this.metaInfoExtractionTaskExecutor.submit(() -> strategy.extract(fullPath, fileSystemItem));
+        } catch (TaskRejectedException e) {
+            log.warn("no extraction thread available, extraction deferred: {}", fullPath);
+            return this.otherMetaInfoExtractorStrategy.defer(fullPath, fileSystemItem);
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("extraction took more than {} seconds, deferred: {}", this.extractionTimeoutSeconds, fullPath);
+            return this.otherMetaInfoExtractorStrategy.defer(fullPath, fileSystemItem);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while extracting meta-info from " + fullPath, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("unable to extract meta-info from " + fullPath, e.getCause());
+        }
+    }
+
+    private boolean waitForHeap(long deadline) {
+        while (isHeapAboveThreshold()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(HEAP_CHECK_INTERVAL_MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isHeapAboveThreshold() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        return usedMemory > runtime.maxMemory() * this.extractionMaxHeapUsage;
+    }
+
+    private static void initializeFileMetaInfo(FileSystemItem fileSystemItem) {
+        FileMetaInfo fileMetaInfo = fileSystemItem.getFileMetaInfo();
+        if (fileMetaInfo != null) {
+            Hibernate.initialize(fileMetaInfo);
+            Hibernate.initialize(fileMetaInfo.getBookInfo());
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
 
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 import com.andreidodu.europealibrary.repository.FileSystemItemRepository;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
@@ -13,25 +12,18 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class MetaInfoProcessor implements ItemProcessor<Long, FileSystemItem> {
+public class MetaInfoProcessor implements ItemProcessor<Long, ExtractedMetaInfoDTO> {
     final private MetaInfoRetriever metaInfoRetriever;
 
     final private FileSystemItemRepository fileSystemItemRepository;
-    @PersistenceContext
-    private EntityManager entityManager;
 
     @Override
-    public FileSystemItem process(Long fileSystemItemId) {
+    public ExtractedMetaInfoDTO process(Long fileSystemItemId) {
         FileSystemItem fileSystemItem = this.fileSystemItemRepository.findById(fileSystemItemId).get();
-        if (BooleanUtils.isTrue(fileSystemItem.getIsDirectory()) || fileSystemItem.getFileMetaInfoId() != null) {
+        if (BooleanUtils.isTrue(fileSystemItem.getIsDirectory()) || (fileSystemItem.getFileMetaInfoId() != null && !MetaInfoRetriever.isDeferred(fileSystemItem.getFileMetaInfo()))) {
             return null;
         }
-        return metaInfoRetriever.buildMetaInfoFromEbookIfNecessary(fileSystemItem)
-                .map(fileMetaInfo -> {
-                    this.entityManager.detach(fileSystemItem);
-                    fileSystemItem.setFileMetaInfoId(fileMetaInfo.getId());
-                    return fileSystemItem;
-                })
+        return metaInfoRetriever.extractMetaInfoIfNecessary(fileSystemItem)
                 .orElse(null);
     }
 
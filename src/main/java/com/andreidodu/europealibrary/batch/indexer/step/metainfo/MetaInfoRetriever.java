@@ -1,16 +1,16 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
 
 import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.MetaInfoExtractorStrategy;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.strategy.DataExtractorStrategyUtil;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.strategy.FileExtractionStatusEnum;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import com.andreidodu.europealibrary.model.FileMetaInfo;
 import com.andreidodu.europealibrary.model.FileSystemItem;
-import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
 import com.andreidodu.europealibrary.repository.FileSystemItemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,21 +20,23 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MetaInfoRetriever {
     final private List<MetaInfoExtractorStrategy> metaInfoExtractorStrategyList;
-    final private FileMetaInfoRepository fileMetaInfoRepository;
     final private FileSystemItemRepository fileSystemItemRepository;
+    final private MetaInfoExtractionExecutor metaInfoExtractionExecutor;
     @Value("${com.andreidodu.europea-library.job.indexer.avoid-duplicate-meta-info}")
     private boolean avoidDuplicateMetaInfo;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public Optional<FileMetaInfo> buildMetaInfoFromEbookIfNecessary(FileSystemItem fileSystemItem) {
+    /**
+     * Extracts the meta-info of a file without writing anything: the result is persisted by the caller.
+     */
+    public Optional<ExtractedMetaInfoDTO> extractMetaInfoIfNecessary(FileSystemItem fileSystemItem) {
         String fullPath = fileSystemItem.getBasePath() + "/" + fileSystemItem.getName();
 
         if (avoidDuplicateMetaInfo) {
             log.debug("checking for meta-info for file {}...", fullPath);
             Optional<FileMetaInfo> fileMetaInfoByHash = retrieveMetaInfoByHash(fileSystemItem);
             if (fileMetaInfoByHash.isPresent()) {
-                log.debug("found meta info by hash");
-                return fileMetaInfoByHash;
+                log.debug("found meta info by hash or file identity");
+                return fileMetaInfoByHash.map(fileMetaInfo -> DataExtractorStrategyUtil.newLink(fileSystemItem.getId(), fileMetaInfo.getId()));
             }
         }
 
@@ -43,15 +45,36 @@ public class MetaInfoRetriever {
                 .stream()
                 .filter(strategy -> strategy.accept(fullPath, fileSystemItem))
                 .findFirst()
-                .map(strategy -> strategy.extract(fullPath, fileSystemItem))
-                .flatMap(fileMetaInfo -> fileMetaInfo)
-                .map(this.fileMetaInfoRepository::saveAndFlush);
-
+                .flatMap(strategy -> this.metaInfoExtractionExecutor.extract(strategy, fullPath, fileSystemItem));
     }
 
     private Optional<FileMetaInfo> retrieveMetaInfoByHash(FileSystemItem fileSystemItem) {
+        if (fileSystemItem.getSha256() == null) {
+            // not hashed because no other file shares its size and fingerprint: it has no duplicates, but it may be a moved or renamed file
+            return retrieveMetaInfoByFileIdentity(fileSystemItem);
+        }
         return this.fileSystemItemRepository.findBySha256(fileSystemItem.getSha256())
                 .stream()
+                .filter(fileMetaInfo -> !isDeferred(fileMetaInfo))
                 .findFirst();
     }
+
+    /**
+     * same file (device and inode), size and modification date: the file has been moved or renamed (see FileHashReuseIndex)
+     */
+    private Optional<FileMetaInfo> retrieveMetaInfoByFileIdentity(FileSystemItem fileSystemItem) {
+        if (fileSystemItem.getFileKey() == null || fileSystemItem.getSize() == null || fileSystemItem.getFileUpdateDate() == null) {
+            return Optional.empty();
+        }
+        return this.fileSystemItemRepository.findByFileIdentity(fileSystemItem.getFileKey(), fileSystemItem.getSize(), fileSystemItem.getFileUpdateDate(), fileSystemItem.getId())
+                .stream()
+                .filter(fileMetaInfo -> !isDeferred(fileMetaInfo))
+                .findFirst();
+    }
+
+    public static boolean isDeferred(FileMetaInfo fileMetaInfo) {
+        return fileMetaInfo != null
+                && fileMetaInfo.getBookInfo() != null
+                && Integer.valueOf(FileExtractionStatusEnum.DEFERRED.getStatus()).equals(fileMetaInfo.getBookInfo().getFileExtractionStatus());
+    }
 }
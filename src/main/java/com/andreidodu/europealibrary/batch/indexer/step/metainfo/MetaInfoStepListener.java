@@ -0,0 +1,59 @@
+package com.andreidodu.europealibrary.batch.indexer.step.metainfo;
+
+import com.andreidodu.europealibrary.batch.indexer.step.common.TmpAssociationAccumulator;
+import com.andreidodu.europealibrary.exception.ApplicationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Loads the ISBN index and empties the {@link TmpAssociationAccumulator} before the meta-info step (a run whose flush failed
+ * leaves its pairs there) and, when the step ends, writes the tags collected to el_tmp_association
+ * (only the ones of the committed chunks, whatever the step status).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetaInfoStepListener implements StepExecutionListener {
+    public static final String CONTEXT_KEY_ISBN_HITS = "meta-info.isbn.hits";
+    private static final String METRIC_ISBN_HITS = "europea.indexer.meta-info.isbn.hits";
+
+    private final IsbnIndex isbnIndex;
+    private final MeterRegistry meterRegistry;
+    private final TmpAssociationAccumulator tmpAssociationAccumulator;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.isbnIndex.load();
+        try {
+            this.tmpAssociationAccumulator.clear();
+        } catch (IOException e) {
+            throw new ApplicationException("unable to drop the tmp associations of the previous run", e);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putLong(CONTEXT_KEY_ISBN_HITS, this.isbnIndex.getHitCount());
+        this.meterRegistry.counter(METRIC_ISBN_HITS).increment(this.isbnIndex.getHitCount());
+        log.info("meta-info step completed: {} books found by ISBN, {} ISBNs known", this.isbnIndex.getHitCount(), this.isbnIndex.size());
+        this.isbnIndex.clear();
+        try {
+            this.tmpAssociationAccumulator.flush();
+        } catch (SQLException | IOException e) {
+            // the tag step must not run on a partial el_tmp_association
+            log.error("unable to write the tmp associations: {}", e.getMessage(), e);
+            stepExecution.setStatus(BatchStatus.FAILED);
+            return ExitStatus.FAILED.addExitDescription(e);
+        }
+        return stepExecution.getExitStatus();
+    }
+}
@@ -1,6 +1,6 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor;
 
-import com.andreidodu.europealibrary.model.FileMetaInfo;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import com.andreidodu.europealibrary.model.FileSystemItem;
 
 import java.util.Optional;
@@ -11,5 +11,8 @@ public interface MetaInfoExtractorStrategy {
 
     boolean accept(String fullPathAndName, FileSystemItem fileSystemItem);
 
-    Optional<FileMetaInfo> extract(String filename, FileSystemItem fileSystemItem);
+    /**
+     * extracts the meta-info without writing anything: the result is persisted by the step writer
+     */
+    Optional<ExtractedMetaInfoDTO> extract(String filename, FileSystemItem fileSystemItem);
 }
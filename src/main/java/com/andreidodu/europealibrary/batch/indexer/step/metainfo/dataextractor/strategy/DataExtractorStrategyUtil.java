@@ -2,25 +2,29 @@ package com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.
 
 import com.andreidodu.europealibrary.batch.indexer.step.common.StepUtil;
 import com.andreidodu.europealibrary.dto.BookCodesDTO;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import com.andreidodu.europealibrary.exception.ApplicationException;
 import com.andreidodu.europealibrary.model.BookInfo;
+import com.andreidodu.europealibrary.model.FileMetaInfo;
 import com.andreidodu.europealibrary.model.FileSystemItem;
-import com.andreidodu.europealibrary.util.StringUtil;
-import jakarta.transaction.Transactional;
+import com.andreidodu.europealibrary.util.BookCoverUtil;
+import com.andreidodu.europealibrary.util.IsbnUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
 @Slf4j
 @Component
-@Transactional
 @RequiredArgsConstructor
 public class DataExtractorStrategyUtil {
     private final StepUtil stepUtil;
+    private final BookCoverUtil bookCoverUtil;
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.do-not-extract-metadata-from-file-extensions}")
     List<String> doNotProcessFileExtensions;
     @Value("${com.andreidodu.europea-library.job.indexer.e-books-directory}")
@@ -47,18 +51,79 @@ public class DataExtractorStrategyUtil {
                 .noneMatch(ext -> ext.equalsIgnoreCase(fileExtension));
     }
 
-    public void setISBN13(BookCodesDTO<Optional<String>, Optional<String>> bookCodes, BookInfo bookInfo) {
+    /**
+     * starts the extraction from the values already stored for the file, so that what a strategy does not find is kept
+     */
+    public ExtractedMetaInfoDTO newExtractedMetaInfo(FileSystemItem fileSystemItem) {
+        ExtractedMetaInfoDTO extractedMetaInfo = new ExtractedMetaInfoDTO();
+        extractedMetaInfo.setFileSystemItemId(fileSystemItem.getId());
+        FileMetaInfo fileMetaInfo = fileSystemItem.getFileMetaInfo();
+        if (fileMetaInfo == null) {
+            return extractedMetaInfo;
+        }
+        extractedMetaInfo.setFileMetaInfoId(fileMetaInfo.getId());
+        extractedMetaInfo.setTitle(fileMetaInfo.getTitle());
+        extractedMetaInfo.setDescription(fileMetaInfo.getDescription());
+        BookInfo bookInfo = fileMetaInfo.getBookInfo();
+        if (bookInfo == null) {
+            return extractedMetaInfo;
+        }
+        extractedMetaInfo.setBookInfoId(bookInfo.getId());
+        extractedMetaInfo.setImageUrl(bookInfo.getImageUrl());
+        extractedMetaInfo.setAuthors(bookInfo.getAuthors());
+        extractedMetaInfo.setIsbn10(bookInfo.getIsbn10());
+        extractedMetaInfo.setIsbn13(bookInfo.getIsbn13());
+        extractedMetaInfo.setPublisher(bookInfo.getPublisher());
+        extractedMetaInfo.setLanguage(bookInfo.getLanguage());
+        extractedMetaInfo.setNumberOfPages(bookInfo.getNumberOfPages());
+        extractedMetaInfo.setPublishedDate(bookInfo.getPublishedDate());
+        extractedMetaInfo.setFileExtractionStatus(bookInfo.getFileExtractionStatus());
+        extractedMetaInfo.setIsCorrupted(bookInfo.getIsCorrupted());
+        return extractedMetaInfo;
+    }
+
+    /**
+     * the file will share an already stored meta-info
+     */
+    public static ExtractedMetaInfoDTO newLink(Long fileSystemItemId, Long fileMetaInfoId) {
+        ExtractedMetaInfoDTO extractedMetaInfo = new ExtractedMetaInfoDTO();
+        extractedMetaInfo.setFileSystemItemId(fileSystemItemId);
+        extractedMetaInfo.setFileMetaInfoId(fileMetaInfoId);
+        extractedMetaInfo.setLinkOnly(true);
+        return extractedMetaInfo;
+    }
+
+    /**
+     * stores the cover extracted from the file and makes the book point to it
+     */
+    public void setCover(BufferedImage cover, ExtractedMetaInfoDTO bookInfo) {
+        try {
+            String filename = this.bookCoverUtil.storeCover(cover);
+            bookInfo.setImageUrl(this.bookCoverUtil.buildImageUrl(filename));
+            log.debug("book cover stored: {}", filename);
+        } catch (IOException e) {
+            throw new ApplicationException("unable to store the book cover", e);
+        }
+    }
+
+    public void setISBN13(BookCodesDTO<Optional<String>, Optional<String>> bookCodes, ExtractedMetaInfoDTO bookInfo) {
         bookCodes.getIsbn13()
+                .map(IsbnUtil::normalize)
                 .ifPresent(isbn -> {
-                    bookInfo.setIsbn13(StringUtil.clean(isbn));
+                    bookInfo.setIsbn13(isbn);
                     log.debug("ISBN-13 found: {}", isbn);
                 });
     }
 
-    public void setISBN10(BookCodesDTO<Optional<String>, Optional<String>> bookCodes, BookInfo bookInfo) {
+    public void setISBN10(BookCodesDTO<Optional<String>, Optional<String>> bookCodes, ExtractedMetaInfoDTO bookInfo) {
         bookCodes.getIsbn10()
+                .map(IsbnUtil::normalize)
                 .ifPresent(isbn10 -> {
-                    bookInfo.setIsbn10(StringUtil.clean(isbn10));
+                    bookInfo.setIsbn10(isbn10);
+                    if (bookInfo.getIsbn13() == null) {
+                        // the web lookup is done by ISBN-13
+                        bookInfo.setIsbn13(IsbnUtil.toIsbn13(isbn10));
+                    }
                     log.debug("ISBN-10 found: {}", isbn10);
                 });
     }
@@ -1,27 +1,20 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.strategy;
 
-import com.andreidodu.europealibrary.service.TmpAssociationService;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.IsbnIndex;
 import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.MetaInfoExtractorStrategy;
 import com.andreidodu.europealibrary.constants.DataPropertiesConst;
 import com.andreidodu.europealibrary.dto.BookCodesDTO;
-import com.andreidodu.europealibrary.model.BookInfo;
-import com.andreidodu.europealibrary.model.FileMetaInfo;
+import com.andreidodu.europealibrary.dto.EpubMetadataDTO;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
+import com.andreidodu.europealibrary.dto.PairDTO;
 import com.andreidodu.europealibrary.model.FileSystemItem;
-import com.andreidodu.europealibrary.repository.BookInfoRepository;
-import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
 import com.andreidodu.europealibrary.util.EpubUtil;
 import com.andreidodu.europealibrary.util.FileUtil;
+import com.andreidodu.europealibrary.util.IsbnUtil;
 import com.andreidodu.europealibrary.util.RegularExpressionUtil;
 import com.andreidodu.europealibrary.util.StringUtil;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import nl.siegmann.epublib.domain.Book;
-import nl.siegmann.epublib.domain.Date;
-import nl.siegmann.epublib.domain.Identifier;
-import nl.siegmann.epublib.domain.Metadata;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
@@ -30,25 +23,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Order(1)
 @Component
-@Transactional
 @RequiredArgsConstructor
 public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrategy {
     final private static String STRATEGY_NAME = "epub-meta-info-extractor-strategy";
-    private static final int ISBN_10_LENGTH = 10;
-    private static final int ISBN_13_LENGTH = 13;
 
     private final EpubUtil epubUtil;
     private final DataExtractorStrategyUtil dataExtractorStrategyUtil;
-    private final FileMetaInfoRepository fileMetaInfoRepository;
-    private final BookInfoRepository bookInfoRepository;
+    private final IsbnIndex isbnIndex;
     private final FileUtil fileUtil;
     private final OtherMetaInfoExtractorStrategyImpl otherMetaInfoExtractorStrategy;
-    private final TmpAssociationService tmpAssociationService;
     private final RegularExpressionUtil regularExpressionUtil;
 
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.disable-epub-metadata-extractor}")
@@ -57,8 +44,8 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
     private boolean disableIsbExtractor;
     @Value("${com.andreidodu.europea-library.job.indexer.avoid-duplicate-meta-info}")
     private boolean avoidDuplicateMetaInfo;
-    @PersistenceContext
-    private EntityManager entityManager;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.extract-covers}")
+    private boolean extractCovers;
 
 
     @Override
@@ -76,14 +63,13 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
 
 
     @Override
-    public Optional<FileMetaInfo> extract(String filename, FileSystemItem fileSystemItem) {
+    public Optional<ExtractedMetaInfoDTO> extract(String filename, FileSystemItem fileSystemItem) {
         log.debug("applying strategy: {}", getStrategyName());
-        FileMetaInfo fileMetaInfo = fileSystemItem.getFileMetaInfo();
         try {
-            return epubUtil.retrieveBook(filename)
-                    .map(book -> {
+            return epubUtil.retrieveMetadata(filename)
+                    .map(metadata -> {
                         log.debug("metadata found for: {}", filename);
-                        return manageCaseBookInfoNotEmpty(book, filename, fileMetaInfo);
+                        return manageCaseBookInfoNotEmpty(metadata, filename, fileSystemItem);
                     });
         } catch (Exception e) {
             log.debug("invalid file: {} ({})", filename, e.getMessage());
@@ -91,97 +77,104 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         }
     }
 
-    private FileMetaInfo manageCaseBookInfoNotEmpty(Book book, String fullPath, FileMetaInfo existingFileMetaInfo) {
+    private ExtractedMetaInfoDTO manageCaseBookInfoNotEmpty(EpubMetadataDTO metadata, String fullPath, FileSystemItem fileSystemItem) {
         log.debug("gathering information from ebook {}", fullPath);
-        final FileMetaInfo fileMetaInfo = existingFileMetaInfo == null ? new FileMetaInfo() : existingFileMetaInfo;
+        final ExtractedMetaInfoDTO extractedMetaInfo = this.dataExtractorStrategyUtil.newExtractedMetaInfo(fileSystemItem);
 
-        Metadata metadata = book.getMetadata();
-
-        calculateAndSetBookTitle(fullPath, metadata, fileMetaInfo);
+        calculateAndSetBookTitle(fullPath, metadata, extractedMetaInfo);
         try {
-            fileMetaInfo.setDescription(StringUtil.cleanAndTrimToNullSubstring(StringUtil.removeHTML(getFirstAvailable(metadata.getDescriptions())), DataPropertiesConst.FILE_META_INFO_DESCRIPTION_MAX_LENGTH));
+            extractedMetaInfo.setDescription(StringUtil.cleanAndTrimToNullSubstring(StringUtil.removeHTML(metadata.getDescription()), DataPropertiesConst.FILE_META_INFO_DESCRIPTION_MAX_LENGTH));
         } catch (Exception e) {
             log.debug("invalid epub book description for '{}', will be used filename as title", fullPath);
         }
-        FileMetaInfo savedFileMetaInfo = this.fileMetaInfoRepository.save(fileMetaInfo);
-        savedFileMetaInfo = buildBookInfo(book, savedFileMetaInfo, metadata, fullPath);
-        return savedFileMetaInfo;
+        return buildBookInfo(extractedMetaInfo, metadata, fullPath);
     }
 
-    private void calculateAndSetBookTitle(String fullPath, Metadata metadata, FileMetaInfo fileMetaInfo) {
+    private void calculateAndSetBookTitle(String fullPath, EpubMetadataDTO metadata, ExtractedMetaInfoDTO extractedMetaInfo) {
         try {
-            final String title = StringUtil.cleanAndTrimToNullSubstring(metadata.getFirstTitle(), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH);
+            final String title = StringUtil.cleanAndTrimToNullSubstring(metadata.getTitle(), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH);
             Optional.ofNullable(title).ifPresentOrElse(cleanedTitle -> {
-                fileMetaInfo.setTitle(title);
-            }, () -> setBookTitleFromFileName(fileMetaInfo, fullPath));
+                extractedMetaInfo.setTitle(title);
+            }, () -> setBookTitleFromFileName(extractedMetaInfo, fullPath));
         } catch (Exception e) {
             log.debug("invalid epub book title for '{}', will be used filename as title", fullPath);
-            setBookTitleFromFileName(fileMetaInfo, fullPath);
+            setBookTitleFromFileName(extractedMetaInfo, fullPath);
         }
     }
 
-    public void setBookTitleFromFileName(FileMetaInfo fileMetaInfo, String fullPath) {
+    public void setBookTitleFromFileName(ExtractedMetaInfoDTO extractedMetaInfo, String fullPath) {
         Optional.ofNullable(StringUtil.cleanAndTrimToNullSubstring(fileUtil.calculateFileBaseName(fullPath), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH))
-                .ifPresentOrElse(fileMetaInfo::setTitle, () -> fileMetaInfo.setTitle(""));
+                .ifPresentOrElse(extractedMetaInfo::setTitle, () -> extractedMetaInfo.setTitle(""));
     }
 
-    private FileMetaInfo buildBookInfo(Book book, FileMetaInfo fileMetaInfo, Metadata metadata, String fullPath) {
+    private ExtractedMetaInfoDTO buildBookInfo(ExtractedMetaInfoDTO bookInfo, EpubMetadataDTO metadata, String fullPath) {
         List<String> isbnList = new ArrayList<>();
         isbnList = tryToExtractIsbn(metadata, fullPath, isbnList);
         if (avoidDuplicateMetaInfo) {
-            Optional<FileMetaInfo> fileMetaInfoByIsbn = this.findFileMetaInfoByIsbn(isbnList)
-                    .stream().findFirst();
-            if (fileMetaInfoByIsbn.isPresent()) {
-                return fileMetaInfoByIsbn.get();
+            Optional<Long> fileMetaInfoIdByIsbn = this.isbnIndex.find(isbnList);
+            if (fileMetaInfoIdByIsbn.isPresent()) {
+                return DataExtractorStrategyUtil.newLink(bookInfo.getFileSystemItemId(), fileMetaInfoIdByIsbn.get());
             }
         }
 
-        BookInfo bookInfo = fileMetaInfo.getBookInfo() != null ? fileMetaInfo.getBookInfo() : new BookInfo();
-        bookInfo.setFileMetaInfo(fileMetaInfo);
-
         tryToExtractAndSetLanguage(metadata, fullPath, bookInfo);
-        tryToExtractAndSetNumberOfPages(book, fullPath, bookInfo);
+        tryToExtractAndSetNumberOfPages(metadata, fullPath, bookInfo);
         tryToExtractAndSetAuthors(metadata, fullPath, bookInfo);
 
 
-        if (isbnList.stream().anyMatch(isbn -> isbn.length() == ISBN_10_LENGTH || isbn.length() == ISBN_13_LENGTH)) {
+        if (isbnList.stream().anyMatch(isbn -> isbn.length() == IsbnUtil.ISBN_10_LENGTH || isbn.length() == IsbnUtil.ISBN_13_LENGTH)) {
             isbnList.forEach(isbn -> {
-                if (isbn.length() == ISBN_13_LENGTH) {
+                if (isbn.length() == IsbnUtil.ISBN_13_LENGTH) {
                     bookInfo.setIsbn13(isbn);
 
-                } else if (isbn.length() == ISBN_10_LENGTH) {
+                } else if (isbn.length() == IsbnUtil.ISBN_10_LENGTH) {
                     bookInfo.setIsbn10(isbn);
                 }
             });
+            if (bookInfo.getIsbn13() == null) {
+                bookInfo.setIsbn13(IsbnUtil.toIsbn13(bookInfo.getIsbn10()));
+            }
         } else if (!disableIsbExtractor) {
-            tryToExtractAndSetIsbn(book, fullPath, bookInfo);
+            tryToExtractAndSetIsbn(metadata, fullPath, bookInfo);
         }
 
 
         tryToExtractAndSetPublisher(metadata, fullPath, bookInfo);
         tryToExtractAndSetDates(metadata, fullPath, bookInfo);
+        if (extractCovers) {
+            tryToExtractAndSetCover(metadata, fullPath, bookInfo);
+        }
 
-        bookInfo.setFileMetaInfo(fileMetaInfo);
         bookInfo.setFileExtractionStatus(FileExtractionStatusEnum.SUCCESS.getStatus());
-        fileMetaInfo.setBookInfo(this.bookInfoRepository.save(bookInfo));
-        FileMetaInfo savedFileMetaInfo = this.fileMetaInfoRepository.save(fileMetaInfo);
 
-        tryToExtractAndSetTags(metadata, fullPath, savedFileMetaInfo);
+        tryToExtractAndSetTags(metadata, fullPath, bookInfo);
 
-        return savedFileMetaInfo;
+        return bookInfo;
     }
 
-    private void tryToExtractAndSetTags(Metadata metadata, String fullPath, FileMetaInfo savedFileMetaInfo) {
+    private void tryToExtractAndSetCover(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
+        if (bookInfo.getImageUrl() != null) {
+            return;
+        }
         try {
-            this.tmpAssociationService.addItemsToTmpAssociationTable(savedFileMetaInfo.getId(), metadata.getSubjects(), DataPropertiesConst.TAG_NAME_MAX_LENGTH);
+            this.epubUtil.retrieveCover(fullPath, metadata)
+                    .ifPresent(cover -> dataExtractorStrategyUtil.setCover(cover, bookInfo));
+        } catch (Exception e) {
+            log.debug("invalid epub cover for '{}'", fullPath);
+        }
+    }
+
+    private void tryToExtractAndSetTags(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO extractedMetaInfo) {
+        try {
+            extractedMetaInfo.getTags().addAll(metadata.getSubjects());
         } catch (Exception e) {
             log.debug("invalid epub tags for '{}'", fullPath);
         }
     }
 
-    private void tryToExtractAndSetDates(Metadata metadata, String fullPath, BookInfo bookInfo) {
+    private void tryToExtractAndSetDates(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
-            List<Date> dates = metadata.getDates();
+            List<PairDTO<String, String>> dates = metadata.getDates();
             extractPublishedDate(dates)
                     .ifPresent(date -> {
                         bookInfo.setPublishedDate(StringUtil.cleanAndTrimToNullSubstring(date, DataPropertiesConst.BOOK_INFO_PUBLISHED_DATE_MAX_LENGTH));
@@ -191,7 +184,7 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         }
     }
 
-    private static void tryToExtractAndSetPublisher(Metadata metadata, String fullPath, BookInfo bookInfo) {
+    private static void tryToExtractAndSetPublisher(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
             final List<String> publishers = StringUtil.cleanAndTrimToNull(metadata.getPublishers());
             if (!publishers.isEmpty()) {
@@ -202,9 +195,9 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         }
     }
 
-    private void tryToExtractAndSetIsbn(Book book, String fullPath, BookInfo bookInfo) {
+    private void tryToExtractAndSetIsbn(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
-            BookCodesDTO<Optional<String>, Optional<String>> bookCodes = this.epubUtil.extractISBN(book);
+            BookCodesDTO<Optional<String>, Optional<String>> bookCodes = this.epubUtil.extractISBN(fullPath, metadata);
             dataExtractorStrategyUtil.setISBN13(bookCodes, bookInfo);
             dataExtractorStrategyUtil.setISBN10(bookCodes, bookInfo);
         } catch (Exception e) {
@@ -212,9 +205,9 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         }
     }
 
-    private static void tryToExtractAndSetAuthors(Metadata metadata, String fullPath, BookInfo bookInfo) {
+    private static void tryToExtractAndSetAuthors(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
-            final List<String> authors = StringUtil.cleanAndTrimToNull(metadata.getAuthors().stream().map(auth -> auth.getFirstname() + " " + auth.getLastname()).collect(Collectors.toList()));
+            final List<String> authors = StringUtil.cleanAndTrimToNull(metadata.getAuthors());
             if (!authors.isEmpty()) {
                 bookInfo.setAuthors(StringUtil.cleanAndTrimToNullSubstring(String.join(",", authors), DataPropertiesConst.BOOK_INFO_AUTHORS_MAX_LENGTH));
             }
@@ -223,15 +216,15 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         }
     }
 
-    private static void tryToExtractAndSetNumberOfPages(Book book, String fullPath, BookInfo bookInfo) {
+    private static void tryToExtractAndSetNumberOfPages(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
-            bookInfo.setNumberOfPages(book.getContents().size());
+            bookInfo.setNumberOfPages(metadata.getContentEntryNames().size());
         } catch (Exception e) {
             log.debug("invalid epub number of pages for '{}'", fullPath);
         }
     }
 
-    private static void tryToExtractAndSetLanguage(Metadata metadata, String fullPath, BookInfo bookInfo) {
+    private static void tryToExtractAndSetLanguage(EpubMetadataDTO metadata, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
             Optional.ofNullable(metadata.getLanguage())
                     .ifPresent(language ->
@@ -241,7 +234,7 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         }
     }
 
-    private List<String> tryToExtractIsbn(Metadata metadata, String fullPath, List<String> isbnList) {
+    private List<String> tryToExtractIsbn(EpubMetadataDTO metadata, String fullPath, List<String> isbnList) {
         try {
             isbnList = extractISBN(metadata.getIdentifiers());
         } catch (Exception e) {
@@ -250,35 +243,23 @@ public class EpubMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrat
         return isbnList;
     }
 
-    private List<FileMetaInfo> findFileMetaInfoByIsbn(List<String> isbnList) {
-        return this.fileMetaInfoRepository.findByIsbnList(isbnList);
-    }
-
-    private List<String> extractISBN(List<Identifier> identifiers) {
+    private List<String> extractISBN(List<PairDTO<String, String>> identifiers) {
         return identifiers.stream()
-                .filter(id -> id.getScheme() != null && id.getScheme().toLowerCase().contains("isbn"))
-                .map(Identifier::getValue)
-                .map(StringUtil::cleanAndTrimToNull)
+                .filter(id -> id.getVal1() != null && id.getVal1().toLowerCase().contains("isbn"))
+                .map(PairDTO::getVal2)
+                .map(IsbnUtil::normalize)
                 .filter(isbn -> !Objects.isNull(isbn))
-                .map(isbn -> isbn.replace("-", ""))
                 .toList();
 
 
     }
 
-    private Optional<String> extractPublishedDate(List<Date> dates) {
+    private Optional<String> extractPublishedDate(List<PairDTO<String, String>> dates) {
         return dates.stream()
-                .filter(date -> date.getEvent() == null)
-                .map(Date::getValue)
+                .filter(date -> date.getVal1() == null)
+                .map(PairDTO::getVal2)
                 .map(fullDate -> this.regularExpressionUtil.extractYear(fullDate)
                         .orElse(fullDate))
                 .findFirst();
     }
-
-    private String getFirstAvailable(List<String> list) {
-        if (list != null && !list.isEmpty()) {
-            return list.stream().findFirst().get();
-        }
-        return null;
-    }
-}
\ No newline at end of file
+}
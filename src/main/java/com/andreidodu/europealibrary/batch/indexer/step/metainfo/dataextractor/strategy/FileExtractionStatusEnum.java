@@ -4,7 +4,11 @@ import lombok.Getter;
 
 @Getter
 public enum FileExtractionStatusEnum {
-    SUCCESS(1), SUCCESS_EMPTY(2), FAILED(3);
+    SUCCESS(1), SUCCESS_EMPTY(2), FAILED(3),
+    /**
+     * the extraction ran over its time budget or was not started because of heap pressure: it will be retried by the next run
+     */
+    DEFERRED(4);
     private final int status;
 
     FileExtractionStatusEnum(int status) {
@@ -1,30 +1,26 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.strategy;
 
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoRetriever;
 import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.MetaInfoExtractorStrategy;
 import com.andreidodu.europealibrary.constants.DataPropertiesConst;
-import com.andreidodu.europealibrary.model.BookInfo;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import com.andreidodu.europealibrary.model.FileMetaInfo;
 import com.andreidodu.europealibrary.model.FileSystemItem;
-import com.andreidodu.europealibrary.repository.BookInfoRepository;
-import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
 import com.andreidodu.europealibrary.util.FileUtil;
 import com.andreidodu.europealibrary.util.StringUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Order(1000)
 @Component
-@Transactional
 @RequiredArgsConstructor
 public class OtherMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrategy {
     private final static String STRATEGY_NAME = "file-meta-info-other-extractor";
     private final FileUtil fileUtil;
-    private final FileMetaInfoRepository fileMetaInfoRepository;
-    private final BookInfoRepository bookInfoRepository;
+    private final DataExtractorStrategyUtil dataExtractorStrategyUtil;
 
     @Override
     public String getStrategyName() {
@@ -33,29 +29,41 @@ public class OtherMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStra
 
     @Override
     public boolean accept(String fullPathAndName, FileSystemItem fileSystemItem) {
-        return !fileUtil.isDirectory(fullPathAndName) && (fileSystemItem == null || fileSystemItem.getFileMetaInfo() == null || fileSystemItem.getFileMetaInfo().getBookInfo() == null);
+        return !fileUtil.isDirectory(fullPathAndName) && (fileSystemItem == null || fileSystemItem.getFileMetaInfo() == null || fileSystemItem.getFileMetaInfo().getBookInfo() == null || MetaInfoRetriever.isDeferred(fileSystemItem.getFileMetaInfo()));
     }
 
     @Override
-    public Optional<FileMetaInfo> extract(String filename, FileSystemItem fileSystemItem) {
+    public Optional<ExtractedMetaInfoDTO> extract(String filename, FileSystemItem fileSystemItem) {
         return this.extract(filename, fileSystemItem, false);
     }
 
-    public Optional<FileMetaInfo> extract(String filename, FileSystemItem fileSystemItem, boolean isCorrupted) {
+    public Optional<ExtractedMetaInfoDTO> extract(String filename, FileSystemItem fileSystemItem, boolean isCorrupted) {
+        ExtractedMetaInfoDTO extractedMetaInfo = buildFromFileName(filename, fileSystemItem);
+        extractedMetaInfo.setIsCorrupted(isCorrupted);
+        if (Integer.valueOf(FileExtractionStatusEnum.DEFERRED.getStatus()).equals(extractedMetaInfo.getFileExtractionStatus())) {
+            extractedMetaInfo.setFileExtractionStatus(null);
+        }
+        return Optional.of(extractedMetaInfo);
+    }
+
+    /**
+     * Gives the file a provisional meta-info marked as {@link FileExtractionStatusEnum#DEFERRED}, so that the extraction is retried by the next run.
+     */
+    public Optional<ExtractedMetaInfoDTO> defer(String filename, FileSystemItem fileSystemItem) {
         FileMetaInfo oldFileMetaInfo = fileSystemItem.getFileMetaInfo();
-        FileMetaInfo fileMetaInfo = oldFileMetaInfo == null ? new FileMetaInfo() : oldFileMetaInfo;
+        if (oldFileMetaInfo != null && oldFileMetaInfo.getBookInfo() != null) {
+            // deferred by a previous run too
+            return Optional.of(DataExtractorStrategyUtil.newLink(fileSystemItem.getId(), oldFileMetaInfo.getId()));
+        }
+        ExtractedMetaInfoDTO extractedMetaInfo = buildFromFileName(filename, fileSystemItem);
+        extractedMetaInfo.setFileExtractionStatus(FileExtractionStatusEnum.DEFERRED.getStatus());
+        return Optional.of(extractedMetaInfo);
+    }
 
+    private ExtractedMetaInfoDTO buildFromFileName(String filename, FileSystemItem fileSystemItem) {
+        ExtractedMetaInfoDTO extractedMetaInfo = this.dataExtractorStrategyUtil.newExtractedMetaInfo(fileSystemItem);
         Optional.ofNullable(StringUtil.cleanAndTrimToNullSubstring(fileUtil.calculateFileName(filename), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH))
-                .ifPresentOrElse(fileMetaInfo::setTitle, () -> fileMetaInfo.setTitle("_NO_TITLE_"));
-
-        FileMetaInfo savedFileMetaInfo = this.fileMetaInfoRepository.save(fileMetaInfo);
-
-        BookInfo oldBookInfo = fileMetaInfo.getBookInfo();
-        BookInfo bookInfo = oldBookInfo == null ? new BookInfo() : oldBookInfo;
-        bookInfo.setIsCorrupted(isCorrupted);
-        bookInfo.setFileMetaInfo(savedFileMetaInfo);
-        this.bookInfoRepository.save(bookInfo);
-
-        return Optional.of(fileMetaInfo);
+                .ifPresentOrElse(extractedMetaInfo::setTitle, () -> extractedMetaInfo.setTitle("_NO_TITLE_"));
+        return extractedMetaInfo;
     }
 }
@@ -1,22 +1,15 @@
 package com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.strategy;
 
-import com.andreidodu.europealibrary.batch.indexer.step.common.StepUtil;
 import com.andreidodu.europealibrary.batch.indexer.step.metainfo.dataextractor.MetaInfoExtractorStrategy;
 import com.andreidodu.europealibrary.constants.DataPropertiesConst;
 import com.andreidodu.europealibrary.dto.BookCodesDTO;
-import com.andreidodu.europealibrary.model.BookInfo;
-import com.andreidodu.europealibrary.model.FileMetaInfo;
+import com.andreidodu.europealibrary.dto.ExtractedMetaInfoDTO;
 import com.andreidodu.europealibrary.model.FileSystemItem;
-import com.andreidodu.europealibrary.repository.BookInfoRepository;
-import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
-import com.andreidodu.europealibrary.service.TmpAssociationService;
 import com.andreidodu.europealibrary.util.FileUtil;
 import com.andreidodu.europealibrary.util.PdfUtil;
 import com.andreidodu.europealibrary.util.StringUtil;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,29 +18,26 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
 @Order(2)
 @Component
-@Transactional
 @RequiredArgsConstructor
 public class PdfMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrategy {
     final private static String STRATEGY_NAME = "pdf-meta-info-extractor-strategy";
     private final PdfUtil pdfUtil;
-    private final FileMetaInfoRepository fileMetaInfoRepository;
-    private final BookInfoRepository bookInfoRepository;
     private final DataExtractorStrategyUtil dataExtractorStrategyUtil;
     private final OtherMetaInfoExtractorStrategyImpl otherMetaInfoExtractorStrategy;
     private final FileUtil fileUtil;
-    private final StepUtil stepUtil;
-    private final TmpAssociationService tmpAssociationService;
     @Value("${com.andreidodu.europea-library.job.indexer.step-indexer.disable-pdf-metadata-extractor}")
     private boolean disablePDFMetadataExtractor;
     @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.disable-isbn-extractor}")
     private boolean disableIsbExtractor;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.extract-covers}")
+    private boolean extractCovers;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.cover-pdf-dpi}")
+    private float coverPdfDpi;
 
     @Override
     public String getStrategyName() {
@@ -64,7 +54,7 @@ public class PdfMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrate
 
 
     @Override
-    public Optional<FileMetaInfo> extract(String filename, FileSystemItem fileSystemItem) {
+    public Optional<ExtractedMetaInfoDTO> extract(String filename, FileSystemItem fileSystemItem) {
         log.debug("applying strategy: {}", getStrategyName());
         try {
             return buildMetaInfoFromFile(filename, fileSystemItem);
@@ -74,69 +64,77 @@ public class PdfMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrate
         }
     }
 
-    private Optional<FileMetaInfo> buildMetaInfoFromFile(String fullPath, FileSystemItem fileSystemItem) throws IOException {
-        File file = new File(fullPath);
-        PDDocument pdf = Loader.loadPDF(file);
-        PDDocumentInformation documentInformation = pdf.getDocumentInformation();
+    private Optional<ExtractedMetaInfoDTO> buildMetaInfoFromFile(String fullPath, FileSystemItem fileSystemItem) throws IOException {
+        return this.pdfUtil.withDocument(new File(fullPath), pdf -> buildMetaInfoFromDocument(pdf, fullPath, fileSystemItem));
+    }
 
-        FileMetaInfo fileMetaInfoEntity = fileSystemItem.getFileMetaInfo();
-        FileMetaInfo fileMetaInfo = fileMetaInfoEntity == null ? new FileMetaInfo() : fileMetaInfoEntity;
+    private Optional<ExtractedMetaInfoDTO> buildMetaInfoFromDocument(PDDocument pdf, String fullPath, FileSystemItem fileSystemItem) throws IOException {
+        PDDocumentInformation documentInformation = pdf.getDocumentInformation();
 
-        tryToSetBookTitle(fullPath, documentInformation, fileMetaInfo);
+        ExtractedMetaInfoDTO extractedMetaInfo = this.dataExtractorStrategyUtil.newExtractedMetaInfo(fileSystemItem);
 
-        final FileMetaInfo savedFileMetaInfo = this.fileMetaInfoRepository.save(fileMetaInfo);
+        tryToSetBookTitle(fullPath, documentInformation, extractedMetaInfo);
 
-        BookInfo bookInfo = buildBookInfo(pdf, fileMetaInfo.getBookInfo(), fullPath);
-        bookInfo.setFileMetaInfo(fileMetaInfo);
+        buildBookInfo(pdf, extractedMetaInfo, fullPath);
 
-        log.debug("PDF METADATA extracted: {}", fileMetaInfo);
-        bookInfo.setFileExtractionStatus(FileExtractionStatusEnum.SUCCESS.getStatus());
-        this.bookInfoRepository.save(bookInfo);
+        log.debug("PDF METADATA extracted: {}", extractedMetaInfo);
+        extractedMetaInfo.setFileExtractionStatus(FileExtractionStatusEnum.SUCCESS.getStatus());
 
-        tryToSetTags(fullPath, documentInformation, savedFileMetaInfo);
+        tryToSetTags(fullPath, documentInformation, extractedMetaInfo);
 
-        return Optional.of(savedFileMetaInfo);
+        return Optional.of(extractedMetaInfo);
     }
 
-    private void tryToSetTags(String fullPath, PDDocumentInformation documentInformation, FileMetaInfo savedFileMetaInfo) {
+    private void tryToSetTags(String fullPath, PDDocumentInformation documentInformation, ExtractedMetaInfoDTO extractedMetaInfo) {
         try {
-            final String keywordsStringTrimmed = StringUtil.cleanAndTrimToNull(documentInformation.getKeywords());
-            List<String> keywords = new ArrayList<>();
-            keywords.add(keywordsStringTrimmed);
-            this.tmpAssociationService.addItemsToTmpAssociationTable(savedFileMetaInfo.getId(), keywords, DataPropertiesConst.TAG_NAME_MAX_LENGTH);
+            Optional.ofNullable(StringUtil.cleanAndTrimToNull(documentInformation.getKeywords()))
+                    .ifPresent(extractedMetaInfo.getTags()::add);
         } catch (Exception e) {
             log.debug("invalid pdf book keywords for '{}'", fullPath);
         }
     }
 
-    private void tryToSetBookTitle(String fullPath, PDDocumentInformation documentInformation, FileMetaInfo fileMetaInfo) {
+    private void tryToSetBookTitle(String fullPath, PDDocumentInformation documentInformation, ExtractedMetaInfoDTO extractedMetaInfo) {
         try {
             final String title = StringUtil.cleanAndTrimToNullSubstring(documentInformation.getTitle(), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH);
             Optional.ofNullable(title)
-                    .ifPresentOrElse(fileMetaInfo::setTitle,
-                            () -> setFilenameAsBookTitle(fileMetaInfo, fullPath));
+                    .ifPresentOrElse(extractedMetaInfo::setTitle,
+                            () -> setFilenameAsBookTitle(extractedMetaInfo, fullPath));
         } catch (Exception e) {
             log.debug("invalid pdf book title for '{}', will be used fullPath as title", fullPath);
-            setFilenameAsBookTitle(fileMetaInfo, fullPath);
+            setFilenameAsBookTitle(extractedMetaInfo, fullPath);
         }
     }
 
-    public void setFilenameAsBookTitle(FileMetaInfo fileMetaInfo, String fullPath) {
-        fileMetaInfo.setTitle(StringUtil.cleanAndTrimToNullSubstring(fileUtil.calculateFileBaseName(fullPath), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH));
+    public void setFilenameAsBookTitle(ExtractedMetaInfoDTO extractedMetaInfo, String fullPath) {
+        extractedMetaInfo.setTitle(StringUtil.cleanAndTrimToNullSubstring(fileUtil.calculateFileBaseName(fullPath), DataPropertiesConst.FILE_META_INFO_TITLE_MAX_LENGTH));
     }
 
-    private BookInfo buildBookInfo(PDDocument pdDocument, BookInfo bookInfoOld, String fullPath) throws IOException {
-        BookInfo bookInfo = bookInfoOld == null ? new BookInfo() : bookInfoOld;
+    private void buildBookInfo(PDDocument pdDocument, ExtractedMetaInfoDTO bookInfo, String fullPath) throws IOException {
         tryToSetLanguage(pdDocument, fullPath, bookInfo);
         tryToSetNumberOfPages(pdDocument, fullPath, bookInfo);
         tryToSetAuthors(pdDocument, fullPath, bookInfo);
         if (!disableIsbExtractor) {
             tryToSetIsbn(pdDocument, fullPath, bookInfo);
         }
-        return bookInfo;
+        if (extractCovers) {
+            tryToSetCover(pdDocument, fullPath, bookInfo);
+        }
+    }
+
+    private void tryToSetCover(PDDocument pdDocument, String fullPath, ExtractedMetaInfoDTO bookInfo) {
+        if (bookInfo.getImageUrl() != null) {
+            return;
+        }
+        try {
+            this.pdfUtil.renderFirstPage(pdDocument, coverPdfDpi)
+                    .ifPresent(cover -> dataExtractorStrategyUtil.setCover(cover, bookInfo));
+        } catch (Exception e) {
+            log.debug("unable to render the pdf cover for '{}'", fullPath);
+        }
     }
 
-    private void tryToSetIsbn(PDDocument pdDocument, String fullPath, BookInfo bookInfo) {
+    private void tryToSetIsbn(PDDocument pdDocument, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
             BookCodesDTO<Optional<String>, Optional<String>> bookCodes = this.pdfUtil.retrieveISBN(pdDocument);
             dataExtractorStrategyUtil.setISBN13(bookCodes, bookInfo);
@@ -146,7 +144,7 @@ public class PdfMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrate
         }
     }
 
-    private static void tryToSetAuthors(PDDocument pdDocument, String fullPath, BookInfo bookInfo) {
+    private static void tryToSetAuthors(PDDocument pdDocument, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
             bookInfo.setAuthors(StringUtil.cleanAndTrimToNullSubstring(pdDocument.getDocumentInformation().getAuthor(), DataPropertiesConst.BOOK_INFO_PUBLISHER_MAX_LENGTH));
         } catch (Exception e) {
@@ -154,7 +152,7 @@ public class PdfMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrate
         }
     }
 
-    private static void tryToSetNumberOfPages(PDDocument pdDocument, String fullPath, BookInfo bookInfo) {
+    private static void tryToSetNumberOfPages(PDDocument pdDocument, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
             bookInfo.setNumberOfPages(pdDocument.getNumberOfPages());
         } catch (Exception e) {
@@ -162,7 +160,7 @@ public class PdfMetaInfoExtractorStrategyImpl implements MetaInfoExtractorStrate
         }
     }
 
-    private static void tryToSetLanguage(PDDocument pdDocument, String fullPath, BookInfo bookInfo) {
+    private static void tryToSetLanguage(PDDocument pdDocument, String fullPath, ExtractedMetaInfoDTO bookInfo) {
         try {
             bookInfo.setLanguage(StringUtil.cleanAndTrimToNullLowerCaseSubstring(pdDocument.getDocumentCatalog().getLanguage(), DataPropertiesConst.BOOK_INFO_LANGUAGE_MAX_LENGTH));
         } catch (Exception e) {
@@ -0,0 +1,42 @@
+package com.andreidodu.europealibrary.batch.indexer.step.metainfotagassociation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the new tags and links them to their meta-info with two set-based statements, straight from el_tmp_association:
+ * the missing rows are found by anti-joins on the unique indexes of el_tag (name) and el_file_meta_info_tag (file_meta_info_id, tag_id).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetaInfoTagAssociationTasklet implements Tasklet {
+    // the table has just been filled: without fresh statistics the planner expects it to be empty
+    private static final String ANALYZE_QUERY = "analyze el_tmp_association";
+    private static final String INSERT_TAGS_QUERY = "insert into el_tag (name, version) " +
+            "select distinct ta.value, 1 from el_tmp_association ta " +
+            "where ta.value is not null and not exists (select 1 from el_tag t where t.name = ta.value) " +
+            "on conflict (name) do nothing";
+    private static final String INSERT_ASSOCIATIONS_QUERY = "insert into el_file_meta_info_tag (file_meta_info_id, tag_id) " +
+            "select distinct ta.target_id, t.id from el_tmp_association ta join el_tag t on t.name = ta.value " +
+            "where ta.target_id is not null and not exists (select 1 from el_file_meta_info_tag mt where mt.file_meta_info_id = ta.target_id and mt.tag_id = t.id) " +
+            "on conflict (file_meta_info_id, tag_id) do nothing";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        this.jdbcTemplate.execute(ANALYZE_QUERY);
+        int tags = this.jdbcTemplate.update(INSERT_TAGS_QUERY);
+        int associations = this.jdbcTemplate.update(INSERT_ASSOCIATIONS_QUERY);
+        contribution.incrementWriteCount(tags + associations);
+        log.info("{} tags created, {} meta-info tag associations created", tags, associations);
+        return RepeatStatus.FINISHED;
+    }
+}
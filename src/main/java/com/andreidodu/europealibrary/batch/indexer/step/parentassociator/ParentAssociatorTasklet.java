@@ -0,0 +1,71 @@
+package com.andreidodu.europealibrary.batch.indexer.step.parentassociator;
+
+import com.andreidodu.europealibrary.batch.indexer.enums.JobStepEnum;
+import com.andreidodu.europealibrary.batch.indexer.enums.RecordStatusEnum;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the parent of every just updated record in memory, through a path to id map of the directories,
+ * and writes all the changed parent ids with a single update.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParentAssociatorTasklet implements Tasklet {
+    private static final String DIRECTORIES_QUERY = "select id, base_path, name from el_file_system_item where job_step = ? and is_directory = true";
+    private static final String CHILDREN_QUERY = "select id, base_path, parent_id from el_file_system_item where record_status = ?";
+    private static final String BULK_UPDATE_TEMPLATE = "update el_file_system_item fsi set parent_id = v.parent_id from unnest(?::bigint[], ?::bigint[]) as v(id, parent_id) where fsi.id = v.id";
+    private static final String PATH_SEPARATOR = "/";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        Map<String, Long> directoryIdMap = loadDirectoryIdMap();
+
+        List<Long> idList = new ArrayList<>();
+        List<Long> parentIdList = new ArrayList<>();
+        this.jdbcTemplate.query(CHILDREN_QUERY, (RowCallbackHandler) rs -> {
+            Long parentId = directoryIdMap.get(rs.getString(2));
+            Long currentParentId = rs.getObject(3, Long.class);
+            if (parentId != null && !parentId.equals(currentParentId)) {
+                idList.add(rs.getLong(1));
+                parentIdList.add(parentId);
+            }
+        }, RecordStatusEnum.JUST_UPDATED.getStatus());
+
+        if (!idList.isEmpty()) {
+            this.jdbcTemplate.update(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(BULK_UPDATE_TEMPLATE);
+                preparedStatement.setArray(1, connection.createArrayOf("bigint", idList.toArray()));
+                preparedStatement.setArray(2, connection.createArrayOf("bigint", parentIdList.toArray()));
+                return preparedStatement;
+            });
+        }
+        contribution.incrementWriteCount(idList.size());
+        log.info("resolved {} directories in memory, updated the parent of {} records", directoryIdMap.size(), idList.size());
+        return RepeatStatus.FINISHED;
+    }
+
+    private Map<String, Long> loadDirectoryIdMap() {
+        Map<String, Long> directoryIdMap = new HashMap<>();
+        this.jdbcTemplate.query(DIRECTORIES_QUERY, (RowCallbackHandler) rs ->
+                        directoryIdMap.put(rs.getString(2) + PATH_SEPARATOR + rs.getString(3), rs.getLong(1)),
+                JobStepEnum.INSERTED.getStepNumber());
+        return directoryIdMap;
+    }
+}
@@ -2,21 +2,27 @@ package com.andreidodu.europealibrary.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableWebMvc
 public class MvcConfig implements WebMvcConfigurer {
+    private static final long BOOK_COVER_CACHE_DAYS = 365;
 
     @Value("${com.andreidodu.europea-library.book-covers-directory}")
     private String bookCoversDirectory;
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // the covers are never modified (new covers get new names), so they can be cached for long
         registry.addResourceHandler("/book-cover/**")
-                .addResourceLocations("file:" + bookCoversDirectory + "/");
+                .addResourceLocations("file:" + bookCoversDirectory + "/")
+                .setCacheControl(CacheControl.maxAge(BOOK_COVER_CACHE_DAYS, TimeUnit.DAYS).cachePublic().immutable());
     }
 
 }
\ No newline at end of file
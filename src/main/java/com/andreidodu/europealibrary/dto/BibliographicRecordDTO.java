@@ -0,0 +1,40 @@
+package com.andreidodu.europealibrary.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * An entry of the bibliographic dump: an edition (a book) or one of its authors.
+ */
+@Getter
+@Setter
+@ToString
+public class BibliographicRecordDTO {
+    /**
+     * the key of the entry in the dump, for example /books/OL1M or /authors/OL1A
+     */
+    private String sourceKey;
+    /**
+     * the entry is an author: only its name (in authors) is set
+     */
+    private boolean author;
+    private String isbn13;
+    private String isbn10;
+    /**
+     * the normalized title, see {@link com.andreidodu.europealibrary.util.StringUtil#toSearchKey(String, int)}
+     */
+    private String titleKey;
+    private String title;
+    /**
+     * keys of the authors, resolved to their names once the whole dump is imported
+     */
+    private String authorKeys;
+    private String authors;
+    private String publisher;
+    private String publishedDate;
+    private Integer numberOfPages;
+    private String language;
+    private String description;
+    private String subjects;
+}
@@ -0,0 +1,39 @@
+package com.andreidodu.europealibrary.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The metadata of an EPUB as declared in its OPF package document.
+ */
+@Getter
+@Setter
+@ToString
+public class EpubMetadataDTO {
+    private String title;
+    private String description;
+    private String language;
+    private List<String> authors = new ArrayList<>();
+    private List<String> publishers = new ArrayList<>();
+    private List<String> subjects = new ArrayList<>();
+    /**
+     * scheme (may be null) and value of each identifier
+     */
+    private List<PairDTO<String, String>> identifiers = new ArrayList<>();
+    /**
+     * event (may be null) and value of each date
+     */
+    private List<PairDTO<String, String>> dates = new ArrayList<>();
+    /**
+     * zip entry names of the content documents, in reading (spine) order
+     */
+    private List<String> contentEntryNames = new ArrayList<>();
+    /**
+     * zip entry name of the cover image declared in the manifest (may be null)
+     */
+    private String coverEntryName;
+}
@@ -0,0 +1,46 @@
+package com.andreidodu.europealibrary.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The meta-info extracted from a file, as plain values: it is persisted by the step writer
+ * together with the rest of the chunk (el_file_meta_info and el_book_info; the tags reach el_tmp_association when the step ends).
+ */
+@Getter
+@Setter
+@ToString
+public class ExtractedMetaInfoDTO {
+    private Long fileSystemItemId;
+    /**
+     * the meta-info already stored for the file, or the one it will get (ids are preallocated by the writer)
+     */
+    private Long fileMetaInfoId;
+    /**
+     * the file shares an already stored meta-info (same hash or same ISBN): nothing is written but the link
+     */
+    private boolean linkOnly;
+    private String title;
+    private String description;
+
+    private Long bookInfoId;
+    private String imageUrl;
+    private String authors;
+    private String isbn10;
+    private String isbn13;
+    private String publisher;
+    private String language;
+    private Integer numberOfPages;
+    private String publishedDate;
+    private Integer fileExtractionStatus;
+    private Boolean isCorrupted;
+
+    /**
+     * raw tags, exploded and cleaned by the writer
+     */
+    private List<String> tags = new ArrayList<>();
+}
@@ -20,4 +20,5 @@ public class FileDTO extends CommonDTO {
     private Boolean isDirectory;
     private String extension;
     private String sha256;
+    private String fileKey;
 }
@@ -0,0 +1,7 @@
+package com.andreidodu.europealibrary.exception;
+
+public class ExternalApiUnavailableException extends RuntimeException {
+    public ExternalApiUnavailableException(String message) {
+        super(message);
+    }
+}
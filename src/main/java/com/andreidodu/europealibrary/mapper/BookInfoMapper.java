@@ -17,6 +17,7 @@ public abstract class BookInfoMapper {
     @Mapping(ignore = true, target = "categoryList")
     @Mapping(ignore = true, target = "fileMetaInfo")
     @Mapping(ignore = true, target = "fileSystemItemTopRatedView")
+    @Mapping(ignore = true, target = "webRetrievementRetryDate")
     public abstract BookInfo toModel(BookInfoDTO dto);
 
     @Mapping(ignore = true, target = "id")
@@ -24,6 +25,7 @@ public abstract class BookInfoMapper {
     @Mapping(ignore = true, target = "fileMetaInfo")
     @Mapping(ignore = true, target = "imageUrl")
     @Mapping(ignore = true, target = "fileSystemItemTopRatedView")
+    @Mapping(ignore = true, target = "webRetrievementRetryDate")
     public abstract void map(@MappingTarget BookInfo target, BookInfoDTO source);
 
 
@@ -2,6 +2,7 @@ package com.andreidodu.europealibrary.mapper;
 
 import com.andreidodu.europealibrary.dto.FileDTO;
 import com.andreidodu.europealibrary.util.DateUtil;
+import com.andreidodu.europealibrary.util.FileUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
@@ -20,6 +21,8 @@ public abstract class FileMapper {
 
     @Autowired
     private DateUtil dateUtil;
+    @Autowired
+    private FileUtil fileUtil;
 
     public FileDTO toDTO(File file) throws IOException {
         BasicFileAttributes attr = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
@@ -31,6 +34,7 @@ public abstract class FileMapper {
         fileDTO.setFileCreateDate(creationDateTime);
         fileDTO.setFileUpdateDate(updateDateTime);
         fileDTO.setSize(attr.size());
+        fileDTO.setFileKey(fileUtil.getFileKey(attr));
         fileDTO.setName(file.getName());
         fileDTO.setIsDirectory(file.isDirectory());
         fileDTO.setBasePath(file.getParentFile().getAbsolutePath());
@@ -25,6 +25,7 @@ public abstract class FileSystemItemFullMapper {
     @Mapping(ignore = true, target = "fileMetaInfoId")
     @Mapping(ignore = true, target = "parentId")
     @Mapping(ignore = true, target = "downloadCount")
+    @Mapping(ignore = true, target = "partialHash")
     public abstract FileSystemItem toModel(FileDTO dto);
 
     @Mapping(ignore = true, target = "childrenList")
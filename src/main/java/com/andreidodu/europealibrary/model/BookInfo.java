@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -58,6 +59,9 @@ public class BookInfo extends ModelCommon {
     @Column(name = "web_retrievement_status")
     private Integer webRetrievementStatus;
 
+    @Column(name = "web_retrievement_retry_date")
+    private LocalDateTime webRetrievementRetryDate;
+
     @Column(name = "manual_lock")
     private Integer manualLock;
 
@@ -34,6 +34,12 @@ public class FileSystemItem extends ModelCommon implements Identifiable {
     @Column(name = "sha256")
     private String sha256;
 
+    @Column(name = "file_key")
+    private String fileKey;
+
+    @Column(name = "partial_hash")
+    private String partialHash;
+
     @Column(name = "file_create_date", nullable = false)
     private LocalDateTime fileCreateDate;
 
@@ -10,7 +10,4 @@ public interface FileMetaInfoRepository extends TransactionalRepository<FileMeta
 
     @Query("select fmi from FileMetaInfo fmi where fmi.bookInfo.isbn10 = :isbn or fmi.bookInfo.isbn13 = :isbn")
     List<FileMetaInfo> findByIsbn(String isbn);
-
-    @Query("select fmi from FileMetaInfo fmi where fmi.bookInfo.isbn10 in (:isbnList) or fmi.bookInfo.isbn13 in (:isbnList)")
-    List<FileMetaInfo> findByIsbnList(List<String> isbnList);
 }
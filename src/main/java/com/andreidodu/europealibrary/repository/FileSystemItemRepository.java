@@ -7,6 +7,7 @@ import feign.Param;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,9 @@ public interface FileSystemItemRepository extends TransactionalRepository<FileSy
     @Query("select fsi.fileMetaInfo from FileSystemItem fsi where fsi.fileMetaInfoId is not null and fsi.sha256 = :hash")
     List<FileMetaInfo> findBySha256(String hash);
 
+    @Query("select fsi.fileMetaInfo from FileSystemItem fsi where fsi.fileMetaInfoId is not null and fsi.fileKey = :fileKey and fsi.size = :size and fsi.fileUpdateDate = :fileUpdateDate and fsi.id <> :id")
+    List<FileMetaInfo> findByFileIdentity(String fileKey, Long size, LocalDateTime fileUpdateDate, Long id);
+
     @Modifying
     @Query("update FileSystemItem fsi set fsi.fileMetaInfoId = :fileMetaInfoId where fsi.id = :fileSystemItemId")
     void updateFileMetaInfoId(@Param(value = "fileSystemItemId") Long fileSystemItemId, @Param(value = "fileMetaInfoId") Long fileMetaInfoId);
@@ -15,27 +15,20 @@ import com.andreidodu.europealibrary.repository.BookInfoRepository;
 import com.andreidodu.europealibrary.repository.FileMetaInfoRepository;
 import com.andreidodu.europealibrary.repository.FileSystemItemRepository;
 import com.andreidodu.europealibrary.service.*;
+import com.andreidodu.europealibrary.util.BookCoverUtil;
 import com.stripe.exception.StripeException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
-import org.imgscalr.Scalr;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -52,17 +45,7 @@ public class BookInfoServiceImpl implements BookInfoService {
     private final CategoryService categoryService;
     private final BookInfoMapper bookInfoMapper;
     private final TagService tagService;
-
-    private final static int BOOK_COVER_IMAGE_TARGET_WIDTH = 250;
-
-    @Value("${com.andreidodu.europea-library.book-covers-directory}")
-    private String bookCoversDirectory;
-
-    @Value("${com.andreidodu.europea-library.server.url}")
-    private String serverUrl;
-
-    @Value("${com.andreidodu.europea-library.server.book-cover-path}")
-    private String bookCoverPath;
+    private final BookCoverUtil bookCoverUtil;
 
     private static void validateUpdateInput(Long id, FileMetaInfoDTO dto) {
         if (id == null || !id.equals(dto.getId())) {
@@ -196,7 +179,7 @@ public class BookInfoServiceImpl implements BookInfoService {
     }
 
     private void updateFileMetaInfoImageUrl(Long metaInfoId, String filename) {
-        String imageUrl = this.serverUrl + this.bookCoverPath + "/" + filename;
+        String imageUrl = this.bookCoverUtil.buildImageUrl(filename);
         FileMetaInfo fileMetaInfo = this.repository.findById(metaInfoId)
                 .orElseThrow(() -> new EntityNotFoundException("entity not found"));
         fileMetaInfo.getBookInfo().setImageUrl(imageUrl);
@@ -205,21 +188,14 @@ public class BookInfoServiceImpl implements BookInfoService {
     }
 
     private String saveBookCoverFile(MultipartFile file) throws IOException {
-        UUID uuid = UUID.randomUUID();
-        String filename = (uuid + "." + file.getOriginalFilename() + ".jpg").replace(" ", "_");
-        Path fileNameAndPath = Paths.get(this.bookCoversDirectory, filename);
-        byte[] bytes = resizeImage(file);
-        Files.write(fileNameAndPath, bytes);
-        return filename;
-    }
-
-    private static byte[] resizeImage(MultipartFile file) throws IOException {
-        InputStream is = new ByteArrayInputStream(file.getBytes());
-        BufferedImage bi = ImageIO.read(is);
-        bi = Scalr.resize(bi, BOOK_COVER_IMAGE_TARGET_WIDTH);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(bi, "jpg", baos);
-        return baos.toByteArray();
+        BufferedImage image;
+        try (InputStream inputStream = file.getInputStream()) {
+            image = ImageIO.read(inputStream);
+        }
+        if (image == null) {
+            throw new IOException("unsupported image format: " + file.getOriginalFilename());
+        }
+        return this.bookCoverUtil.storeCover(image);
     }
 
 }
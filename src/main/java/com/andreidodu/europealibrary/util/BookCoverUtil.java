@@ -0,0 +1,98 @@
+package com.andreidodu.europealibrary.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.imgscalr.Scalr;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stores the book covers (extracted from the books or uploaded) in book-covers-directory.
+ * A cover is resized once and saved under the hash of its content: the same cover is stored once,
+ * and a file is never modified, so it can be cached by the browsers for a long time.
+ */
+@Slf4j
+@Component
+public class BookCoverUtil {
+    private static final int BOOK_COVER_IMAGE_TARGET_WIDTH = 250;
+    private static final String BOOK_COVER_IMAGE_FORMAT = "jpg";
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    @Value("${com.andreidodu.europea-library.book-covers-directory}")
+    private String bookCoversDirectory;
+    @Value("${com.andreidodu.europea-library.server.url}")
+    private String serverUrl;
+    @Value("${com.andreidodu.europea-library.server.book-cover-path}")
+    private String bookCoverPath;
+
+    /**
+     * @return the file name of the stored cover
+     */
+    public String storeCover(BufferedImage image) throws IOException {
+        byte[] bytes = encode(resize(image));
+        String filename = HexFormat.of().formatHex(digest(bytes)) + "." + BOOK_COVER_IMAGE_FORMAT;
+        Path fileNameAndPath = Paths.get(this.bookCoversDirectory, filename);
+        if (Files.exists(fileNameAndPath)) {
+            log.debug("book cover already stored: {}", filename);
+            return filename;
+        }
+        // written aside and then moved, so that a partial file is never served
+        Path temporaryFile = Files.createTempFile(Paths.get(this.bookCoversDirectory), filename, ".tmp");
+        try {
+            Files.write(temporaryFile, bytes);
+            Files.move(temporaryFile, fileNameAndPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        return filename;
+    }
+
+    public String buildImageUrl(String filename) {
+        return this.serverUrl + this.bookCoverPath + "/" + filename;
+    }
+
+    private static BufferedImage resize(BufferedImage image) {
+        BufferedImage resized = image.getWidth() > BOOK_COVER_IMAGE_TARGET_WIDTH ? Scalr.resize(image, BOOK_COVER_IMAGE_TARGET_WIDTH) : image;
+        if (resized.getType() == BufferedImage.TYPE_INT_RGB) {
+            return resized;
+        }
+        // jpg has no alpha channel: transparent and indexed images are flattened on a white background
+        BufferedImage rgb = new BufferedImage(resized.getWidth(), resized.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.drawImage(resized, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, BOOK_COVER_IMAGE_FORMAT, byteArrayOutputStream)) {
+            throw new IOException("no writer available for " + BOOK_COVER_IMAGE_FORMAT);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " not available", e);
+        }
+    }
+}
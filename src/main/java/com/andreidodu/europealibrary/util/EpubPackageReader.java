@@ -0,0 +1,233 @@
+package com.andreidodu.europealibrary.util;
+
+import com.andreidodu.europealibrary.dto.EpubMetadataDTO;
+import com.andreidodu.europealibrary.dto.PairDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the metadata of an EPUB without loading the book: the archive is opened with random access,
+ * the package document is located through META-INF/container.xml and only that document is stream-parsed.
+ */
+@Slf4j
+@Component
+public class EpubPackageReader {
+    private static final String CONTAINER_ENTRY_NAME = "META-INF/container.xml";
+    private static final String DUBLIN_CORE_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+    private static final String OPF_NAMESPACE = "http://www.idpf.org/2007/opf";
+    private static final String AUTHOR_ROLE = "aut";
+    private static final String ISBN_URN_PREFIX = "urn:isbn:";
+    private static final String PATH_SEPARATOR = "/";
+    private static final String COVER_IMAGE_PROPERTY = "cover-image";
+    private static final String COVER_META_NAME = "cover";
+    private static final String IMAGE_MEDIA_TYPE_PREFIX = "image/";
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public EpubPackageReader() {
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public Optional<EpubMetadataDTO> read(String filename) throws IOException {
+        try (ZipFile zipFile = new ZipFile(filename)) {
+            Optional<String> packageEntryName = findPackageEntryName(zipFile);
+            if (packageEntryName.isEmpty()) {
+                log.debug("no package document found in {}", filename);
+                return Optional.empty();
+            }
+            ZipEntry packageEntry = zipFile.getEntry(packageEntryName.get());
+            if (packageEntry == null) {
+                log.debug("the package document {} is missing in {}", packageEntryName.get(), filename);
+                return Optional.empty();
+            }
+            try (InputStream inputStream = zipFile.getInputStream(packageEntry)) {
+                return Optional.of(parsePackage(inputStream, getDirectory(packageEntryName.get())));
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid epub package document: " + e.getMessage(), e);
+        }
+    }
+
+    private Optional<String> findPackageEntryName(ZipFile zipFile) throws IOException, XMLStreamException {
+        ZipEntry containerEntry = zipFile.getEntry(CONTAINER_ENTRY_NAME);
+        if (containerEntry == null) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = zipFile.getInputStream(containerEntry)) {
+            XMLStreamReader reader = this.xmlInputFactory.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "rootfile".equals(reader.getLocalName())) {
+                        String fullPath = reader.getAttributeValue(null, "full-path");
+                        if (StringUtil.isNotEmpty(fullPath)) {
+                            return Optional.of(fullPath);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private EpubMetadataDTO parsePackage(InputStream inputStream, String packageDirectory) throws XMLStreamException {
+        EpubMetadataDTO metadata = new EpubMetadataDTO();
+        Map<String, String> manifestHrefMap = new HashMap<>();
+        Set<String> manifestImageIdSet = new HashSet<>();
+        List<String> spineIdRefList = new ArrayList<>();
+        // epub 3 flags the cover item with a property, epub 2 refers to it from a meta element
+        String coverImageId = null;
+        String coverMetaId = null;
+        XMLStreamReader reader = this.xmlInputFactory.createXMLStreamReader(inputStream);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if (DUBLIN_CORE_NAMESPACE.equals(reader.getNamespaceURI())) {
+                    parseDublinCoreElement(reader, metadata);
+                } else if ("item".equals(reader.getLocalName())) {
+                    String id = reader.getAttributeValue(null, "id");
+                    String href = reader.getAttributeValue(null, "href");
+                    if (id != null && href != null) {
+                        manifestHrefMap.put(id, href);
+                        String mediaType = reader.getAttributeValue(null, "media-type");
+                        if (mediaType != null && mediaType.startsWith(IMAGE_MEDIA_TYPE_PREFIX)) {
+                            manifestImageIdSet.add(id);
+                        }
+                        String properties = reader.getAttributeValue(null, "properties");
+                        if (coverImageId == null && properties != null && Arrays.asList(properties.split("\\s+")).contains(COVER_IMAGE_PROPERTY)) {
+                            coverImageId = id;
+                        }
+                    }
+                } else if ("meta".equals(reader.getLocalName()) && COVER_META_NAME.equals(reader.getAttributeValue(null, "name"))) {
+                    coverMetaId = reader.getAttributeValue(null, "content");
+                } else if ("itemref".equals(reader.getLocalName())) {
+                    Optional.ofNullable(reader.getAttributeValue(null, "idref")).ifPresent(spineIdRefList::add);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        spineIdRefList.stream()
+                .map(manifestHrefMap::get)
+                .filter(Objects::nonNull)
+                .map(href -> resolveEntryName(packageDirectory, href))
+                .forEach(metadata.getContentEntryNames()::add);
+        Optional.ofNullable(coverImageId != null ? coverImageId : coverMetaId)
+                .filter(manifestImageIdSet::contains)
+                .map(manifestHrefMap::get)
+                .map(href -> resolveEntryName(packageDirectory, href))
+                .ifPresent(metadata::setCoverEntryName);
+        return metadata;
+    }
+
+    private void parseDublinCoreElement(XMLStreamReader reader, EpubMetadataDTO metadata) throws XMLStreamException {
+        String localName = reader.getLocalName();
+        // the attributes must be read before moving to the text
+        String scheme = reader.getAttributeValue(OPF_NAMESPACE, "scheme");
+        String event = reader.getAttributeValue(OPF_NAMESPACE, "event");
+        String role = reader.getAttributeValue(OPF_NAMESPACE, "role");
+        String text = StringUtil.cleanAndTrimToNull(readElementText(reader));
+        if (text == null) {
+            return;
+        }
+        switch (localName) {
+            case "title" -> {
+                if (metadata.getTitle() == null) {
+                    metadata.setTitle(text);
+                }
+            }
+            case "description" -> {
+                if (metadata.getDescription() == null) {
+                    metadata.setDescription(text);
+                }
+            }
+            case "language" -> {
+                if (metadata.getLanguage() == null) {
+                    metadata.setLanguage(text);
+                }
+            }
+            case "creator" -> {
+                if (role == null || AUTHOR_ROLE.equalsIgnoreCase(role)) {
+                    metadata.getAuthors().add(text);
+                }
+            }
+            case "publisher" -> metadata.getPublishers().add(text);
+            case "subject" -> metadata.getSubjects().add(text);
+            case "date" -> metadata.getDates().add(new PairDTO<>(event, text));
+            case "identifier" -> metadata.getIdentifiers().add(toIdentifier(scheme, text));
+            default -> log.trace("ignoring dc:{}", localName);
+        }
+    }
+
+    /**
+     * like {@link XMLStreamReader#getElementText()} but tolerant of markup nested in the element (descriptions often contain some)
+     */
+    private static String readElementText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getText());
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static PairDTO<String, String> toIdentifier(String scheme, String value) {
+        // epub 3 declares the isbn in the value instead of in the scheme attribute
+        if (scheme == null && value.toLowerCase().startsWith(ISBN_URN_PREFIX)) {
+            return new PairDTO<>("ISBN", value.substring(ISBN_URN_PREFIX.length()));
+        }
+        return new PairDTO<>(scheme, value);
+    }
+
+    private static String getDirectory(String entryName) {
+        int lastSeparatorIndex = entryName.lastIndexOf(PATH_SEPARATOR);
+        return lastSeparatorIndex < 0 ? "" : entryName.substring(0, lastSeparatorIndex + 1);
+    }
+
+    private static String resolveEntryName(String directory, String href) {
+        int fragmentIndex = href.indexOf('#');
+        String path = fragmentIndex < 0 ? href : href.substring(0, fragmentIndex);
+        try {
+            path = URLDecoder.decode(path.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            log.trace("href not encoded: {}", href);
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : (directory + path).split(PATH_SEPARATOR)) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                segments.pollLast();
+                continue;
+            }
+            segments.addLast(segment);
+        }
+        return String.join(PATH_SEPARATOR, segments);
+    }
+}
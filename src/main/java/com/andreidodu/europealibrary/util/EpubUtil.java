@@ -1,72 +1,86 @@
 package com.andreidodu.europealibrary.util;
 
 import com.andreidodu.europealibrary.dto.BookCodesDTO;
+import com.andreidodu.europealibrary.dto.EpubMetadataDTO;
 import com.andreidodu.europealibrary.exception.ApplicationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import nl.siegmann.epublib.domain.Book;
-import nl.siegmann.epublib.domain.Resource;
-import nl.siegmann.epublib.epub.EpubReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class EpubUtil {
     public static final String EPUB_FILE_EXTENSION = "epub";
-    private final RegularExpressionUtil regularExpressionUtil;
+    private static final int SCAN_WINDOW_SIZE = 8 * 1024;
+    private static final ThreadLocal<byte[]> SCAN_WINDOW = ThreadLocal.withInitial(() -> new byte[SCAN_WINDOW_SIZE]);
     private final FileUtil fileUtil;
+    private final EpubPackageReader epubPackageReader;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.isbn-scan-byte-budget}")
+    private Long isbnScanByteBudget;
 
-    public Optional<Book> retrieveBook(String filename) {
+    public Optional<EpubMetadataDTO> retrieveMetadata(String filename) {
         if (!EPUB_FILE_EXTENSION.equalsIgnoreCase(fileUtil.getExtension(filename))) {
             return Optional.empty();
         }
         try {
-            EpubReader epubReader = new EpubReader();
-            return Optional.of(epubReader.readEpub(new FileInputStream(filename)));
+            return this.epubPackageReader.read(filename);
         } catch (IOException e) {
             log.debug("failed to read epub: {}", filename);
             throw new ApplicationException("failed to read the ebook", e);
         }
     }
 
-    public BookCodesDTO<Optional<String>, Optional<String>> extractISBN(Book book) {
-        BookCodesDTO<Optional<String>, Optional<String>> result = new BookCodesDTO<>(Optional.empty(), Optional.empty());
-        int i = 0;
-        for (Resource content : book.getContents())
-            try {
-                String contentString = new String(content.getData());
-
-                searchAndStoreISBN(result, contentString);
-                searchAndStoreSBN(result, contentString);
-
-                if (result.getIsbn13().isPresent() && result.getIsbn10().isPresent()) {
-                    return result;
+    /**
+     * Scans the content documents in reading order with a streaming scanner, till an ISBN is found or the byte budget is spent.
+     */
+    public BookCodesDTO<Optional<String>, Optional<String>> extractISBN(String filename, EpubMetadataDTO metadata) {
+        IsbnStreamScanner isbnStreamScanner = new IsbnStreamScanner(this.isbnScanByteBudget);
+        byte[] window = SCAN_WINDOW.get();
+        try (ZipFile zipFile = new ZipFile(filename)) {
+            for (String contentEntryName : metadata.getContentEntryNames()) {
+                ZipEntry contentEntry = zipFile.getEntry(contentEntryName);
+                if (contentEntry == null) {
+                    continue;
                 }
-                if (i++ > 5) {
-                    return result;
+                try (InputStream inputStream = zipFile.getInputStream(contentEntry)) {
+                    if (isbnStreamScanner.scan(inputStream, window)) {
+                        break;
+                    }
                 }
-            } catch (IOException e) {
-                log.error("failed to extract ISBN/SBN");
             }
-
-        return result;
-    }
-
-    private void searchAndStoreSBN(BookCodesDTO<Optional<String>, Optional<String>> result, String contentString) {
-        if (result.getIsbn10().isEmpty()) {
-            result.setIsbn10(this.regularExpressionUtil.extractISBN10(contentString));
+        } catch (IOException e) {
+            log.error("failed to extract ISBN/SBN");
         }
+        log.debug("{} bytes scanned for ISBN in {}", isbnStreamScanner.getScannedBytes(), filename);
+        return new BookCodesDTO<>(isbnStreamScanner.getIsbn10(), isbnStreamScanner.getIsbn13());
     }
 
-    private void searchAndStoreISBN(BookCodesDTO<Optional<String>, Optional<String>> result, String contentString) {
-        if (result.getIsbn13().isEmpty()) {
-            result.setIsbn13(this.regularExpressionUtil.extractISBN13(contentString));
+    /**
+     * Decodes the cover image declared in the manifest, reading only its entry.
+     */
+    public Optional<BufferedImage> retrieveCover(String filename, EpubMetadataDTO metadata) throws IOException {
+        if (metadata.getCoverEntryName() == null) {
+            return Optional.empty();
+        }
+        try (ZipFile zipFile = new ZipFile(filename)) {
+            ZipEntry coverEntry = zipFile.getEntry(metadata.getCoverEntryName());
+            if (coverEntry == null) {
+                return Optional.empty();
+            }
+            try (InputStream inputStream = zipFile.getInputStream(coverEntry)) {
+                return Optional.ofNullable(ImageIO.read(inputStream));
+            }
         }
     }
 
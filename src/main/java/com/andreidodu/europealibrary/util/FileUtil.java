@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Optional;
 
 @Slf4j
@@ -48,6 +49,14 @@ public class FileUtil {
         return extension;
     }
 
+    /**
+     * @return the identity of the file on its file system (device and inode on unix-like systems), if available
+     */
+    public String getFileKey(BasicFileAttributes attributes) {
+        Object fileKey = attributes.fileKey();
+        return fileKey == null ? null : fileKey.toString();
+    }
+
     public boolean isDirectory(String filename) {
         return new File(filename).isDirectory();
     }
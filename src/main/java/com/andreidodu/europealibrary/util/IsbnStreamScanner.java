@@ -0,0 +1,164 @@
+package com.andreidodu.europealibrary.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Streaming ISBN recognizer: a state machine fed byte by byte through a caller supplied window,
+ * which does not allocate anything until a candidate passes its checksum.
+ * <p>
+ * A candidate is a run of digits (hyphens and single spaces allowed between them, X allowed as last ISBN-10 character)
+ * found shortly after an "ISBN" label. The scan is over when an ISBN-13 is found, when an ISBN-10 is found
+ * and the current resource ends, or when the byte budget is spent.
+ * <p>
+ * Instances are not thread safe: use one per scan.
+ */
+public class IsbnStreamScanner {
+    private static final byte[] LABEL = {'i', 's', 'b', 'n'};
+    // bytes allowed between the label and the number, enough for "-13:", entities and a couple of tags
+    private static final int MAX_LABEL_DISTANCE = 48;
+    private static final int ISBN_10_LENGTH = 10;
+    private static final int ISBN_13_LENGTH = 13;
+    private static final int NO_DIGIT = -1;
+    private static final int CHECK_DIGIT_X = 10;
+
+    private final long byteBudget;
+    private final int[] digits = new int[ISBN_13_LENGTH];
+    private long scannedBytes;
+    private int labelMatchedLength;
+    private int labelDistance = Integer.MAX_VALUE;
+    private int digitsCount;
+    private boolean isLastSeparator;
+    private boolean isRunInvalid;
+    private String isbn10;
+    private String isbn13;
+
+    public IsbnStreamScanner(long byteBudget) {
+        this.byteBudget = byteBudget;
+    }
+
+    /**
+     * scans a resource till its end or till the scan is over
+     *
+     * @param window the buffer used to read the stream, reused across resources
+     * @return true if the scan is over
+     */
+    public boolean scan(InputStream inputStream, byte[] window) throws IOException {
+        resetState();
+        int read;
+        while (!isOver() && (read = inputStream.read(window, 0, (int) Math.min(window.length, this.byteBudget - this.scannedBytes))) > 0) {
+            this.scannedBytes += read;
+            for (int i = 0; i < read && this.isbn13 == null; i++) {
+                accept(window[i]);
+            }
+        }
+        // the resource is over: a pending run is a candidate as well
+        endRun();
+        return isOver() || this.isbn10 != null;
+    }
+
+    public boolean isOver() {
+        return this.isbn13 != null || this.scannedBytes >= this.byteBudget;
+    }
+
+    public Optional<String> getIsbn10() {
+        return Optional.ofNullable(this.isbn10);
+    }
+
+    public Optional<String> getIsbn13() {
+        return Optional.ofNullable(this.isbn13);
+    }
+
+    public long getScannedBytes() {
+        return this.scannedBytes;
+    }
+
+    private void resetState() {
+        this.labelMatchedLength = 0;
+        this.labelDistance = Integer.MAX_VALUE;
+        resetRun();
+    }
+
+    private void resetRun() {
+        this.digitsCount = 0;
+        this.isLastSeparator = false;
+        this.isRunInvalid = false;
+    }
+
+    private void accept(byte value) {
+        int digit = toDigit(value);
+        if (digit != NO_DIGIT && isLabelNear()) {
+            appendDigit(digit);
+            return;
+        }
+        if (this.digitsCount > 0 && !this.isLastSeparator && (value == '-' || value == ' ')) {
+            this.isLastSeparator = true;
+            return;
+        }
+        endRun();
+        matchLabel(value);
+        if (this.labelDistance != Integer.MAX_VALUE) {
+            this.labelDistance++;
+        }
+    }
+
+    private int toDigit(byte value) {
+        if (value >= '0' && value <= '9') {
+            return value - '0';
+        }
+        if ((value == 'X' || value == 'x') && this.digitsCount == ISBN_10_LENGTH - 1) {
+            return CHECK_DIGIT_X;
+        }
+        return NO_DIGIT;
+    }
+
+    private boolean isLabelNear() {
+        return this.digitsCount > 0 || this.labelDistance <= MAX_LABEL_DISTANCE;
+    }
+
+    private void appendDigit(int digit) {
+        this.isLastSeparator = false;
+        if (this.digitsCount == ISBN_13_LENGTH || (this.digitsCount > 0 && this.digits[this.digitsCount - 1] == CHECK_DIGIT_X)) {
+            this.isRunInvalid = true;
+            return;
+        }
+        this.digits[this.digitsCount++] = digit;
+    }
+
+    private void endRun() {
+        if (this.digitsCount == 0) {
+            return;
+        }
+        if (!this.isRunInvalid) {
+            if (this.digitsCount == ISBN_13_LENGTH && this.isbn13 == null && IsbnUtil.isValidIsbn13(this.digits)) {
+                this.isbn13 = digitsToString();
+            } else if (this.digitsCount == ISBN_10_LENGTH && this.isbn10 == null && IsbnUtil.isValidIsbn10(this.digits)) {
+                this.isbn10 = digitsToString();
+            }
+        }
+        resetRun();
+    }
+
+    private void matchLabel(byte value) {
+        byte lowerCase = (byte) (value | 0x20);
+        if (lowerCase == LABEL[this.labelMatchedLength]) {
+            this.labelMatchedLength++;
+            if (this.labelMatchedLength == LABEL.length) {
+                this.labelMatchedLength = 0;
+                // incremented right after, when the label is complete
+                this.labelDistance = -1;
+            }
+            return;
+        }
+        this.labelMatchedLength = lowerCase == LABEL[0] ? 1 : 0;
+    }
+
+    private String digitsToString() {
+        char[] characters = new char[this.digitsCount];
+        for (int i = 0; i < this.digitsCount; i++) {
+            characters[i] = this.digits[i] == CHECK_DIGIT_X ? 'X' : (char) ('0' + this.digits[i]);
+        }
+        return new String(characters);
+    }
+}
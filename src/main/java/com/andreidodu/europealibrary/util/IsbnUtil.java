@@ -0,0 +1,348 @@
+package com.andreidodu.europealibrary.util;
+
+import java.util.Optional;
+
+/**
+ * ISBN validation, normalization and detection over {@link CharSequence}.
+ * <p>
+ * Everything is done by hand-written scanners working on the input as it is: the only allocation is the returned string.
+ * An ISBN may contain hyphens or single spaces between its digits; an ISBN-10 may end with X.
+ * An ISBN-13 is valid when it starts with 978 or 979 and its checksum is right, an ISBN-10 when its checksum is right.
+ * The canonical form of an ISBN is the compact one: digits only, with an upper case X.
+ */
+public class IsbnUtil {
+    public static final int ISBN_10_LENGTH = 10;
+    public static final int ISBN_13_LENGTH = 13;
+    private static final String LABEL = "isbn";
+    // characters allowed between the label and the number, enough for "-13:", entities and a couple of tags
+    private static final int MAX_LABEL_DISTANCE = 48;
+    private static final int INVALID = -1;
+    private static final int CHECK_DIGIT_X = 10;
+
+    private IsbnUtil() {
+    }
+
+    public static boolean isValidIsbn10(CharSequence isbn) {
+        return checkedLength(isbn) == ISBN_10_LENGTH;
+    }
+
+    public static boolean isValidIsbn13(CharSequence isbn) {
+        return checkedLength(isbn) == ISBN_13_LENGTH;
+    }
+
+    public static boolean isValid(CharSequence isbn) {
+        return checkedLength(isbn) != INVALID;
+    }
+
+    /**
+     * @return the canonical form of a valid ISBN-10 or ISBN-13, null otherwise
+     */
+    public static String normalize(CharSequence isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        int from = skipLabel(isbn);
+        int to = trimEnd(isbn, from);
+        int length = checkedLength(isbn, from, to);
+        if (length == INVALID) {
+            return null;
+        }
+        return compact(isbn, from, to, length);
+    }
+
+    /**
+     * @return the canonical ISBN-13 of a valid ISBN-10 or ISBN-13, null otherwise
+     */
+    public static String toIsbn13(CharSequence isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        int from = skipLabel(isbn);
+        int to = trimEnd(isbn, from);
+        int length = checkedLength(isbn, from, to);
+        if (length == ISBN_13_LENGTH) {
+            return compact(isbn, from, to, length);
+        }
+        if (length != ISBN_10_LENGTH) {
+            return null;
+        }
+        char[] characters = new char[ISBN_13_LENGTH];
+        characters[0] = '9';
+        characters[1] = '7';
+        characters[2] = '8';
+        // the ISBN-10 check digit is dropped and recalculated
+        copyDigits(isbn, from, to, characters, 3, ISBN_10_LENGTH - 1);
+        int sum = 0;
+        for (int i = 0; i < ISBN_13_LENGTH - 1; i++) {
+            sum += (characters[i] - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        characters[ISBN_13_LENGTH - 1] = (char) ('0' + (10 - sum % 10) % 10);
+        return new String(characters);
+    }
+
+    /**
+     * @return the canonical ISBN-10 of a valid ISBN-10 or of a valid ISBN-13 starting with 978, null otherwise
+     */
+    public static String toIsbn10(CharSequence isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        int from = skipLabel(isbn);
+        int to = trimEnd(isbn, from);
+        int length = checkedLength(isbn, from, to);
+        if (length == ISBN_10_LENGTH) {
+            return compact(isbn, from, to, length);
+        }
+        if (length != ISBN_13_LENGTH) {
+            return null;
+        }
+        char[] characters = new char[ISBN_13_LENGTH];
+        copyDigits(isbn, from, to, characters, 0, ISBN_13_LENGTH);
+        if (characters[2] != '8') {
+            // 979 ISBNs have no ISBN-10 counterpart
+            return null;
+        }
+        int sum = 0;
+        for (int i = 0; i < ISBN_10_LENGTH - 1; i++) {
+            sum += (characters[i + 3] - '0') * (ISBN_10_LENGTH - i);
+        }
+        int checkDigit = (11 - sum % 11) % 11;
+        characters[ISBN_13_LENGTH - 1] = checkDigit == CHECK_DIGIT_X ? 'X' : (char) ('0' + checkDigit);
+        return new String(characters, 3, ISBN_10_LENGTH);
+    }
+
+    /**
+     * finds the first valid ISBN-13 written shortly after an "ISBN" label
+     */
+    public static Optional<String> findIsbn13(CharSequence text) {
+        return find(text, ISBN_13_LENGTH);
+    }
+
+    /**
+     * finds the first valid ISBN-10 written shortly after an "ISBN" label
+     */
+    public static Optional<String> findIsbn10(CharSequence text) {
+        return find(text, ISBN_10_LENGTH);
+    }
+
+    static boolean isValidIsbn13(int[] digits) {
+        if (digits[0] != 9 || digits[1] != 7 || (digits[2] != 8 && digits[2] != 9)) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < ISBN_13_LENGTH; i++) {
+            if (digits[i] == CHECK_DIGIT_X) {
+                return false;
+            }
+            sum += digits[i] * (i % 2 == 0 ? 1 : 3);
+        }
+        return sum % 10 == 0;
+    }
+
+    static boolean isValidIsbn10(int[] digits) {
+        int sum = 0;
+        for (int i = 0; i < ISBN_10_LENGTH; i++) {
+            sum += digits[i] * (ISBN_10_LENGTH - i);
+        }
+        return sum % 11 == 0;
+    }
+
+    private static Optional<String> find(CharSequence text, int wantedLength) {
+        if (text == null) {
+            return Optional.empty();
+        }
+        int labelEnd = indexAfterLabel(text, 0);
+        while (labelEnd != INVALID) {
+            int limit = Math.min(text.length(), labelEnd + MAX_LABEL_DISTANCE);
+            int position = labelEnd;
+            while (position < limit) {
+                if (!isDigit(text.charAt(position))) {
+                    position++;
+                    continue;
+                }
+                // runs like the "13" of "ISBN-13:" are candidates too, they simply fail the checks
+                int runEnd = endOfRun(text, position);
+                if (checkedLength(text, position, runEnd) == wantedLength) {
+                    return Optional.of(compact(text, position, runEnd, wantedLength));
+                }
+                position = runEnd;
+            }
+            labelEnd = indexAfterLabel(text, labelEnd);
+        }
+        return Optional.empty();
+    }
+
+    private static int indexAfterLabel(CharSequence text, int from) {
+        int last = text.length() - LABEL.length();
+        for (int i = from; i <= last; i++) {
+            if (regionMatchesLabel(text, i)) {
+                return i + LABEL.length();
+            }
+        }
+        return INVALID;
+    }
+
+    private static boolean regionMatchesLabel(CharSequence text, int from) {
+        for (int i = 0; i < LABEL.length(); i++) {
+            if (Character.toLowerCase(text.charAt(from + i)) != LABEL.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the end of the run of digits (and single separators) starting at {@code from}
+     */
+    private static int endOfRun(CharSequence text, int from) {
+        int position = from;
+        int end = from;
+        while (position < text.length()) {
+            char character = text.charAt(position);
+            if (isDigit(character)) {
+                end = ++position;
+            } else if (isCheckDigitX(character)) {
+                // X can only be the last character
+                return position + 1;
+            } else if (isSeparator(character) && position == end) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * skips leading blanks and labels like "ISBN", "ISBN:", "ISBN-13:" or "isbn 10 "
+     */
+    private static int skipLabel(CharSequence isbn) {
+        int position = skipBlanks(isbn, 0);
+        if (position + LABEL.length() > isbn.length() || !regionMatchesLabel(isbn, position)) {
+            return position;
+        }
+        position = skipLabelSeparators(isbn, position + LABEL.length());
+        if (position + 2 < isbn.length()
+                && isbn.charAt(position) == '1' && (isbn.charAt(position + 1) == '0' || isbn.charAt(position + 1) == '3')
+                && (isbn.charAt(position + 2) == ':' || Character.isWhitespace(isbn.charAt(position + 2)))) {
+            position = skipLabelSeparators(isbn, position + 2);
+        }
+        return position;
+    }
+
+    private static int skipLabelSeparators(CharSequence isbn, int from) {
+        int position = from;
+        while (position < isbn.length() && (isbn.charAt(position) == ':' || isbn.charAt(position) == '-' || Character.isWhitespace(isbn.charAt(position)))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipBlanks(CharSequence isbn, int from) {
+        int position = from;
+        while (position < isbn.length() && Character.isWhitespace(isbn.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int trimEnd(CharSequence isbn, int from) {
+        int to = isbn.length();
+        while (to > from && Character.isWhitespace(isbn.charAt(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static int checkedLength(CharSequence isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        return checkedLength(isbn, 0, isbn.length());
+    }
+
+    /**
+     * validates the characters between {@code from} and {@code to} in a single pass
+     *
+     * @return 10 for a valid ISBN-10, 13 for a valid ISBN-13, -1 otherwise
+     */
+    private static int checkedLength(CharSequence isbn, int from, int to) {
+        int count = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean isLastSeparator = true;
+        boolean hasCheckDigitX = false;
+        boolean isPrefixValid = true;
+        for (int i = from; i < to; i++) {
+            char character = isbn.charAt(i);
+            if (isSeparator(character)) {
+                if (isLastSeparator) {
+                    return INVALID;
+                }
+                isLastSeparator = true;
+                continue;
+            }
+            int digit;
+            if (isDigit(character)) {
+                digit = character - '0';
+            } else if (isCheckDigitX(character) && count == ISBN_10_LENGTH - 1) {
+                digit = CHECK_DIGIT_X;
+                hasCheckDigitX = true;
+            } else {
+                return INVALID;
+            }
+            if (count == ISBN_13_LENGTH) {
+                return INVALID;
+            }
+            isPrefixValid &= count != 0 || digit == 9;
+            isPrefixValid &= count != 1 || digit == 7;
+            isPrefixValid &= count != 2 || digit == 8 || digit == 9;
+            if (count < ISBN_10_LENGTH) {
+                sum10 += digit * (ISBN_10_LENGTH - count);
+            }
+            sum13 += digit * (count % 2 == 0 ? 1 : 3);
+            count++;
+            isLastSeparator = false;
+        }
+        if (isLastSeparator) {
+            return INVALID;
+        }
+        if (count == ISBN_10_LENGTH && sum10 % 11 == 0) {
+            return ISBN_10_LENGTH;
+        }
+        if (count == ISBN_13_LENGTH && !hasCheckDigitX && isPrefixValid && sum13 % 10 == 0) {
+            return ISBN_13_LENGTH;
+        }
+        return INVALID;
+    }
+
+    private static String compact(CharSequence isbn, int from, int to, int length) {
+        char[] characters = new char[length];
+        copyDigits(isbn, from, to, characters, 0, length);
+        return new String(characters);
+    }
+
+    private static void copyDigits(CharSequence isbn, int from, int to, char[] target, int targetFrom, int count) {
+        int copied = 0;
+        for (int i = from; i < to && copied < count; i++) {
+            char character = isbn.charAt(i);
+            if (isDigit(character)) {
+                target[targetFrom + copied++] = character;
+            } else if (isCheckDigitX(character)) {
+                target[targetFrom + copied++] = 'X';
+            }
+        }
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static boolean isCheckDigitX(char character) {
+        return character == 'X' || character == 'x';
+    }
+
+    private static boolean isSeparator(char character) {
+        return character == '-' || character == ' ';
+    }
+}
@@ -0,0 +1,62 @@
+package com.andreidodu.europealibrary.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of long keys, safe for concurrent use.
+ * {@link #mightContain(long)} never answers false for an added key; it may answer true for a key never added
+ * with (about) the configured probability, as long as no more than the expected number of keys is added.
+ */
+public class LongBloomFilter {
+    private static final double LN_2 = Math.log(2);
+    private static final int MIN_BITS = Long.SIZE;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    public LongBloomFilter(long expectedKeys, double falsePositiveProbability) {
+        long keys = Math.max(1, expectedKeys);
+        long optimalBits = (long) Math.ceil(-keys * Math.log(falsePositiveProbability) / (LN_2 * LN_2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (Math.max(MIN_BITS, optimalBits) + Long.SIZE - 1) / Long.SIZE);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) this.bitCount / keys * LN_2));
+    }
+
+    public void add(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < this.hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, this.bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long value = this.bits.get(word);
+            while ((value & mask) == 0 && !this.bits.compareAndSet(word, value, value | mask)) {
+                value = this.bits.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < this.hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, this.bitCount);
+            if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the finalizer of SplitMix64: spreads the (sequential) keys over all the bits
+     */
+    private static long mix(long key) {
+        long value = key + 0x9E3779B97F4A7C15L;
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -1,32 +1,147 @@
 package com.andreidodu.europealibrary.util;
 
 import com.andreidodu.europealibrary.dto.BookCodesDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.common.PDMetadata;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class PdfUtil {
     private static final String PDF_FILE_EXTENSION = "pdf";
+    private static final long MEGABYTE = 1024L * 1024L;
+    private static final int SCAN_WINDOW_SIZE = 8 * 1024;
+    private static final ThreadLocal<byte[]> SCAN_WINDOW = ThreadLocal.withInitial(() -> new byte[SCAN_WINDOW_SIZE]);
+    private static final String METRIC_ALLOCATED_BYTES = "europea.indexer.pdf.allocated-bytes";
     private final FileUtil fileUtil;
-    private final RegularExpressionUtil regularExpressionUtil;
+    private final MeterRegistry meterRegistry;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.pdf-max-main-memory-mb}")
+    private Long pdfMaxMainMemoryMegabytes;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.pdf-max-text-pages}")
+    private Integer pdfMaxTextPages;
+    @Value("${com.andreidodu.europea-library.job.indexer.step-meta-info-writer.isbn-scan-byte-budget}")
+    private Long isbnScanByteBudget;
 
+    @FunctionalInterface
+    public interface PdfDocumentFunction<T> {
+        T apply(PDDocument pdDocument) throws IOException;
+    }
+
+    /**
+     * Opens the file with buffered random access, keeping at most pdf-max-main-memory-mb of its streams in memory
+     * (the rest goes to temporary files), applies the function and always releases the document.
+     * The bytes allocated by the current thread meanwhile are published as {@value #METRIC_ALLOCATED_BYTES}:
+     * it is the total allocation, garbage included, not the peak heap (which is bounded by pdf-max-main-memory-mb for the streams).
+     */
+    public <T> T withDocument(File file, PdfDocumentFunction<T> function) throws IOException {
+        long allocatedBytesBefore = getCurrentThreadAllocatedBytes();
+        try (PDDocument pdDocument = loadDocument(file)) {
+            return function.apply(pdDocument);
+        } finally {
+            long allocatedBytes = getCurrentThreadAllocatedBytes() - allocatedBytesBefore;
+            if (allocatedBytesBefore >= 0 && allocatedBytes >= 0) {
+                DistributionSummary.builder(METRIC_ALLOCATED_BYTES)
+                        .description("bytes allocated by the worker thread while a pdf is open, not its peak heap")
+                        .baseUnit("bytes")
+                        .register(this.meterRegistry)
+                        .record(allocatedBytes);
+                log.debug("{} bytes allocated processing {}", allocatedBytes, file);
+            }
+        }
+    }
+
+    private PDDocument loadDocument(File file) throws IOException {
+        MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting.setupMixed(this.pdfMaxMainMemoryMegabytes * MEGABYTE);
+        RandomAccessReadBufferedFile source = new RandomAccessReadBufferedFile(file);
+        try {
+            // the document closes its source
+            return Loader.loadPDF(source, "", null, null, memoryUsageSetting.streamCache);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
 
+    /**
+     * Looks for the ISBN in the information dictionary and in the XMP metadata first;
+     * the (expensive) text of the first pages is extracted only when they do not declare it.
+     */
     public BookCodesDTO<Optional<String>, Optional<String>> retrieveISBN(PDDocument pdDocument) throws IOException {
-        PDFTextStripper reader = new PDFTextStripper();
-        reader.setStartPage(1);
-        reader.setEndPage(5);
-        String text = reader.getText(pdDocument);
-        BookCodesDTO<Optional<String>, Optional<String>> result = new BookCodesDTO<>(Optional.empty(), Optional.empty());
-        result.setIsbn13(this.regularExpressionUtil.extractISBN13(text));
-        result.setIsbn10(this.regularExpressionUtil.extractISBN10(text));
-        return result;
+        IsbnStreamScanner isbnStreamScanner = new IsbnStreamScanner(this.isbnScanByteBudget);
+        byte[] window = SCAN_WINDOW.get();
+        boolean isOver = scanDocumentInformation(pdDocument.getDocumentInformation(), isbnStreamScanner, window) ||
+                scanXmpMetadata(pdDocument, isbnStreamScanner, window);
+        if (!isOver) {
+            PDFTextStripper reader = new PDFTextStripper();
+            reader.setStartPage(1);
+            reader.setEndPage(this.pdfMaxTextPages);
+            scan(reader.getText(pdDocument), isbnStreamScanner, window);
+        }
+        return new BookCodesDTO<>(isbnStreamScanner.getIsbn10(), isbnStreamScanner.getIsbn13());
+    }
+
+    private static boolean scanDocumentInformation(PDDocumentInformation documentInformation, IsbnStreamScanner isbnStreamScanner, byte[] window) throws IOException {
+        for (String key : documentInformation.getMetadataKeys()) {
+            String value = documentInformation.getCustomMetadataValue(key);
+            // the key is scanned as well: it is often the label ("ISBN") of the value
+            if (value != null && scan(key + " " + value, isbnStreamScanner, window)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean scanXmpMetadata(PDDocument pdDocument, IsbnStreamScanner isbnStreamScanner, byte[] window) throws IOException {
+        PDMetadata metadata = pdDocument.getDocumentCatalog().getMetadata();
+        if (metadata == null) {
+            return false;
+        }
+        try (InputStream inputStream = metadata.exportXMPMetadata()) {
+            return isbnStreamScanner.scan(inputStream, window);
+        }
+    }
+
+    private static boolean scan(String text, IsbnStreamScanner isbnStreamScanner, byte[] window) throws IOException {
+        return isbnStreamScanner.scan(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), window);
+    }
+
+    /**
+     * Renders the first page, at a low resolution it is cheap enough to be used as cover.
+     */
+    public Optional<BufferedImage> renderFirstPage(PDDocument pdDocument, float dpi) throws IOException {
+        if (pdDocument.getNumberOfPages() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new PDFRenderer(pdDocument).renderImageWithDPI(0, dpi, ImageType.RGB));
+    }
+
+    private static long getCurrentThreadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return threadMXBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
     }
 
     public String getPdfFileExtension() {
@@ -2,11 +2,16 @@ package com.andreidodu.europealibrary.util;
 
 import org.springframework.stereotype.Component;
 
+import java.text.Normalizer;
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Component
 public class StringUtil {
+    private static final char NUL = '\u0000';
+    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]*>");
+
     public static boolean isNotEmpty(String str) {
         return str != null && !str.trim().isEmpty();
     }
@@ -15,21 +20,51 @@ public class StringUtil {
         return str == null || str.trim().isEmpty();
     }
 
+    /**
+     * removes the NUL characters, which PostgreSQL does not accept in text columns
+     */
     public static String clean(String str) {
-        if (str != null) {
-            return str.replaceAll("\u0000", "");
+        if (str == null) {
+            return null;
         }
-        return null;
+        return removeNul(str, 0, str.length());
     }
 
+    /**
+     * {@link #clean(String)} and {@link String#trim()} in a single pass: the string is copied only when something is removed
+     */
     public static String cleanAndTrimToNull(String str) {
-        return Optional.ofNullable(str).map(string -> {
-                    if (string.trim().isEmpty()) {
-                        return null;
-                    }
-                    return clean(string).trim();
-                }
-        ).orElse(null);
+        if (str == null) {
+            return null;
+        }
+        int from = 0;
+        int to = str.length();
+        while (from < to && str.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && str.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return null;
+        }
+        return removeNul(str, from, to);
+    }
+
+    private static String removeNul(String str, int from, int to) {
+        int firstNul = str.indexOf(NUL, from);
+        if (firstNul < 0 || firstNul >= to) {
+            return from == 0 && to == str.length() ? str : str.substring(from, to);
+        }
+        StringBuilder stringBuilder = new StringBuilder(to - from);
+        stringBuilder.append(str, from, firstNul);
+        for (int i = firstNul + 1; i < to; i++) {
+            char character = str.charAt(i);
+            if (character != NUL) {
+                stringBuilder.append(character);
+            }
+        }
+        return stringBuilder.toString();
     }
 
     public static String cleanAndTrimToNullSubstring(String str, int maxLength) {
@@ -138,11 +173,24 @@ public class StringUtil {
         return result;
     }
 
+    /**
+     * splits on the literal separator (String.split would read "\\" as a broken regular expression)
+     */
     private static List<String> splitStringByChar(String trimmed, String separator) {
-        return Arrays.stream(trimmed.split(separator))
-                .map(StringUtil::cleanAndTrimToNull)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<String> result = new ArrayList<>();
+        int from = 0;
+        while (from <= trimmed.length()) {
+            int to = trimmed.indexOf(separator, from);
+            if (to < 0) {
+                to = trimmed.length();
+            }
+            String item = cleanAndTrimToNull(trimmed.substring(from, to));
+            if (item != null) {
+                result.add(item);
+            }
+            from = to + separator.length();
+        }
+        return result;
     }
 
     public static String removeHTML(String str) {
@@ -150,6 +198,23 @@ public class StringUtil {
         if (str == null || str.isEmpty()) {
             return null;
         }
-        return str.replaceAll("<[^>]*>", "");
+        return HTML_TAG_PATTERN.matcher(str).replaceAll("");
+    }
+
+    /**
+     * lower case letters and digits separated by single spaces, without accents (decomposed and dropped) and punctuation:
+     * "The Lord of the Rings: " and "the lord of the rings" have the same key
+     */
+    public static String toSearchKey(String str, int maxLength) {
+        String trimmed = cleanAndTrimToNull(str);
+        if (trimmed == null) {
+            return null;
+        }
+        String key = Normalizer.normalize(trimmed, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+        return key.isEmpty() ? null : substring(key, maxLength);
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.test.JobLauncherTestUtils;
 import org.springframework.batch.test.context.SpringBatchTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -19,6 +20,7 @@ class EuropeaLibraryApplicationTests {
     @Autowired
     private JobLauncherTestUtils jobLauncherTestUtils;
     @Autowired
+    @Qualifier("indexerJob")
     private Job job;
 
 
@@ -0,0 +1,135 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+class IdRangePartitionerTest {
+    private static final String FROM_CLAUSE = "FROM el_file_system_item";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // sqlite has ntile too: the partitioner query runs unchanged
+        this.dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.jdbcTemplate.execute("create table el_file_system_item (id integer primary key, record_status integer)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.dataSource.destroy();
+    }
+
+    @Test
+    void testEmptyTable() {
+        Map<String, ExecutionContext> partitionMap = new IdRangePartitioner(this.jdbcTemplate, FROM_CLAUSE).partition(4);
+
+        Assertions.assertThat(partitionMap).isEmpty();
+    }
+
+    @Test
+    void testSingleRow() {
+        insert(7L);
+
+        List<long[]> rangeList = partition(FROM_CLAUSE, 4);
+
+        Assertions.assertThat(rangeList).hasSize(1);
+        Assertions.assertThat(rangeList.get(0)).containsExactly(7L, 7L);
+    }
+
+    @Test
+    void testRowsNotDividedEvenly() {
+        List<Long> idList = LongStream.rangeClosed(1, 10).boxed().toList();
+        idList.forEach(this::insert);
+
+        List<long[]> rangeList = partition(FROM_CLAUSE, 3);
+
+        Assertions.assertThat(rangeList).hasSize(3);
+        assertCoverage(rangeList, idList);
+        // ntile gives the remainder to the first ranges
+        Assertions.assertThat(rangeList.stream().map(range -> range[1] - range[0] + 1).toList()).containsExactly(4L, 3L, 3L);
+    }
+
+    @Test
+    void testMoreRangesThanRows() {
+        List<Long> idList = List.of(3L, 4L, 5L);
+        idList.forEach(this::insert);
+
+        List<long[]> rangeList = partition(FROM_CLAUSE, 8);
+
+        Assertions.assertThat(rangeList).hasSize(3);
+        assertCoverage(rangeList, idList);
+    }
+
+    @Test
+    void testGridSizeZeroIsOneRange() {
+        List<Long> idList = List.of(1L, 2L, 3L);
+        idList.forEach(this::insert);
+
+        List<long[]> rangeList = partition(FROM_CLAUSE, 0);
+
+        Assertions.assertThat(rangeList).hasSize(1);
+        Assertions.assertThat(rangeList.get(0)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void testSparseIdsAndWhereClause() {
+        List<Long> selectedIdList = new ArrayList<>();
+        for (long id : new long[]{2, 3, 5, 8, 13, 21, 34, 55, 89, 144}) {
+            boolean isSelected = id % 3 != 0;
+            this.jdbcTemplate.update("insert into el_file_system_item (id, record_status) values (?, ?)", id, isSelected ? 1 : 2);
+            if (isSelected) {
+                selectedIdList.add(id);
+            }
+        }
+
+        List<long[]> rangeList = partition(FROM_CLAUSE + " WHERE record_status = 1", 4);
+
+        Assertions.assertThat(rangeList).hasSize(4);
+        assertCoverage(rangeList, selectedIdList);
+    }
+
+    private void insert(Long id) {
+        this.jdbcTemplate.update("insert into el_file_system_item (id, record_status) values (?, 1)", id);
+    }
+
+    private List<long[]> partition(String fromAndWhereClause, int gridSize) {
+        Map<String, ExecutionContext> partitionMap = new IdRangePartitioner(this.jdbcTemplate, fromAndWhereClause).partition(gridSize);
+        return partitionMap.values()
+                .stream()
+                .map(executionContext -> new long[]{executionContext.getLong(IdRangePartitioner.CONTEXT_KEY_MIN_ID), executionContext.getLong(IdRangePartitioner.CONTEXT_KEY_MAX_ID)})
+                .sorted(Comparator.comparingLong(range -> range[0]))
+                .toList();
+    }
+
+    /**
+     * the ranges go from the first to the last id, do not overlap and every id falls in exactly one of them
+     */
+    private static void assertCoverage(List<long[]> rangeList, List<Long> idList) {
+        Assertions.assertThat(rangeList.get(0)[0]).isEqualTo(idList.get(0));
+        Assertions.assertThat(rangeList.get(rangeList.size() - 1)[1]).isEqualTo(idList.get(idList.size() - 1));
+        for (int i = 0; i < rangeList.size(); i++) {
+            Assertions.assertThat(rangeList.get(i)[0]).isLessThanOrEqualTo(rangeList.get(i)[1]);
+            if (i > 0) {
+                Assertions.assertThat(rangeList.get(i)[0]).isGreaterThan(rangeList.get(i - 1)[1]);
+            }
+        }
+        for (Long id : idList) {
+            long rangeCount = rangeList.stream().filter(range -> range[0] <= id && id <= range[1]).count();
+            Assertions.assertThat(rangeCount).as("ranges holding id %s", id).isEqualTo(1L);
+        }
+    }
+}
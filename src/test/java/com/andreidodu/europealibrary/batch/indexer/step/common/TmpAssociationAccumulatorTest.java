@@ -0,0 +1,202 @@
+package com.andreidodu.europealibrary.batch.indexer.step.common;
+
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.IsbnIndex;
+import com.andreidodu.europealibrary.batch.indexer.step.metainfo.MetaInfoStepListener;
+import com.andreidodu.europealibrary.dto.PairDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link TmpAssociationAccumulator} with the COPY of the PostgreSQL driver replaced by a stub that keeps the rows it receives.
+ */
+class TmpAssociationAccumulatorTest {
+    private static final String METRIC_PAIRS = "europea.indexer.tmp-association.pairs";
+
+    private final List<String> copiedRowsList = new ArrayList<>();
+    private DataSource dataSource;
+    private CopyManager copyManager;
+    private SimpleMeterRegistry meterRegistry;
+    private TmpAssociationAccumulator tmpAssociationAccumulator;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        this.dataSource = Mockito.mock(DataSource.class);
+        Connection connection = Mockito.mock(Connection.class);
+        PGConnection pgConnection = Mockito.mock(PGConnection.class);
+        this.copyManager = Mockito.mock(CopyManager.class);
+        Mockito.when(this.dataSource.getConnection()).thenReturn(connection);
+        Mockito.when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        Mockito.when(pgConnection.getCopyAPI()).thenReturn(this.copyManager);
+        Mockito.when(this.copyManager.copyIn(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class)))
+                .thenAnswer(this::copy);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.tmpAssociationAccumulator = new TmpAssociationAccumulator(this.dataSource, this.meterRegistry);
+        ReflectionTestUtils.setField(this.tmpAssociationAccumulator, "maxInMemoryPairs", 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.tmpAssociationAccumulator.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testCopyTextEscaping() throws SQLException, IOException {
+        this.tmpAssociationAccumulator.add(List.of(
+                new PairDTO<>(1L, "plain"),
+                new PairDTO<>(2L, "tab\there"),
+                new PairDTO<>(3L, "new\nline"),
+                new PairDTO<>(4L, "carriage\rreturn"),
+                new PairDTO<>(5L, "back\\slash"),
+                new PairDTO<>(6L, null),
+                new PairDTO<>(7L, "\\N")));
+
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isEqualTo(7L);
+
+        // one row per pair: the separators inside the values are escaped, null is \N and a literal \N is not null
+        Assertions.assertThat(this.copiedRowsList).containsExactly(
+                "1\tplain",
+                "2\ttab\\there",
+                "3\tnew\\nline",
+                "4\tcarriage\\rreturn",
+                "5\tback\\\\slash",
+                "6\t\\N",
+                "7\t\\\\N");
+    }
+
+    @Test
+    void testSpillToTemporaryFile() throws SQLException, IOException {
+        ReflectionTestUtils.setField(this.tmpAssociationAccumulator, "maxInMemoryPairs", 2);
+
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(1L, "a"), new PairDTO<>(2L, "b")));
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(3L, "c")));
+        Path spillFile = (Path) ReflectionTestUtils.getField(this.tmpAssociationAccumulator, "spillFile");
+
+        // the first two pairs reached the limit and left the memory
+        Assertions.assertThat(spillFile).isNotNull();
+        Assertions.assertThat(Files.exists(spillFile)).isTrue();
+        Assertions.assertThat(ReflectionTestUtils.getField(this.tmpAssociationAccumulator, "bufferedPairs")).isEqualTo(1);
+
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isEqualTo(3L);
+
+        // the rows of the temporary file come first, then the ones still in memory
+        Assertions.assertThat(this.copiedRowsList).containsExactly("1\ta", "2\tb", "3\tc");
+        Assertions.assertThat(Files.exists(spillFile)).isFalse();
+        Assertions.assertThat(this.meterRegistry.counter(METRIC_PAIRS).count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void testFlushStartsOver() throws SQLException, IOException {
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(1L, "a")));
+        this.tmpAssociationAccumulator.flush();
+        this.copiedRowsList.clear();
+
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(2L, "b")));
+
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isEqualTo(1L);
+        Assertions.assertThat(this.copiedRowsList).containsExactly("2\tb");
+    }
+
+    @Test
+    void testNothingToFlush() throws SQLException, IOException {
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isZero();
+
+        Mockito.verifyNoInteractions(this.dataSource);
+    }
+
+    @Test
+    void testFailedFlushKeepsThePairs() throws SQLException, IOException {
+        ReflectionTestUtils.setField(this.tmpAssociationAccumulator, "maxInMemoryPairs", 1);
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(1L, "a")));
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(2L, "b")));
+        Mockito.doThrow(new SQLException("connection lost"))
+                .doAnswer(this::copy)
+                .when(this.copyManager).copyIn(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+
+        Assertions.assertThatThrownBy(() -> this.tmpAssociationAccumulator.flush()).isInstanceOf(SQLException.class);
+
+        // the pairs, the ones of the temporary file included, are written by the next flush
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isEqualTo(2L);
+        Assertions.assertThat(this.copiedRowsList).containsExactly("1\ta", "2\tb");
+    }
+
+    @Test
+    void testPairsOfRolledBackChunksAreDropped() throws SQLException, IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(1L, "committed")));
+        List<TransactionSynchronization> committedSynchronizationList = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(2L, "rolled back")));
+        List<TransactionSynchronization> rolledBackSynchronizationList = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // nothing is taken before the commit
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isZero();
+
+        committedSynchronizationList.forEach(TransactionSynchronization::afterCommit);
+        rolledBackSynchronizationList.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isEqualTo(1L);
+        Assertions.assertThat(this.copiedRowsList).containsExactly("1\tcommitted");
+    }
+
+    @Test
+    void testClearDropsThePairs() throws SQLException, IOException {
+        ReflectionTestUtils.setField(this.tmpAssociationAccumulator, "maxInMemoryPairs", 1);
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(1L, "a")));
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(2L, "b")));
+        Path spillFile = (Path) ReflectionTestUtils.getField(this.tmpAssociationAccumulator, "spillFile");
+
+        this.tmpAssociationAccumulator.clear();
+
+        Assertions.assertThat(Files.exists(spillFile)).isFalse();
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isZero();
+    }
+
+    @Test
+    void testMetaInfoStepDropsThePairsOfThePreviousRun() throws SQLException, IOException {
+        // pairs left by a run whose flush failed
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(1L, "previous run")));
+        MetaInfoStepListener metaInfoStepListener = new MetaInfoStepListener(Mockito.mock(IsbnIndex.class), this.meterRegistry, this.tmpAssociationAccumulator);
+
+        metaInfoStepListener.beforeStep(new StepExecution("metaInfoStep", null));
+        this.tmpAssociationAccumulator.add(List.of(new PairDTO<>(2L, "this run")));
+
+        Assertions.assertThat(this.tmpAssociationAccumulator.flush()).isEqualTo(1L);
+        Assertions.assertThat(this.copiedRowsList).containsExactly("2\tthis run");
+    }
+
+    private long copy(InvocationOnMock invocation) throws IOException {
+        String rows = new String(invocation.getArgument(1, InputStream.class).readAllBytes(), StandardCharsets.UTF_8);
+        List<String> rowList = rows.lines().toList();
+        this.copiedRowsList.addAll(rowList);
+        return rowList.size();
+    }
+}
@@ -0,0 +1,290 @@
+package com.andreidodu.europealibrary.batch.indexer.step.externalapi;
+
+import com.andreidodu.europealibrary.client.GoogleBooksClient;
+import com.andreidodu.europealibrary.dto.GoogleBookResponseDTO;
+import com.andreidodu.europealibrary.exception.ExternalApiUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.cloud.openfeign.FeignAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link GoogleBooksClient} pointed at a local stub of Google Books, paced by the {@link TokenBucketRateLimiter}
+ * and protected by the {@link ExternalApiGuard}.
+ */
+@SpringBootTest(classes = GoogleBooksClientTest.GoogleBooksClientTestConfiguration.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "logging.file.name=")
+class GoogleBooksClientTest {
+    private static final String EMPTY_RESPONSE = "{\"kind\":\"books#volumes\",\"totalItems\":0}";
+    private static final StubGoogleBooks STUB = new StubGoogleBooks();
+
+    @Autowired
+    private GoogleBooksClient googleBooksClient;
+
+    @Configuration
+    @EnableFeignClients(clients = GoogleBooksClient.class)
+    @ImportAutoConfiguration({JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, FeignAutoConfiguration.class})
+    static class GoogleBooksClientTestConfiguration {
+    }
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("com.andreidodu.europea-library.google.books.query-url", STUB::getUrl);
+    }
+
+    @BeforeEach
+    void resetStub() {
+        STUB.reset();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.stop();
+    }
+
+    @Test
+    void testRequestsInFlightArePacedByTheSharedTokenBucket() throws Exception {
+        STUB.setDefaultResponse(new StubResponse(200, EMPTY_RESPONSE, 200, Map.of()));
+        // one request at once, then one every 100 ms, whatever the number of threads
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 1);
+        int requests = 20;
+        ExecutorService executorService = Executors.newFixedThreadPool(5);
+        try {
+            long start = System.nanoTime();
+            List<Future<GoogleBookResponseDTO>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String query = "isbn:" + i;
+                futures.add(executorService.submit(() -> {
+                    rateLimiter.acquire();
+                    return this.googleBooksClient.retrieveMetaInfo(query, 1, "key");
+                }));
+            }
+            for (Future<GoogleBookResponseDTO> future : futures) {
+                Assertions.assertThat(future.get(30, TimeUnit.SECONDS).getTotalItems()).isEqualTo(0);
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Assertions.assertThat(STUB.getRequestCount()).isEqualTo(requests);
+            Assertions.assertThat(elapsedMillis).isGreaterThanOrEqualTo((requests - 1) * 100L - 100);
+            // a response takes longer than the interval between two requests: the threads keep several of them in flight
+            Assertions.assertThat(STUB.getMaxInFlight()).isGreaterThan(1);
+            List<Long> arrivals = STUB.getRequests().stream().map(StubRequest::arrivalNanos).sorted().toList();
+            for (int i = 0; i < arrivals.size(); i++) {
+                long windowEnd = arrivals.get(i) + TimeUnit.SECONDS.toNanos(1);
+                // rate plus burst in any second, plus one for the scheduling jitter
+                Assertions.assertThat(countInWindow(arrivals, i, windowEnd)).isLessThanOrEqualTo(12);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testThrottledRequestsAreRetriedHonouringRetryAfter() {
+        ExternalApiGuard externalApiGuard = newGuard(4, 10, 5000, 5, 60, 0);
+        STUB.enqueue(new StubResponse(429, "{}", 0, Map.of()));
+        STUB.enqueue(new StubResponse(429, "{}", 0, Map.of("Retry-After", "1")));
+        STUB.setDefaultResponse(new StubResponse(200, EMPTY_RESPONSE, 0, Map.of()));
+
+        long start = System.nanoTime();
+        GoogleBookResponseDTO response = externalApiGuard.call(() -> this.googleBooksClient.retrieveMetaInfo("isbn:9780306406157", 1, "key"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertThat(response.getTotalItems()).isEqualTo(0);
+        Assertions.assertThat(STUB.getRequestCount()).isEqualTo(3);
+        // the backoff alone would be a few tens of milliseconds
+        Assertions.assertThat(elapsedMillis).isGreaterThanOrEqualTo(950);
+    }
+
+    @Test
+    void testCircuitOpensAndLetsASingleTrialRequestThrough() throws Exception {
+        ExternalApiGuard externalApiGuard = newGuard(2, 10, 100, 3, 1, 0);
+        Supplier<GoogleBookResponseDTO> request = () -> this.googleBooksClient.retrieveMetaInfo("isbn:9780306406157", 1, "key");
+        STUB.setDefaultResponse(new StubResponse(503, "{}", 0, Map.of()));
+
+        Assertions.assertThatThrownBy(() -> externalApiGuard.call(request)).isInstanceOf(FeignException.class);
+        Assertions.assertThat(STUB.getRequestCount()).isEqualTo(2);
+        // the third failure in a row opens the circuit: the retry is not sent
+        Assertions.assertThatThrownBy(() -> externalApiGuard.call(request)).isInstanceOf(ExternalApiUnavailableException.class);
+        Assertions.assertThat(STUB.getRequestCount()).isEqualTo(3);
+        // while open, nothing reaches the api
+        Assertions.assertThatThrownBy(() -> externalApiGuard.call(request)).isInstanceOf(ExternalApiUnavailableException.class);
+        Assertions.assertThat(STUB.getRequestCount()).isEqualTo(3);
+
+        Thread.sleep(1100);
+        STUB.setDefaultResponse(new StubResponse(200, EMPTY_RESPONSE, 300, Map.of()));
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<GoogleBookResponseDTO>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(() -> externalApiGuard.call(request)));
+            }
+            for (Future<GoogleBookResponseDTO> future : futures) {
+                Assertions.assertThat(future.get(30, TimeUnit.SECONDS).getTotalItems()).isEqualTo(0);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assertions.assertThat(STUB.getRequestCount()).isEqualTo(7);
+        List<StubRequest> afterReopening = STUB.getRequests()
+                .stream()
+                .sorted(Comparator.comparingLong(StubRequest::arrivalNanos))
+                .skip(3)
+                .toList();
+        StubRequest trial = afterReopening.get(0);
+        // the other requests are sent only once the trial has been answered and the circuit closed
+        Assertions.assertThat(afterReopening.subList(1, afterReopening.size()))
+                .allSatisfy(stubRequest -> Assertions.assertThat(stubRequest.arrivalNanos()).isGreaterThanOrEqualTo(trial.respondedNanos()));
+    }
+
+    private static int countInWindow(List<Long> sortedArrivals, int from, long windowEnd) {
+        int count = 0;
+        for (int i = from; i < sortedArrivals.size() && sortedArrivals.get(i) < windowEnd; i++) {
+            count++;
+        }
+        return count;
+    }
+
+    private static ExternalApiGuard newGuard(int maxAttempts, long backoffInitialMilliseconds, long backoffMaxMilliseconds,
+                                             int circuitFailureThreshold, long circuitOpenSeconds, long circuitMaxWaitSeconds) {
+        ExternalApiGuard externalApiGuard = new ExternalApiGuard(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(externalApiGuard, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(externalApiGuard, "backoffInitialMilliseconds", backoffInitialMilliseconds);
+        ReflectionTestUtils.setField(externalApiGuard, "backoffMaxMilliseconds", backoffMaxMilliseconds);
+        ReflectionTestUtils.setField(externalApiGuard, "circuitFailureThreshold", circuitFailureThreshold);
+        ReflectionTestUtils.setField(externalApiGuard, "circuitOpenSeconds", circuitOpenSeconds);
+        ReflectionTestUtils.setField(externalApiGuard, "circuitMaxWaitSeconds", circuitMaxWaitSeconds);
+        return externalApiGuard;
+    }
+
+    private record StubResponse(int status, String body, long delayMilliseconds, Map<String, String> headers) {
+    }
+
+    private record StubRequest(long arrivalNanos, long respondedNanos) {
+    }
+
+    /**
+     * Stands in for Google Books: answers with the queued responses, then with the default one,
+     * and records when each request arrives and when its answer starts.
+     */
+    private static class StubGoogleBooks implements HttpHandler {
+        private final HttpServer httpServer;
+        private final Queue<StubResponse> responses = new ConcurrentLinkedQueue<>();
+        private final List<StubRequest> requests = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile StubResponse defaultResponse = new StubResponse(200, EMPTY_RESPONSE, 0, Map.of());
+
+        StubGoogleBooks() {
+            try {
+                this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.httpServer.createContext("/", this);
+            this.httpServer.setExecutor(Executors.newCachedThreadPool());
+            this.httpServer.start();
+        }
+
+        String getUrl() {
+            return "http://" + this.httpServer.getAddress().getHostString() + ":" + this.httpServer.getAddress().getPort() + "/books/v1/volumes";
+        }
+
+        void reset() {
+            this.responses.clear();
+            this.requests.clear();
+            this.maxInFlight.set(0);
+        }
+
+        void stop() {
+            this.httpServer.stop(0);
+        }
+
+        void enqueue(StubResponse response) {
+            this.responses.add(response);
+        }
+
+        void setDefaultResponse(StubResponse defaultResponse) {
+            this.defaultResponse = defaultResponse;
+        }
+
+        int getRequestCount() {
+            return this.requests.size();
+        }
+
+        int getMaxInFlight() {
+            return this.maxInFlight.get();
+        }
+
+        List<StubRequest> getRequests() {
+            return this.requests;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long arrivalNanos = System.nanoTime();
+            this.maxInFlight.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max);
+            try {
+                StubResponse response = this.responses.poll();
+                if (response == null) {
+                    response = this.defaultResponse;
+                }
+                if (response.delayMilliseconds() > 0) {
+                    Thread.sleep(response.delayMilliseconds());
+                }
+                // recorded before the answer is sent, so that the client cannot see the answer earlier
+                this.requests.add(new StubRequest(arrivalNanos, System.nanoTime()));
+                this.inFlight.decrementAndGet();
+                byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                response.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+                exchange.sendResponseHeaders(response.status(), body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
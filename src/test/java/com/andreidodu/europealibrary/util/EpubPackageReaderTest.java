@@ -0,0 +1,222 @@
+package com.andreidodu.europealibrary.util;
+
+import com.andreidodu.europealibrary.dto.EpubMetadataDTO;
+import com.andreidodu.europealibrary.dto.PairDTO;
+import com.sun.net.httpserver.HttpServer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+class EpubPackageReaderTest {
+    private static final String CONTAINER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <container version="1.0" xmlns="urn:oasis:names:tc:opendocument:xmlns:container">
+              <rootfiles>
+                <rootfile full-path="OEBPS/content.opf" media-type="application/oebps-package+xml"/>
+              </rootfiles>
+            </container>
+            """;
+    private static final String EPUB2_PACKAGE = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <package xmlns="http://www.idpf.org/2007/opf" version="2.0" unique-identifier="bookid">
+              <metadata xmlns:dc="http://purl.org/dc/elements/1.1/" xmlns:opf="http://www.idpf.org/2007/opf">
+                <dc:title>  The Title  </dc:title>
+                <dc:title>A Second Title</dc:title>
+                <dc:creator opf:role="aut">First Author</dc:creator>
+                <dc:creator opf:role="ill">An Illustrator</dc:creator>
+                <dc:creator>Second Author</dc:creator>
+                <dc:description>A <b>bold</b> description</dc:description>
+                <dc:language>en</dc:language>
+                <dc:publisher>The Publisher</dc:publisher>
+                <dc:subject>Fiction</dc:subject>
+                <dc:subject>Adventure</dc:subject>
+                <dc:date opf:event="publication">2001-02-03</dc:date>
+                <dc:identifier id="bookid" opf:scheme="ISBN">978-0-306-40615-7</dc:identifier>
+                <dc:identifier opf:scheme="UUID">2c8f4a5e-0d5c-4c5f-9f0e-6b1a1b2c3d4e</dc:identifier>
+                <dc:identifier></dc:identifier>
+                <meta name="cover" content="cover-image"/>
+              </metadata>
+              <manifest>
+                <item id="cover-image" href="images/cover%20front.jpg" media-type="image/jpeg"/>
+                <item id="chapter1" href="text/chapter1.xhtml" media-type="application/xhtml+xml"/>
+                <item id="chapter2" href="text/../text/chapter2.xhtml#start" media-type="application/xhtml+xml"/>
+                <item id="notes" href="../notes.xhtml" media-type="application/xhtml+xml"/>
+              </manifest>
+              <spine>
+                <itemref idref="chapter2"/>
+                <itemref idref="chapter1"/>
+                <itemref idref="notes"/>
+                <itemref idref="missing"/>
+              </spine>
+            </package>
+            """;
+    private static final String EPUB3_PACKAGE = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <package xmlns="http://www.idpf.org/2007/opf" version="3.0">
+              <metadata xmlns:dc="http://purl.org/dc/elements/1.1/">
+                <dc:title>Epub 3</dc:title>
+                <dc:identifier>urn:isbn:9781861972712</dc:identifier>
+                <dc:identifier>urn:uuid:2c8f4a5e-0d5c-4c5f-9f0e-6b1a1b2c3d4e</dc:identifier>
+                <meta name="cover" content="not-an-image"/>
+              </metadata>
+              <manifest>
+                <item id="not-an-image" href="chapter.xhtml" media-type="application/xhtml+xml"/>
+                <item id="cover" href="cover.png" media-type="image/png" properties="svg cover-image"/>
+              </manifest>
+              <spine>
+                <itemref idref="not-an-image"/>
+              </spine>
+            </package>
+            """;
+
+    private final EpubPackageReader epubPackageReader = new EpubPackageReader();
+
+    @TempDir
+    private Path temporaryDirectory;
+
+    @Test
+    void testMetadata() throws IOException {
+        EpubMetadataDTO metadata = read(EPUB2_PACKAGE).orElseThrow();
+
+        // the first title, description and language win
+        Assertions.assertThat(metadata.getTitle()).isEqualTo("The Title");
+        Assertions.assertThat(metadata.getDescription()).isEqualTo("A bold description");
+        Assertions.assertThat(metadata.getLanguage()).isEqualTo("en");
+        // creators without a role are authors, the other roles are not
+        Assertions.assertThat(metadata.getAuthors()).containsExactly("First Author", "Second Author");
+        Assertions.assertThat(metadata.getPublishers()).containsExactly("The Publisher");
+        Assertions.assertThat(metadata.getSubjects()).containsExactly("Fiction", "Adventure");
+        Assertions.assertThat(metadata.getDates()).hasSize(1);
+        Assertions.assertThat(metadata.getDates().get(0).getVal1()).isEqualTo("publication");
+        Assertions.assertThat(metadata.getDates().get(0).getVal2()).isEqualTo("2001-02-03");
+    }
+
+    @Test
+    void testIdentifiers() throws IOException {
+        EpubMetadataDTO epub2Metadata = read(EPUB2_PACKAGE).orElseThrow();
+        // the empty identifier is skipped
+        Assertions.assertThat(epub2Metadata.getIdentifiers()).hasSize(2);
+        assertIdentifier(epub2Metadata.getIdentifiers().get(0), "ISBN", "978-0-306-40615-7");
+        assertIdentifier(epub2Metadata.getIdentifiers().get(1), "UUID", "2c8f4a5e-0d5c-4c5f-9f0e-6b1a1b2c3d4e");
+
+        EpubMetadataDTO epub3Metadata = read(EPUB3_PACKAGE).orElseThrow();
+        // epub 3 has no scheme attribute: the isbn is recognized from its urn
+        Assertions.assertThat(epub3Metadata.getIdentifiers()).hasSize(2);
+        assertIdentifier(epub3Metadata.getIdentifiers().get(0), "ISBN", "9781861972712");
+        assertIdentifier(epub3Metadata.getIdentifiers().get(1), null, "urn:uuid:2c8f4a5e-0d5c-4c5f-9f0e-6b1a1b2c3d4e");
+    }
+
+    @Test
+    void testContentAndCoverEntryNames() throws IOException {
+        EpubMetadataDTO epub2Metadata = read(EPUB2_PACKAGE).orElseThrow();
+        // spine order, resolved against the package directory, without fragments and unknown items
+        Assertions.assertThat(epub2Metadata.getContentEntryNames()).containsExactly("OEBPS/text/chapter2.xhtml", "OEBPS/text/chapter1.xhtml", "notes.xhtml");
+        Assertions.assertThat(epub2Metadata.getCoverEntryName()).isEqualTo("OEBPS/images/cover front.jpg");
+
+        EpubMetadataDTO epub3Metadata = read(EPUB3_PACKAGE).orElseThrow();
+        // the cover-image property wins over the epub 2 meta, which points to something that is not an image
+        Assertions.assertThat(epub3Metadata.getCoverEntryName()).isEqualTo("OEBPS/cover.png");
+    }
+
+    @Test
+    void testNoContainer() throws IOException {
+        Path epub = writeEpub(Map.of("OEBPS/content.opf", EPUB2_PACKAGE));
+
+        Assertions.assertThat(this.epubPackageReader.read(epub.toString())).isEmpty();
+    }
+
+    @Test
+    void testMissingPackageDocument() throws IOException {
+        Path epub = writeEpub(Map.of("META-INF/container.xml", CONTAINER));
+
+        Assertions.assertThat(this.epubPackageReader.read(epub.toString())).isEmpty();
+    }
+
+    @Test
+    void testExternalEntityIsNotResolved() throws IOException {
+        Path secret = this.temporaryDirectory.resolve("secret.txt");
+        Files.writeString(secret, "SECRET-CONTENT");
+        String opf = EPUB2_PACKAGE
+                .replace("<package ", "<!DOCTYPE package [<!ENTITY xxe SYSTEM \"" + secret.toUri() + "\">]>\n<package ")
+                .replace("<dc:title>  The Title  </dc:title>", "<dc:title>&xxe;</dc:title>");
+
+        Assertions.assertThatThrownBy(() -> read(opf))
+                .isInstanceOf(IOException.class)
+                .hasMessageNotContaining("SECRET-CONTENT");
+    }
+
+    @Test
+    void testInternalEntityIsNotExpanded() {
+        // no entity declaration is honoured, so an entity expansion bomb can not be built either
+        String opf = EPUB2_PACKAGE
+                .replace("<package ", "<!DOCTYPE package [<!ENTITY lol \"lol\"><!ENTITY lol2 \"&lol;&lol;&lol;&lol;\">]>\n<package ")
+                .replace("<dc:title>  The Title  </dc:title>", "<dc:title>&lol2;</dc:title>");
+
+        Assertions.assertThatThrownBy(() -> read(opf)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testExternalDtdIsNotLoaded() throws IOException {
+        AtomicInteger requestCount = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            byte[] body = "<!ENTITY title \"from the dtd\">".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        try {
+            String baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+            String opf = EPUB2_PACKAGE.replace("<package ", "<!DOCTYPE package SYSTEM \"" + baseUrl + "/package.dtd\" [<!ENTITY % remote SYSTEM \"" + baseUrl + "/remote.dtd\"> %remote;]>\n<package ");
+
+            EpubMetadataDTO metadata = read(opf).orElseThrow();
+
+            Assertions.assertThat(metadata.getTitle()).isEqualTo("The Title");
+            Assertions.assertThat(requestCount.get()).isZero();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private Optional<EpubMetadataDTO> read(String opf) throws IOException {
+        Map<String, String> entryMap = new LinkedHashMap<>();
+        entryMap.put("mimetype", "application/epub+zip");
+        entryMap.put("META-INF/container.xml", CONTAINER);
+        entryMap.put("OEBPS/content.opf", opf);
+        return this.epubPackageReader.read(writeEpub(entryMap).toString());
+    }
+
+    private Path writeEpub(Map<String, String> entryMap) throws IOException {
+        Path epub = Files.createTempFile(this.temporaryDirectory, "book", ".epub");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(epub))) {
+            for (Map.Entry<String, String> entry : entryMap.entrySet()) {
+                zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+                zipOutputStream.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return epub;
+    }
+
+    private static void assertIdentifier(PairDTO<String, String> identifier, String scheme, String value) {
+        Assertions.assertThat(identifier.getVal1()).isEqualTo(scheme);
+        Assertions.assertThat(identifier.getVal2()).isEqualTo(value);
+    }
+}
@@ -0,0 +1,166 @@
+package com.andreidodu.europealibrary.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class IsbnStreamScannerTest {
+    private static final long BYTE_BUDGET = 1024 * 1024;
+    private static final int WINDOW_SIZE = 8192;
+
+    @Test
+    void testIsbn13() throws IOException {
+        IsbnStreamScanner scanner = scan("<p>ISBN: 9780306406157</p>");
+
+        Assertions.assertThat(scanner.getIsbn13()).contains("9780306406157");
+        Assertions.assertThat(scanner.isOver()).isTrue();
+    }
+
+    @Test
+    void testIsbn10() throws IOException {
+        IsbnStreamScanner scanner = new IsbnStreamScanner(BYTE_BUDGET);
+
+        // an ISBN-10 ends the scan only when the resource ends, an ISBN-13 could still follow
+        Assertions.assertThat(scanner.scan(toInputStream("<p>ISBN 0306406152</p>"), new byte[WINDOW_SIZE])).isTrue();
+        Assertions.assertThat(scanner.getIsbn10()).contains("0306406152");
+        Assertions.assertThat(scanner.getIsbn13()).isEmpty();
+        Assertions.assertThat(scanner.isOver()).isFalse();
+    }
+
+    @Test
+    void testHyphenatedAndSpacedForms() throws IOException {
+        Assertions.assertThat(scan("ISBN-13: 978-0-306-40615-7").getIsbn13()).contains("9780306406157");
+        Assertions.assertThat(scan("ISBN 978 0 306 40615 7").getIsbn13()).contains("9780306406157");
+        Assertions.assertThat(scan("ISBN 978-1 86197-271 2").getIsbn13()).contains("9781861972712");
+        Assertions.assertThat(scan("ISBN-10: 0-306-40615-2").getIsbn10()).contains("0306406152");
+        Assertions.assertThat(scan("isbn 1 86197 271 7").getIsbn10()).contains("1861972717");
+        // a run does not go on after two separators in a row
+        Assertions.assertThat(scan("ISBN 978--0-306-40615-7").getIsbn13()).isEmpty();
+        Assertions.assertThat(scan("ISBN 0306  406152").getIsbn10()).isEmpty();
+    }
+
+    @Test
+    void testCheckDigitX() throws IOException {
+        Assertions.assertThat(scan("ISBN: 0-8044-2957-X.").getIsbn10()).contains("080442957X");
+        Assertions.assertThat(scan("ISBN 080442957x").getIsbn10()).contains("080442957X");
+        // X is only the last character of an ISBN-10
+        Assertions.assertThat(scan("ISBN 08044X2957").getIsbn10()).isEmpty();
+        Assertions.assertThat(scan("ISBN 080442957X1").getIsbn10()).isEmpty();
+    }
+
+    @Test
+    void testInvalidChecksumIsRejected() throws IOException {
+        IsbnStreamScanner isbn13Scanner = scan("ISBN 9780306406158");
+        Assertions.assertThat(isbn13Scanner.getIsbn13()).isEmpty();
+        Assertions.assertThat(isbn13Scanner.getIsbn10()).isEmpty();
+
+        Assertions.assertThat(scan("ISBN 0-306-40615-3").getIsbn10()).isEmpty();
+        Assertions.assertThat(scan("ISBN 0804429570").getIsbn10()).isEmpty();
+        // the first valid candidate after an invalid one is found
+        Assertions.assertThat(scan("ISBN 9780306406158, ISBN 9781861972712").getIsbn13()).contains("9781861972712");
+    }
+
+    @Test
+    void testRunsOfOtherLengthsAreRejected() throws IOException {
+        Assertions.assertThat(scan("ISBN 97803064061570").getIsbn13()).isEmpty();
+        Assertions.assertThat(scan("ISBN 030640615").getIsbn10()).isEmpty();
+    }
+
+    @Test
+    void testLabelIsRequired() throws IOException {
+        Assertions.assertThat(scan("<td>9780306406157</td>").getIsbn13()).isEmpty();
+        Assertions.assertThat(scan("IS BN 9780306406157").getIsbn13()).isEmpty();
+        Assertions.assertThat(scan("ISBN" + " ".repeat(60) + "9780306406157").getIsbn13()).isEmpty();
+        Assertions.assertThat(scan("<b>ISBN</b>&nbsp;<span>9780306406157</span>").getIsbn13()).contains("9780306406157");
+        Assertions.assertThat(scan("iSbN9780306406157").getIsbn13()).contains("9780306406157");
+    }
+
+    @Test
+    void testIsbn13AfterIsbn10() throws IOException {
+        IsbnStreamScanner scanner = scan("ISBN 0306406152 (paperback) ISBN 9781861972712 (ebook)");
+
+        Assertions.assertThat(scanner.getIsbn10()).contains("0306406152");
+        Assertions.assertThat(scanner.getIsbn13()).contains("9781861972712");
+    }
+
+    @Test
+    void testBufferBoundaries() throws IOException {
+        List<String> textList = List.of(
+                "<p>ISBN-13: 978-0-306-40615-7</p>",
+                "ISBN 0-8044-2957-X",
+                "some text before the label, ISBN: 978 1 86197 271 2 and after");
+        List<String> expectedList = List.of("9780306406157", "080442957X", "9781861972712");
+        for (int i = 0; i < textList.size(); i++) {
+            String text = textList.get(i);
+            for (int windowSize = 1; windowSize <= text.length(); windowSize++) {
+                for (int maxReadSize = 1; maxReadSize <= 5; maxReadSize++) {
+                    IsbnStreamScanner scanner = new IsbnStreamScanner(BYTE_BUDGET);
+                    scanner.scan(new ShortReadInputStream(toInputStream(text), maxReadSize), new byte[windowSize]);
+
+                    String isbn = scanner.getIsbn13().or(scanner::getIsbn10).orElse(null);
+                    Assertions.assertThat(isbn)
+                            .as("%s with a window of %s bytes and reads of %s bytes", text, windowSize, maxReadSize)
+                            .isEqualTo(expectedList.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLabelDoesNotSpanResources() throws IOException {
+        IsbnStreamScanner scanner = new IsbnStreamScanner(BYTE_BUDGET);
+        byte[] window = new byte[WINDOW_SIZE];
+
+        Assertions.assertThat(scanner.scan(toInputStream("the last word is ISBN"), window)).isFalse();
+        Assertions.assertThat(scanner.scan(toInputStream("9780306406157"), window)).isFalse();
+        Assertions.assertThat(scanner.getIsbn13()).isEmpty();
+
+        Assertions.assertThat(scanner.scan(toInputStream("ISBN 9780306406157"), window)).isTrue();
+        Assertions.assertThat(scanner.getIsbn13()).contains("9780306406157");
+        Assertions.assertThat(scanner.getScannedBytes()).isEqualTo((long) ("the last word is ISBN" + "9780306406157" + "ISBN 9780306406157").length());
+    }
+
+    @Test
+    void testByteBudget() throws IOException {
+        String text = "x".repeat(100) + "ISBN 9780306406157";
+        IsbnStreamScanner scanner = new IsbnStreamScanner(50);
+
+        Assertions.assertThat(scanner.scan(toInputStream(text), new byte[16])).isTrue();
+        Assertions.assertThat(scanner.isOver()).isTrue();
+        Assertions.assertThat(scanner.getIsbn13()).isEmpty();
+        Assertions.assertThat(scanner.getScannedBytes()).isEqualTo(50L);
+    }
+
+    private static IsbnStreamScanner scan(String text) throws IOException {
+        IsbnStreamScanner scanner = new IsbnStreamScanner(BYTE_BUDGET);
+        scanner.scan(toInputStream(text), new byte[WINDOW_SIZE]);
+        return scanner;
+    }
+
+    private static InputStream toInputStream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * returns fewer bytes than asked, like a decompressing stream does
+     */
+    private static class ShortReadInputStream extends FilterInputStream {
+        private final int maxReadSize;
+
+        ShortReadInputStream(InputStream inputStream, int maxReadSize) {
+            super(inputStream);
+            this.maxReadSize = maxReadSize;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, this.maxReadSize));
+        }
+    }
+}
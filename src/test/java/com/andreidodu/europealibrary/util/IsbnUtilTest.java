@@ -0,0 +1,141 @@
+package com.andreidodu.europealibrary.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class IsbnUtilTest {
+    // the patterns used by RegularExpressionUtil.extractISBN13/extractISBN10 before IsbnUtil, kept here as the regression oracle
+    private static final Pattern FORMER_ISBN13_PATTERN = Pattern.compile("(?!(([a-z ]+)|(<[a-zA-Z=\" ]+>))((ISBN|isbn)[a-zA-Z0-9]*[:]?[\s]?))(?<=\s)([0-9]{13})(?![0-9]$)+(?=(</[a-zA-Z]*>))");
+    private static final Pattern FORMER_ISBN10_PATTERN = Pattern.compile("(?!(([a-z ]+)|(<[a-zA-Z=\" ]+>))((ISBN|(?!i)sbn)[a-zA-Z0-9]*[:]?[\s]?))(?<=\s)([0-9]{10})(?![0-9]$)+(?=(</[a-zA-Z]*>))");
+
+    // texts on which the scanners must find what the former regexes found
+    private static final List<String> SHARED_CORPUS = List.of(
+            "<p>ISBN: 9780306406157</p>",
+            "<span>isbn 9781861972712</span>",
+            "<p>ISBN-13: 9791032300824</p>",
+            "<p>ISBN: 0306406152</p>",
+            "<p>ISBN 1861972717</p>",
+            "<h1>Chapter one</h1><p>ISBN: 9780804429573</p><p>ISBN: 0306406152</p>",
+            "<p>no code here</p>",
+            "<p>ISBN: </p>",
+            "");
+
+    @Test
+    void testIsbn10Checksum() {
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("0306406152")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("0-306-40615-2")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("0 306 40615 2")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("080442957X")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("080442957x")).isTrue();
+
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("0306406153")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("030640615")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("03064061521")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("0--306406152")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("-0306406152")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("0306406152-")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("X306406152")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("9780306406157")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10((CharSequence) null)).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn10("")).isFalse();
+    }
+
+    @Test
+    void testIsbn13Checksum() {
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("9780306406157")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("978-0-306-40615-7")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("9791032300824")).isTrue();
+
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("9780306406158")).isFalse();
+        // right checksum, but not a bookland prefix
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("9770306406158")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("978030640615X")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("97803064061570")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValidIsbn13("0306406152")).isFalse();
+        Assertions.assertThat(IsbnUtil.isValid("0306406152")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValid("9780306406157")).isTrue();
+        Assertions.assertThat(IsbnUtil.isValid("9780306406158")).isFalse();
+    }
+
+    @Test
+    void testConversion() {
+        Assertions.assertThat(IsbnUtil.toIsbn13("0306406152")).isEqualTo("9780306406157");
+        Assertions.assertThat(IsbnUtil.toIsbn13("0-306-40615-2")).isEqualTo("9780306406157");
+        Assertions.assertThat(IsbnUtil.toIsbn13("080442957X")).isEqualTo("9780804429573");
+        Assertions.assertThat(IsbnUtil.toIsbn13("978-1-86197-271-2")).isEqualTo("9781861972712");
+        Assertions.assertThat(IsbnUtil.toIsbn13("0306406153")).isNull();
+        Assertions.assertThat(IsbnUtil.toIsbn13(null)).isNull();
+
+        Assertions.assertThat(IsbnUtil.toIsbn10("9780306406157")).isEqualTo("0306406152");
+        Assertions.assertThat(IsbnUtil.toIsbn10("978-0-8044-2957-3")).isEqualTo("080442957X");
+        Assertions.assertThat(IsbnUtil.toIsbn10("1-86197-271-7")).isEqualTo("1861972717");
+        // 979 ISBNs have no ISBN-10
+        Assertions.assertThat(IsbnUtil.toIsbn10("9791032300824")).isNull();
+        Assertions.assertThat(IsbnUtil.toIsbn10("9780306406158")).isNull();
+        Assertions.assertThat(IsbnUtil.toIsbn10(null)).isNull();
+
+        for (String isbn10 : List.of("0306406152", "1861972717", "080442957X")) {
+            Assertions.assertThat(IsbnUtil.toIsbn10(IsbnUtil.toIsbn13(isbn10))).isEqualTo(isbn10);
+        }
+    }
+
+    @Test
+    void testCanonicalForm() {
+        Assertions.assertThat(IsbnUtil.normalize("9780306406157")).isEqualTo("9780306406157");
+        Assertions.assertThat(IsbnUtil.normalize(" 978-0-306-40615-7 ")).isEqualTo("9780306406157");
+        Assertions.assertThat(IsbnUtil.normalize("ISBN-13: 978-0-306-40615-7")).isEqualTo("9780306406157");
+        Assertions.assertThat(IsbnUtil.normalize("ISBN: 0 306 40615 2")).isEqualTo("0306406152");
+        Assertions.assertThat(IsbnUtil.normalize("isbn 10 080442957x")).isEqualTo("080442957X");
+        Assertions.assertThat(IsbnUtil.normalize("ISBN 9780306406158")).isNull();
+        Assertions.assertThat(IsbnUtil.normalize("not an isbn")).isNull();
+        Assertions.assertThat(IsbnUtil.normalize(null)).isNull();
+    }
+
+    @Test
+    void testScannerAgreesWithFormerRegexes() {
+        for (String text : SHARED_CORPUS) {
+            Assertions.assertThat(IsbnUtil.findIsbn13(text))
+                    .as("ISBN-13 in %s", text)
+                    .isEqualTo(findByFormerPattern(text, FORMER_ISBN13_PATTERN));
+            Assertions.assertThat(IsbnUtil.findIsbn10(text))
+                    .as("ISBN-10 in %s", text)
+                    .isEqualTo(findByFormerPattern(text, FORMER_ISBN10_PATTERN));
+        }
+    }
+
+    @Test
+    void testScannerDiffersFromFormerRegexesWhereIntended() {
+        // wrong checksum: the regex took any 13 digits
+        String wrongChecksum = "<p>ISBN: 9780306406158</p>";
+        Assertions.assertThat(findByFormerPattern(wrongChecksum, FORMER_ISBN13_PATTERN)).contains("9780306406158");
+        Assertions.assertThat(IsbnUtil.findIsbn13(wrongChecksum)).isEmpty();
+
+        // not labelled: the regex did not look for the label at all
+        String notLabelled = "<td> 9780306406157</td>";
+        Assertions.assertThat(findByFormerPattern(notLabelled, FORMER_ISBN13_PATTERN)).contains("9780306406157");
+        Assertions.assertThat(IsbnUtil.findIsbn13(notLabelled)).isEmpty();
+
+        // hyphenated: the regex wanted the bare digits
+        String hyphenated = "<p>ISBN: 978-0-306-40615-7</p>";
+        Assertions.assertThat(findByFormerPattern(hyphenated, FORMER_ISBN13_PATTERN)).isEmpty();
+        Assertions.assertThat(IsbnUtil.findIsbn13(hyphenated)).contains("9780306406157");
+
+        // plain text: the regex wanted a closing tag after the number
+        String plainText = "ISBN 0306406152, first edition";
+        Assertions.assertThat(findByFormerPattern(plainText, FORMER_ISBN10_PATTERN)).isEmpty();
+        Assertions.assertThat(IsbnUtil.findIsbn10(plainText)).contains("0306406152");
+    }
+
+    private static Optional<String> findByFormerPattern(String text, Pattern pattern) {
+        Matcher matcher = pattern.matcher(text);
+        if (matcher.find()) {
+            return Optional.ofNullable(matcher.group());
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,39 @@
+package com.andreidodu.europealibrary.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class StringUtilTest {
+    private static final List<String> CORPUS = List.of("", " ", "\u0000", " \u0000 ", "title", "  title  ", "ti\u0000tle", "\u0000 title \u0000",
+            "title\u0000 ", " a \u0000 b ", "\ttab\n");
+
+    @Test
+    void testCleanAndTrimToNullAsBefore() {
+        for (String text : CORPUS) {
+            Assertions.assertThat(StringUtil.clean(text)).as("clean %s", text).isEqualTo(text.replaceAll("\u0000", ""));
+            // the former implementation
+            String expected = text.trim().isEmpty() ? null : text.replaceAll("\u0000", "").trim();
+            Assertions.assertThat(StringUtil.cleanAndTrimToNull(text)).as("cleanAndTrimToNull %s", text).isEqualTo(expected);
+        }
+        Assertions.assertThat(StringUtil.clean(null)).isNull();
+        Assertions.assertThat(StringUtil.cleanAndTrimToNull((String) null)).isNull();
+    }
+
+    @Test
+    void testSplitString() {
+        Assertions.assertThat(StringUtil.splitString(" fantasy / epic ; sci-fi,  ").stream().sorted().toList())
+                .isEqualTo(List.of("epic", "fantasy", "sci-fi"));
+        // a backslash used to break String.split
+        Assertions.assertThat(StringUtil.splitString("history\\europe").stream().sorted().toList())
+                .isEqualTo(List.of("europe", "history"));
+        Assertions.assertThat(StringUtil.splitString(" ")).isEqualTo(List.of());
+    }
+
+    @Test
+    void testRemoveHTML() {
+        Assertions.assertThat(StringUtil.removeHTML(" <p>A <b>good</b> book</p> ")).isEqualTo("A good book");
+        Assertions.assertThat(StringUtil.removeHTML(" ")).isNull();
+    }
+}